@@ -16,9 +16,20 @@ repositories {
     mavenCentral()
 }
 
+// JMH benchmarks live in their own source set, src/jmh/java, next to main and test
+val jmh by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output
+    runtimeClasspath += sourceSets.main.get().output
+}
+
+configurations[jmh.implementationConfigurationName].extendsFrom(configurations.implementation.get())
+
 dependencies {
     // This dependency is used by the application.
     implementation(libs.guava)
+
+    jmh.implementationConfigurationName(libs.jmh.core)
+    jmh.annotationProcessorConfigurationName(libs.jmh.generator)
 }
 
 testing {
@@ -58,4 +69,75 @@ tasks.register<JavaExec>("OurBot") {
     mainClass = "provided.Othello"
     classpath = sourceSets.main.get().runtimeClasspath
     args = listOf("human", "PythonProgrammers.OurBot")
-}
\ No newline at end of file
+}
+
+tasks.register<JavaExec>("ParallelSpeedup") {
+    mainClass = "PythonProgrammers.ParallelSpeedup"
+    classpath = sourceSets.main.get().runtimeClasspath
+}
+
+tasks.register<JavaExec>("Headless") {
+    mainClass = "PythonProgrammers.MatchRunner"
+    classpath = sourceSets.main.get().runtimeClasspath
+    args = listOf("PythonProgrammers.OurBot", "Provided.DumAI", "8", "100")
+}
+
+tasks.register<JavaExec>("Tournament") {
+    mainClass = "PythonProgrammers.Tournament"
+    classpath = sourceSets.main.get().runtimeClasspath
+    args = listOf("--openings", "20", "PythonProgrammers.OurBot:2", "PythonProgrammers.OurBot:4", "Provided.DumAI")
+}
+
+// Runs the benchmarks and writes the results to build/reports/jmh/results.json, so runs of
+// different commits can be compared. JMH options can be given with --args, e.g. --args="Search -f 1".
+tasks.register<JavaExec>("jmh") {
+    mainClass = "org.openjdk.jmh.Main"
+    classpath = jmh.runtimeClasspath
+    val results = layout.buildDirectory.file("reports/jmh/results.json")
+    outputs.upToDateWhen { false }
+    doFirst { results.get().asFile.parentFile.mkdirs() }
+    argumentProviders.add(CommandLineArgumentProvider { listOf("-rf", "json", "-rff", results.get().asFile.path) })
+}
+
+tasks.register<JavaExec>("Perft") {
+    mainClass = "PythonProgrammers.Perft"
+    classpath = sourceSets.main.get().runtimeClasspath
+}
+
+tasks.register<JavaExec>("PatternTuner") {
+    mainClass = "PythonProgrammers.PatternTuner"
+    classpath = sourceSets.main.get().runtimeClasspath
+    workingDir = rootDir
+    maxHeapSize = "2g"
+}
+
+tasks.register<JavaExec>("OpeningBookBuilder") {
+    mainClass = "PythonProgrammers.OpeningBookBuilder"
+    classpath = sourceSets.main.get().runtimeClasspath
+    workingDir = rootDir
+}
+
+tasks.register<JavaExec>("ProbCutCalibrator") {
+    mainClass = "PythonProgrammers.ProbCutCalibrator"
+    classpath = sourceSets.main.get().runtimeClasspath
+    workingDir = rootDir
+}
+
+tasks.register<JavaExec>("BatchAnalyzer") {
+    mainClass = "PythonProgrammers.BatchAnalyzer"
+    classpath = sourceSets.main.get().runtimeClasspath
+    standardInput = System.`in`
+    workingDir = rootDir
+}
+
+tasks.register<JavaExec>("GameArchive") {
+    mainClass = "PythonProgrammers.GameArchive"
+    classpath = sourceSets.main.get().runtimeClasspath
+    workingDir = rootDir
+}
+
+tasks.register<JavaExec>("SelfPlayGenerator") {
+    mainClass = "PythonProgrammers.SelfPlayGenerator"
+    classpath = sourceSets.main.get().runtimeClasspath
+    workingDir = rootDir
+}
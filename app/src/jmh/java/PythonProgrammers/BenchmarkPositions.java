@@ -0,0 +1,44 @@
+package PythonProgrammers;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import Provided.GameState;
+
+/**
+ * The fixed positions the benchmarks run on, read from positions.txt.
+ */
+final class BenchmarkPositions {
+
+    private BenchmarkPositions() {
+    }
+
+    /**
+     * Returns the positions of a category (opening, midgame or endgame).
+     * @param engine "bitboard" or "array", the board representation to use.
+     */
+    static GameState[] load(String category, String engine) {
+        List<GameState> positions = new ArrayList<GameState>();
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                BenchmarkPositions.class.getResourceAsStream("/positions.txt"), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#"))
+                    continue;
+                String[] parts = line.split(" ", 2);
+                if (!parts[0].equals(category))
+                    continue;
+                GameState state = BoardText.parse(parts[1]);
+                positions.add(new GameState(state.getBoard(), state.getPlayerInTurn(), engine.equals("bitboard")));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (positions.isEmpty())
+            throw new IllegalArgumentException("No benchmark positions in category " + category);
+        return positions.toArray(new GameState[0]);
+    }
+}
@@ -0,0 +1,79 @@
+package PythonProgrammers;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import Provided.GameState;
+
+/**
+ * How the cost per node grows with the size of the board, for perft (move generation and
+ * make/unmake) and for a search to a fixed depth. Besides the time per operation, the nodes
+ * counter gives nodes per millisecond, which can be compared across sizes.
+ *
+ * The positions are random openings with a quarter of the board filled. The engine "default" is
+ * the representation GameState picks (bitboards on 8x8, the mailbox board otherwise), "array"
+ * the int[][] reference.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BoardSizeBenchmark {
+    @Param({"6", "8", "10", "12", "14", "16"})
+    public int size;
+
+    @Param({"default", "array"})
+    public String engine;
+
+    private GameState position;
+
+    /**
+     * Nodes visited, reported by JMH as a rate next to the operations.
+     */
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Nodes {
+        public long nodes;
+
+        @Setup(Level.Iteration)
+        public void clear() {
+            nodes = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        GameState opening = Openings.random(new Random(size), size, size * size / 4 - 4);
+        position = engine.equals("array")
+                ? new GameState(opening.getBoard(), opening.getPlayerInTurn(), false)
+                : new GameState(opening.getBoard(), opening.getPlayerInTurn());
+    }
+
+    @Benchmark
+    public long perft(Nodes counter) {
+        long nodes = Perft.count(position, 3);
+        counter.nodes += nodes;
+        return nodes;
+    }
+
+    @Benchmark
+    public int search(Nodes counter) {
+        MinimaxAI ai = new MinimaxAI(4, 0); // No transposition table to allocate per operation
+        int score = ai.findBestMove(position, position.getPlayerInTurn()).score;
+        counter.nodes += ai.getLastStats().getNodes();
+        return score;
+    }
+}
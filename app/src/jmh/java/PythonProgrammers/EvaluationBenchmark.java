@@ -0,0 +1,76 @@
+package PythonProgrammers;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import Provided.GameState;
+
+/**
+ * The static evaluation MinimaxAI uses at its depth limit, over all positions of the category:
+ * computed from scratch, and kept up to date while every legal move is made and unmade, the way
+ * the search uses it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvaluationBenchmark {
+    @Param({"opening", "midgame", "endgame"})
+    public String category;
+
+    @Param({"bitboard", "array"})
+    public String engine;
+
+    private GameState[] positions;
+    private MinimaxAI ai;
+    private Evaluator[] evaluators; // One per position, reset at setup
+    private int[] moves;
+
+    @Setup
+    public void setUp() {
+        positions = BenchmarkPositions.load(category, engine);
+        ai = new MinimaxAI(1, 0);
+        evaluators = new Evaluator[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            evaluators[i] = new WeightedEvaluator();
+            evaluators[i].reset(positions[i]);
+        }
+        moves = new int[64];
+    }
+
+    @Benchmark
+    public int evaluate() {
+        int sum = 0;
+        for (GameState state : positions)
+            sum += ai.evaluate(state);
+        return sum;
+    }
+
+    @Benchmark
+    public int makeEvaluateUnmake() {
+        int sum = 0;
+        for (int p = 0; p < positions.length; p++) {
+            GameState state = positions[p];
+            Evaluator evaluator = evaluators[p];
+            int count = state.legalMoves(moves);
+            for (int i = 0; i < count; i++) {
+                int undo = state.makeMove(moves[i]);
+                evaluator.onMakeMove(state, undo);
+                sum += evaluator.evaluate(state);
+                evaluator.onUnmakeMove(state, undo);
+                state.unmakeMove(undo);
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,104 @@
+package PythonProgrammers;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import Provided.GameState;
+import Provided.Position;
+
+/**
+ * The GameState methods the search calls at every node. Each operation runs over all positions of
+ * the category, so the times are per category, not per position.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveGenerationBenchmark {
+    @Param({"opening", "midgame", "endgame"})
+    public String category;
+
+    @Param({"bitboard", "array"})
+    public String engine;
+
+    private GameState[] positions;
+    private Position[] firstMoves; // A legal move in each position, for insertToken
+    private int[] moves;
+
+    @Setup
+    public void setUp() {
+        positions = BenchmarkPositions.load(category, engine);
+        firstMoves = new Position[positions.length];
+        for (int i = 0; i < positions.length; i++)
+            firstMoves[i] = positions[i].legalMoves().get(0);
+        moves = new int[positions[0].getSize() * positions[0].getSize()];
+    }
+
+    @Benchmark
+    public void legalMoves(Blackhole blackhole) {
+        for (GameState state : positions)
+            blackhole.consume(state.legalMoves());
+    }
+
+    @Benchmark
+    public int legalMovesIntoBuffer() {
+        int count = 0;
+        for (GameState state : positions)
+            count += state.legalMoves(moves);
+        return count;
+    }
+
+    /**
+     * Makes and unmakes every legal move, which is what the search does with the moves it generates.
+     */
+    @Benchmark
+    public long makeUnmakeAll() {
+        long hash = 0;
+        for (GameState state : positions) {
+            int count = state.legalMoves(moves);
+            for (int i = 0; i < count; i++) {
+                int undo = state.makeMove(moves[i]);
+                hash ^= state.getHash();
+                state.unmakeMove(undo);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Copies the position and plays a move on the copy, the way the search worked before make/unmake.
+     */
+    @Benchmark
+    public void insertToken(Blackhole blackhole) {
+        for (int i = 0; i < positions.length; i++) {
+            GameState copy = new GameState(positions[i]);
+            blackhole.consume(copy.insertToken(firstMoves[i]));
+        }
+    }
+
+    @Benchmark
+    public void countTokens(Blackhole blackhole) {
+        for (GameState state : positions)
+            blackhole.consume(state.countTokens());
+    }
+
+    @Benchmark
+    public int isFinished() {
+        int finished = 0;
+        for (GameState state : positions)
+            if (state.isFinished())
+                finished++;
+        return finished;
+    }
+}
@@ -0,0 +1,44 @@
+package PythonProgrammers;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import Provided.GameState;
+
+/**
+ * Perft from the start position to a fixed depth, which exercises move generation and
+ * make/unmake without any evaluation or pruning.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PerftBenchmark {
+    @Param({"6", "8"})
+    public int depth;
+
+    @Param({"bitboard", "array"})
+    public String engine;
+
+    private GameState start;
+
+    @Setup
+    public void setUp() {
+        start = new GameState(new GameState(8, 1).getBoard(), 1, engine.equals("bitboard"));
+    }
+
+    @Benchmark
+    public long perft() {
+        return Perft.count(start, depth);
+    }
+}
@@ -0,0 +1,82 @@
+package PythonProgrammers;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import Provided.GameState;
+
+/**
+ * The time MinimaxAI.findBestMove takes to search all positions of the category to a fixed depth.
+ * Every invocation gets a new MinimaxAI, so the transposition table and move ordering start empty.
+ *
+ * The algorithm "pvs" is principal variation search with aspiration windows, "alphabeta" the
+ * MAX-VALUE/MIN-VALUE search with full windows (see MinimaxAI.setPrincipalVariationSearch). The
+ * counters give the nodes visited and the positions searched during the measurement; nodes per
+ * search is the work of the algorithm, which unlike the time does not depend on the machine.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+    @Param({"opening", "midgame", "endgame"})
+    public String category;
+
+    @Param({"4", "6"})
+    public int depth;
+
+    @Param({"pvs", "alphabeta"})
+    public String algorithm;
+
+    private GameState[] positions;
+    private MinimaxAI ai;
+
+    /**
+     * Nodes visited and positions searched, reported by JMH as totals.
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Nodes {
+        public long nodes;
+        public long searches;
+
+        @Setup(Level.Iteration)
+        public void clear() {
+            nodes = 0;
+            searches = 0;
+        }
+    }
+
+    @Setup
+    public void load() {
+        positions = BenchmarkPositions.load(category, "bitboard");
+    }
+
+    @Setup(Level.Invocation)
+    public void newSearcher() {
+        ai = new MinimaxAI(depth, MinimaxAI.DEFAULT_TABLE_MEGABYTES);
+        ai.setPrincipalVariationSearch(algorithm.equals("pvs"));
+    }
+
+    @Benchmark
+    public void findBestMove(Blackhole blackhole, Nodes counter) {
+        for (GameState state : positions) {
+            blackhole.consume(ai.findBestMove(state, state.getPlayerInTurn()));
+            counter.nodes += ai.getLastStats().getNodes();
+            counter.searches++;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package Provided;
+import java.util.Arrays;
+/**
+ * Board stored as a 2-dimensional array. Works for every board size and is the reference
+ * implementation of the rules; this is the representation GameState originally used.
+ */
+class ArrayBoard extends Board {
+	private int[][] board; 		// Possible values: 0 (empty), 1 (black), 2 (white)
+	private int[] flipStack;	// Squares (col*size + row) turned by the moves made with make()
+	private int[] frameStart;	// For each move on the stack, where its squares start in flipStack
+	private int frames;			// Number of moves on the stack
+
+	ArrayBoard(int size){
+		super(size);
+		board = new int[size][size];
+	}
+
+	private ArrayBoard(ArrayBoard other){
+		super(other.size);
+		board = new int[size][];
+		for (int i = 0; i < size; i++)
+			board[i] = other.board[i].clone();
+		hash = other.hash;
+	}
+
+	@Override
+	int get(int col, int row){
+		return board[col][row];
+	}
+
+	@Override
+	void set(int col, int row, int player){
+		hash ^= zobrist.key(col*size + row, board[col][row]) ^ zobrist.key(col*size + row, player);
+		board[col][row] = player;
+	}
+
+	@Override
+	Board copy(){
+		return new ArrayBoard(this);
+	}
+
+	@Override
+	int count(int player){
+		int tokens = 0;
+		for (int i = 0; i < size; i++){
+			for (int j = 0; j < size; j++){
+				if ( board[i][j] == player )
+					tokens++;
+			}
+		}
+		return tokens;
+	}
+
+	@Override
+	boolean insert(int col, int row, int player){
+		if ( board[col][row] != 0 ) // The position is not empty
+			return false;
+
+		boolean capturesFound = false;
+		// Capturing all possible opponents of the player
+		for (int deltaX = -1; deltaX <= 1; deltaX++){
+			for (int deltaY = -1; deltaY <= 1; deltaY++){
+				int captives = captureInDirection(col, row, deltaX, deltaY, player);
+				if ( captives > 0){
+					capturesFound = true;
+					for ( int i = 1; i <= captives; i++){
+						board[col+deltaX*i][row+deltaY*i] = player;
+						hash ^= zobrist.flip[(col+deltaX*i)*size + row+deltaY*i];
+					}
+				}
+			}
+		}
+
+		if ( capturesFound ){
+			board[col][row] = player;
+			hash ^= zobrist.key(col*size + row, player);
+		}
+		return capturesFound;
+	}
+
+	@Override
+	boolean make(int col, int row, int player){
+		if ( board[col][row] != 0 )
+			return false;
+		if ( flipStack == null ){
+			flipStack = new int[4*size*size];
+			frameStart = new int[size*size + 1];
+		}
+		int start = frameStart[frames];
+		int top = start;
+		for (int deltaX = -1; deltaX <= 1; deltaX++){
+			for (int deltaY = -1; deltaY <= 1; deltaY++){
+				int captives = captureInDirection(col, row, deltaX, deltaY, player);
+				if ( top + captives > flipStack.length )
+					flipStack = Arrays.copyOf(flipStack, 2*flipStack.length);
+				for (int i = 1; i <= captives; i++){
+					board[col+deltaX*i][row+deltaY*i] = player;
+					flipStack[top++] = (col+deltaX*i)*size + row+deltaY*i;
+					hash ^= zobrist.flip[(col+deltaX*i)*size + row+deltaY*i];
+				}
+			}
+		}
+		if ( top == start )
+			return false;
+		board[col][row] = player;
+		hash ^= zobrist.key(col*size + row, player);
+		frameStart[++frames] = top;
+		return true;
+	}
+
+	@Override
+	void unmake(int col, int row, int player){
+		int opponent = (player == 1 ? 2 : 1);
+		for (int i = frameStart[frames-1]; i < frameStart[frames]; i++){
+			board[flipStack[i] / size][flipStack[i] % size] = opponent;
+			hash ^= zobrist.flip[flipStack[i]];
+		}
+		board[col][row] = 0;
+		hash ^= zobrist.key(col*size + row, player);
+		frames--;
+	}
+
+	@Override
+	int flipped(int frame, int[] squares){
+		int count = frameStart[frame+1] - frameStart[frame];
+		System.arraycopy(flipStack, frameStart[frame], squares, 0, count);
+		return count;
+	}
+
+	@Override
+	int moves(int player, int[] moves){
+		int count = 0;
+		for (int i = 0; i < this.size; i++){
+			for (int j = 0; j < this.size; j++){
+				if ( isLegal(i, j, player) )
+					moves[count++] = i*size + j;
+			}
+		}
+		return count;
+	}
+
+	@Override
+	boolean hasMove(int player){
+		for (int i = 0; i < this.size; i++){
+			for (int j = 0; j < this.size; j++){
+				if ( isLegal(i, j, player) )
+					return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns true if the given square is empty and the player captures in at least one direction.
+	 */
+	private boolean isLegal(int col, int row, int player){
+		if ( board[col][row] != 0 )
+			return false;
+		for (int deltaX = -1; deltaX <= 1; deltaX++){
+			for (int deltaY = -1; deltaY <= 1; deltaY++){
+				if ( captureInDirection(col, row, deltaX, deltaY, player) > 0 )
+					return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	int[][] toArray(){
+		int[][] copy = new int[size][];
+		for (int i = 0; i < size; i++)
+			copy[i] = board[i].clone();
+		return copy;
+	}
+
+	/**
+	 * Checks how many tokens of the opponent the player can capture in the direction given by deltaX and deltaY
+	 * if the player puts a token at the given position.
+	 * @param col The column of a position on the board
+	 * @param row The row of a position on the board
+	 * @param deltaX The step to be taken in the x-direction. Should be -1 (left), 0 (none), or 1 (right).
+	 * @param deltaY The step to be taken in the delta direction. Should be -1 (up), 0 (none), or 1 (down).
+	 * @param player The player putting the token, 1 (black) or 2 (white).
+	 */
+	private int captureInDirection(int col, int row, int deltaX, int deltaY, int player){
+		int opponent = (player == 1 ? 2 : 1);
+
+		int captured = 0;
+		int cc = col;
+		int rr = row;
+		while ( 0 <= cc+deltaX && cc+deltaX < size && 0 <= rr+deltaY && rr+deltaY < size
+				&& board[cc+deltaX][rr+deltaY] == opponent ){
+			cc = cc + deltaX;
+			rr = rr + deltaY;
+			captured++;
+		}
+		if ( 0 <= cc+deltaX && cc+deltaX < size  && 0 <= rr+deltaY && rr+deltaY < size
+				&& board[cc+deltaX][rr+deltaY] == player && captured > 0 ){
+			return captured;
+		}
+		else
+			return 0;
+	}
+}
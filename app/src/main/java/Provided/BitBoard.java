@@ -0,0 +1,210 @@
+package Provided;
+/**
+ * Board for the standard 8x8 game, stored as one 64-bit mask per player. Square (col, row) is
+ * bit col*8 + row, so iterating over the set bits of a mask visits squares in the same order as
+ * the nested col/row loops over the array representation. Legal moves and captured tokens are
+ * computed with shifts and masks instead of walking the board square by square.
+ */
+public final class BitBoard extends Board {
+	/** All squares except those in row 0; used when a shift moves one row down. */
+	static final long NOT_ROW_0 = 0xFEFEFEFEFEFEFEFEL;
+	/** All squares except those in row 7; used when a shift moves one row up. */
+	static final long NOT_ROW_7 = 0x7F7F7F7F7F7F7F7FL;
+	/** All squares except those in row 0 and row 7. */
+	static final long INNER_ROWS = 0x7E7E7E7E7E7E7E7EL;
+
+	// The 8 directions as bit offsets, together with the mask that removes squares that wrapped around
+	private static final int[] SHIFTS = { 1, -1, 8, -8, 9, -9, 7, -7 };
+	private static final long[] WRAP_MASKS = { NOT_ROW_0, NOT_ROW_7, -1L, -1L, NOT_ROW_0, NOT_ROW_7, NOT_ROW_7, NOT_ROW_0 };
+
+	long black;		// Squares with a token of player 1
+	long white;		// Squares with a token of player 2
+	private long[] flipStack;	// Tokens turned by each move made with make(), allocated on first use
+	private int flipTop;		// Number of moves on the flip stack
+
+	BitBoard(){
+		super(8);
+	}
+
+	private BitBoard(BitBoard other){
+		super(8);
+		black = other.black;
+		white = other.white;
+		hash = other.hash;
+	}
+
+	@Override
+	int get(int col, int row){
+		long bit = 1L << (col*8 + row);
+		if ( (black & bit) != 0 )
+			return 1;
+		if ( (white & bit) != 0 )
+			return 2;
+		return 0;
+	}
+
+	@Override
+	void set(int col, int row, int player){
+		int square = col*8 + row;
+		long bit = 1L << square;
+		hash ^= zobrist.key(square, get(col, row)) ^ zobrist.key(square, player);
+		black &= ~bit;
+		white &= ~bit;
+		if ( player == 1 )
+			black |= bit;
+		else if ( player == 2 )
+			white |= bit;
+	}
+
+	@Override
+	Board copy(){
+		return new BitBoard(this);
+	}
+
+	@Override
+	int count(int player){
+		return Long.bitCount(player == 1 ? black : white);
+	}
+
+	@Override
+	boolean insert(int col, int row, int player){
+		int square = col*8 + row;
+		if ( ((black | white) & (1L << square)) != 0 ) // The position is not empty
+			return false;
+		long flipped = flips(square, player == 1 ? black : white, player == 1 ? white : black);
+		if ( flipped == 0 )
+			return false;
+		toggle(flipped, square, player);
+		return true;
+	}
+
+	@Override
+	boolean make(int col, int row, int player){
+		int square = col*8 + row;
+		long bit = 1L << square;
+		if ( ((black | white) & bit) != 0 )
+			return false;
+		long flipped = flips(square, player == 1 ? black : white, player == 1 ? white : black);
+		if ( flipped == 0 )
+			return false;
+		if ( flipStack == null )
+			flipStack = new long[64];
+		flipStack[flipTop++] = flipped;
+		toggle(flipped, square, player);
+		return true;
+	}
+
+	@Override
+	void unmake(int col, int row, int player){
+		toggle(flipStack[--flipTop], col*8 + row, player);
+	}
+
+	@Override
+	int flipped(int frame, int[] squares){
+		int count = 0;
+		for (long f = flipStack[frame]; f != 0; f &= f - 1)
+			squares[count++] = Long.numberOfTrailingZeros(f);
+		return count;
+	}
+
+	/**
+	 * Turns the flipped tokens and toggles the token of the given player on the placed square,
+	 * updating the hash. Applying the same arguments twice restores the board.
+	 */
+	private void toggle(long flipped, int square, int player){
+		long placed = 1L << square;
+		hash ^= zobrist.key(square, player);
+		for (long f = flipped; f != 0; f &= f - 1)
+			hash ^= zobrist.flip[Long.numberOfTrailingZeros(f)];
+		if ( player == 1 ){
+			black ^= flipped | placed;
+			white ^= flipped;
+		}
+		else {
+			white ^= flipped | placed;
+			black ^= flipped;
+		}
+	}
+
+	@Override
+	int moves(int player, int[] moves){
+		int count = 0;
+		for (long m = moveMask(player); m != 0; m &= m - 1)
+			moves[count++] = Long.numberOfTrailingZeros(m);
+		return count;
+	}
+
+	@Override
+	boolean hasMove(int player){
+		return moveMask(player) != 0;
+	}
+
+	/**
+	 * Returns the mask of squares where the given player can legally put a token.
+	 */
+	long moveMask(int player){
+		return player == 1 ? moves(black, white) : moves(white, black);
+	}
+
+	/**
+	 * Returns the mask of empty squares where the player owning own can legally put a token.
+	 * @param own The tokens of the player to move.
+	 * @param opp The tokens of the opponent.
+	 */
+	public static long moves(long own, long opp){
+		long empty = ~(own | opp);
+		long inner = opp & INNER_ROWS; // a run of captured tokens never ends on row 0 or 7 in a direction with a row step
+		return movesInDirection(own, inner, empty, 1)
+			 | movesInDirection(own, opp, empty, 8)
+			 | movesInDirection(own, inner, empty, 7)
+			 | movesInDirection(own, inner, empty, 9);
+	}
+
+	/**
+	 * Returns the tokens of the opponent that are turned when the player owning own puts a token on
+	 * the given square, or 0 if the move is not legal.
+	 * @param square An empty square, col*8 + row.
+	 */
+	public static long flips(int square, long own, long opp){
+		long bit = 1L << square;
+		long flipped = 0;
+		for (int d = 0; d < 8; d++)
+			flipped |= flipsInDirection(bit, own, opp, d);
+		return flipped;
+	}
+
+	/**
+	 * Moves in both directions along one line: shifting left by s and shifting right by s. The run
+	 * of opponent tokens between an own token and the empty square is at most 6 long.
+	 */
+	private static long movesInDirection(long own, long opp, long empty, int s){
+		long l = opp & (own << s);
+		l |= opp & (l << s);
+		l |= opp & (l << s);
+		l |= opp & (l << s);
+		l |= opp & (l << s);
+		l |= opp & (l << s);
+		long r = opp & (own >>> s);
+		r |= opp & (r >>> s);
+		r |= opp & (r >>> s);
+		r |= opp & (r >>> s);
+		r |= opp & (r >>> s);
+		r |= opp & (r >>> s);
+		return empty & ((l << s) | (r >>> s));
+	}
+
+	private static long flipsInDirection(long bit, long own, long opp, int d){
+		long flipped = 0;
+		long p = shift(bit, d);
+		while ( (p & opp) != 0 ){
+			flipped |= p;
+			p = shift(p, d);
+		}
+		return (p & own) != 0 ? flipped : 0;
+	}
+
+	private static long shift(long b, int d){
+		int s = SHIFTS[d];
+		return (s > 0 ? b << s : b >>> -s) & WRAP_MASKS[d];
+	}
+}
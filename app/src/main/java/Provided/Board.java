@@ -0,0 +1,88 @@
+package Provided;
+/**
+ * The squares of a square Othello board together with the rules for placing and capturing tokens.
+ * A board does not know whose turn it is; GameState keeps track of that and delegates the rest.
+ * BitBoard is used for the standard 8x8 board and MailboxBoard for every other size; ArrayBoard is
+ * the reference implementation of the rules that the others are checked against.
+ */
+abstract class Board {
+	final int size;		// The number of columns = the number of rows on the board
+	final Zobrist zobrist;	// Keys used for the hash of the tokens on this board
+	long hash;			// Zobrist hash of the tokens on the board, kept up to date by every change
+
+	Board(int size){
+		this.size = size;
+		this.zobrist = Zobrist.forSize(size);
+	}
+
+	/**
+	 * Returns the content of the given square: 0 (empty), 1 (black) or 2 (white).
+	 */
+	abstract int get(int col, int row);
+
+	/**
+	 * Puts the given value on a square without applying any rules. Only used while setting up a board.
+	 */
+	abstract void set(int col, int row, int player);
+
+	/**
+	 * Returns an independent copy of this board.
+	 */
+	abstract Board copy();
+
+	/**
+	 * Returns the number of tokens the given player has on the board.
+	 */
+	abstract int count(int player);
+
+	/**
+	 * Places a token for the given player and turns the captured tokens if the move is legal.
+	 * @return true if the move was legal and has been made, false otherwise (the board is unchanged).
+	 */
+	abstract boolean insert(int col, int row, int player);
+
+	/**
+	 * Like insert, but remembers the turned tokens on an undo stack so the move can be taken back
+	 * with unmake. Moves must be unmade in the reverse order of how they were made.
+	 * @return true if the move was legal and has been made, false otherwise (the board is unchanged).
+	 */
+	abstract boolean make(int col, int row, int player);
+
+	/**
+	 * Takes back the most recent move made with make, which must have put a token for the given
+	 * player on the given square.
+	 */
+	abstract void unmake(int col, int row, int player);
+
+	/**
+	 * Writes the squares (col*size + row) turned by a move made with make that has not been unmade
+	 * yet into the buffer, and returns how many there are.
+	 * @param frame The position of the move on the undo stack, 0 for the oldest move.
+	 */
+	abstract int flipped(int frame, int[] squares);
+
+	/**
+	 * Writes the legal moves of the given player into the buffer as squares (col*size + row), each
+	 * move once and in increasing order, and returns how many there are.
+	 * @param moves A buffer with room for at least as many moves as there are empty squares.
+	 */
+	abstract int moves(int player, int[] moves);
+
+	/**
+	 * Returns true if the given player has at least one legal move.
+	 */
+	abstract boolean hasMove(int player);
+
+	/**
+	 * Returns the board as a new [col][row] array, which the caller may change.
+	 */
+	int[][] toArray(){
+		int[][] board = new int[size][size];
+		for (int i = 0; i < size; i++){
+			for (int j = 0; j < size; j++){
+				board[i][j] = get(i, j);
+			}
+		}
+		return board;
+	}
+}
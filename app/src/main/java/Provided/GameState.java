@@ -3,13 +3,18 @@ import java.util.ArrayList;
 /**
  * Class to represent the state of a game of Othello.  The state is defined by a 2-dimensional
  * board and whose turn it is. 
+ * The standard 8x8 board is stored as bitboards (see BitBoard); other sizes use a padded 1-dimensional
+ * array that keeps track of the empty squares next to tokens (see MailboxBoard).
  * @author Mai Ajspur
  * @version 9.2.2018
  */
 public class GameState {
-	private int[][] board; 		// Possible values: 0 (empty), 1 (black), 2 (white)
+	private Board board; 		// The tokens on the board
 	private int currentPlayer; 	// The player who is next to put a token on the board. Value is 1 or 2.
 	private int size;  			// The number of columns = the number of rows on the board
+	private int[] undoSquares;	// Square (col*size + row) of each move made with makeMove(), allocated on first use
+	private int[] undoPlayers;	// The player who made each of those moves
+	private int undoTop;		// Number of moves that can be unmade
 	
 	//************ Constructors ****************//
 	/**
@@ -22,13 +27,13 @@ public class GameState {
 	 */
 	public GameState(int size, int playerToStart){ 
 		this.size = size;
-		board = new int[size][size];
+		board = size == 8 ? new BitBoard() : new MailboxBoard(size);
 		currentPlayer = playerToStart;
         int half = size/2-1;
-        board[half][half] = 1;
-        board[half+1][half+1] = 1;
-        board[half][half+1] = 2;
-        board[half+1][half] = 2;   
+        board.set(half, half, 1);
+        board.set(half+1, half+1, 1);
+        board.set(half, half+1, 2);
+        board.set(half+1, half, 2);
 	}
 	
 	/**
@@ -40,21 +45,59 @@ public class GameState {
 	 */
 	public GameState(int[][] board, int playerToTakeTurn){ 
 		this.size = board.length;
-		this.board = new int[size][size];
+		this.board = size == 8 ? new BitBoard() : new MailboxBoard(size);
+		setUp(board, playerToTakeTurn);
+	}
+
+	/**
+	 * Constructs a new game state that equals the one represented by the supplied board and player,
+	 * choosing the representation explicitly. Mostly useful for comparing a representation with the
+	 * 2-dimensional array, which is the reference implementation of the rules.
+	 * @param useBitboard true to store the board as bitboards (only possible for 8x8 boards), false
+	 * to store it as a 2-dimensional array.
+	 */
+	public GameState(int[][] board, int playerToTakeTurn, boolean useBitboard){
+		this.size = board.length;
+		if ( useBitboard && size != 8 )
+			throw new IllegalArgumentException("Bitboards are only supported for 8x8 boards, not " + size + "x" + size);
+		this.board = useBitboard ? new BitBoard() : new ArrayBoard(size);
+		setUp(board, playerToTakeTurn);
+	}
+
+	private void setUp(int[][] board, int playerToTakeTurn){
 		for (int i = 0; i < size; i++){
 			for (int j = 0; j < size; j++){
-				this.board[i][j] = board[i][j];
+				this.board.set(i, j, board[i][j]);
 			}
 		}
 		this.currentPlayer = playerToTakeTurn;
 	}
+
+	/**
+	 * Constructs a copy of the given game state, using the same representation. Cheaper than
+	 * new GameState(state.getBoard(), state.getPlayerInTurn()) as no array has to be built.
+	 */
+	public GameState(GameState other){
+		this.size = other.size;
+		this.board = other.board.copy();
+		this.currentPlayer = other.currentPlayer;
+	}
 	
 	//************ Getter methods *******************//
 	/**
-	 * Returns the array representing the board of this game state
+	 * Returns a new array with the board of this game state, as board[col][row]. Modifying it does
+	 * not change the game state. Code that looks at many positions should use getToken, or
+	 * getBitboard on 8x8 boards, which build no array.
 	 */
 	public int[][] getBoard(){
-		return board;
+		return board.toArray();
+	}
+
+	/**
+	 * Returns the content of the given square: 0 (empty), 1 (black) or 2 (white).
+	 */
+	public int getToken(int col, int row){
+		return board.get(col, row);
 	}
 
 	/**
@@ -64,6 +107,43 @@ public class GameState {
 		return currentPlayer;
 	}
 
+	/**
+	 * Returns the Zobrist hash of this state, which depends on the tokens on the board and the player
+	 * in turn. Equal states have equal hashes, also across runs of the program. The hash is kept up to
+	 * date as moves are made, so calling this is cheap.
+	 */
+	public long getHash(){
+		return currentPlayer == 2 ? board.hash ^ Zobrist.WHITE_TO_MOVE : board.hash;
+	}
+
+	/**
+	 * Returns the number of columns (= the number of rows) on the board.
+	 */
+	public int getSize(){
+		return size;
+	}
+
+	/**
+	 * Returns true if the board is stored as bitboards, false if it is stored as a mailbox board or,
+	 * with the reference constructor, a 2-dimensional array.
+	 */
+	public boolean usesBitboard(){
+		return board instanceof BitBoard;
+	}
+
+	/**
+	 * Returns the tokens of the given player as a bitboard (bit col*8 + row is set for every token),
+	 * for code that works on bitboards directly with the operations in BitBoard.
+	 * @param player 1 (black) or 2 (white).
+	 * @throws UnsupportedOperationException if the board is not stored as bitboards (see usesBitboard).
+	 */
+	public long getBitboard(int player){
+		if ( !(board instanceof BitBoard) )
+			throw new UnsupportedOperationException("Only 8x8 boards are stored as bitboards");
+		BitBoard bits = (BitBoard) board;
+		return player == 1 ? bits.black : bits.white;
+	}
+
 	//************* Methods ****************//
 	/**
 	 * Skips the turn of the current player (without) changing the board.
@@ -77,17 +157,7 @@ public class GameState {
 	 * and false otherwise.
 	 */
 	public boolean isFinished(){
-		if ( !legalMoves().isEmpty() )
-			return false;
-		else{ //current player has no legal moves
-			changePlayer();
-			if ( legalMoves().isEmpty() ) //next player also has no legal moves
-				return true;
-			else{
-				changePlayer();
-				return false;
-			}
-		}
+		return !board.hasMove(currentPlayer) && !board.hasMove(currentPlayer == 1 ? 2 : 1);
 	}
 	
 	/**
@@ -95,17 +165,7 @@ public class GameState {
 	 * with the numbers in that order.
 	 */
 	public int[] countTokens(){
-    	int tokens1 = 0;
-    	int tokens2 = 0;
-    	for (int i = 0; i < size; i++){
-    		for (int j = 0; j < size; j++){
-    			if ( board[i][j] == 1 )
-    				tokens1++;
-    			else if ( board[i][j] == 2 )
-    				tokens2++;
-    		}
-    	}
-    	return new int[]{tokens1, tokens2};
+    	return new int[]{board.count(1), board.count(2)};
 	}
 	
 	/**
@@ -116,25 +176,8 @@ public class GameState {
     public boolean insertToken(Position place) { 
     	if ( place.col < 0 || place.row < 0 || place.col >= size || place.row >= size ) //not a position on the board
     		return false;
-    	if ( board[place.col][place.row] != 0 ) // The position is not empty
-    		return false;
 
-    	boolean capturesFound = false;
-    	// Capturing all possible opponents of the current player
-    	for (int deltaX = -1; deltaX <= 1; deltaX++){
-    		for (int deltaY = -1; deltaY <= 1; deltaY++){
-        		int captives = captureInDirection(place, deltaX, deltaY); 
-        		if ( captives > 0){
-        			capturesFound = true;
-        			for ( int i = 1; i <= captives; i++)
-        				board[place.col+deltaX*i][place.row+deltaY*i]=currentPlayer;
-        		}
-        	}		
-    	}
-    	
-    	if ( capturesFound ){
-    		// Place the token at the given place
-    		board[place.col][place.row] = currentPlayer;
+    	if ( board.insert(place.col, place.row, currentPlayer) ){
     		this.changePlayer();
     		return true;
     	}
@@ -143,56 +186,112 @@ public class GameState {
     	}
     }
 
+    /**
+     * Like insertToken, but the move can be taken back with unmakeMove. Meant for search algorithms
+     * that walk the game tree on a single state instead of copying it for every move.
+     * @return An undo record to pass to unmakeMove, or -1 if the move is not legal (the state is unchanged).
+     */
+    public int makeMove(Position place){
+    	if ( place.col < 0 || place.row < 0 || place.col >= size || place.row >= size ) //not a position on the board
+    		return -1;
+    	return makeMove(place.col*size + place.row);
+    }
+
+    /**
+     * Like makeMove(Position), but the move is given as a square (col*size + row) as written by
+     * legalMoves(int[]). The square must be on the board.
+     * @return An undo record to pass to unmakeMove, or -1 if the move is not legal (the state is unchanged).
+     */
+    public int makeMove(int square){
+    	if ( !board.make(square / size, square % size, currentPlayer) )
+    		return -1;
+    	if ( undoSquares == null ){
+    		undoSquares = new int[size*size];
+    		undoPlayers = new int[size*size];
+    	}
+    	undoSquares[undoTop] = square;
+    	undoPlayers[undoTop] = currentPlayer;
+    	this.changePlayer();
+    	return undoTop++;
+    }
+
+    /**
+     * Takes back a move made with makeMove, restoring the board and the player in turn. Moves must be
+     * unmade in the reverse order of how they were made.
+     * @param undo The undo record returned by makeMove.
+     */
+    public void unmakeMove(int undo){
+    	if ( undo < 0 || undo != undoTop-1 )
+    		throw new IllegalStateException("Moves must be unmade in the reverse order of how they were made");
+    	undoTop--;
+    	int square = undoSquares[undoTop];
+    	currentPlayer = undoPlayers[undoTop];
+    	board.unmake(square / size, square % size, currentPlayer);
+    }
+
+    /**
+     * Returns the square (col*size + row) of a move made with makeMove that has not been unmade yet.
+     * @param undo The undo record returned by makeMove.
+     */
+    public int getMoveSquare(int undo){
+    	checkUndo(undo);
+    	return undoSquares[undo];
+    }
+
+    /**
+     * Returns the player who made a move made with makeMove that has not been unmade yet.
+     * @param undo The undo record returned by makeMove.
+     */
+    public int getMovePlayer(int undo){
+    	checkUndo(undo);
+    	return undoPlayers[undo];
+    }
+
+    /**
+     * Writes the squares (col*size + row) of the tokens turned by a move made with makeMove that has
+     * not been unmade yet into the buffer, and returns how many there are. Lets an evaluation function
+     * update its sums after a move instead of looking at the whole board again.
+     * @param undo The undo record returned by makeMove.
+     * @param squares A buffer of length at least size*size.
+     */
+    public int getFlippedSquares(int undo, int[] squares){
+    	checkUndo(undo);
+    	return board.flipped(undo, squares);
+    }
+
+    private void checkUndo(int undo){
+    	if ( undo < 0 || undo >= undoTop )
+    		throw new IllegalStateException("No move with undo record " + undo + " has been made");
+    }
+
     /**
      * Returns a list of all the positions on the board that constitutes a legal move for the current player.
      */
     public ArrayList<Position> legalMoves(){
-    	ArrayList<Position> posPlaces = new ArrayList<Position>();
-    	for (int i = 0; i < this.size; i++){
-    		for (int j = 0; j < this.size; j++){
-    			if ( board[i][j] == 0 ){
-    				posPlaces.add(new Position(i,j));
-    			}
-    		}
-    	}
-    	ArrayList<Position> legalPlaces = new ArrayList<Position>();
-    	for (Position p: posPlaces){
-    		for (int deltaX = -1; deltaX <= 1; deltaX++){
-    			for (int deltaY = -1; deltaY <= 1; deltaY++){
-    				if ( captureInDirection(p, deltaX, deltaY) > 0 ){
-    	    			legalPlaces.add(p);
-    				}
-    			}
-    		}
-    	}
+    	int[] moves = new int[size*size];
+    	int count = board.moves(currentPlayer, moves);
+    	ArrayList<Position> legalPlaces = new ArrayList<Position>(count);
+    	for (int i = 0; i < count; i++)
+    		legalPlaces.add(new Position(moves[i] / size, moves[i] % size));
     	return legalPlaces;
     }	
-    
+
+    /**
+     * Writes the legal moves of the current player into the given buffer and returns how many there are.
+     * Each move is written once, as the square col*size + row, in the same order as legalMoves().
+     * Nothing is allocated, so this is the variant to use in search algorithms.
+     * @param moves A buffer of length at least size*size (the number of squares on the board).
+     */
+    public int legalMoves(int[] moves){
+    	return board.moves(currentPlayer, moves);
+    }
+
     /**
-     * Checks how many tokens of the opponent the player can capture in the direction given by deltaX and deltaY
-     * if the player puts a token at the given position.
-     * @param p A position on the board
-     * @param deltaX The step to be taken in the x-direction. Should be -1 (left), 0 (none), or 1 (right).
-     * @param deltaY The step to be taken in the delta direction. Should be -1 (up), 0 (none), or 1 (down).
+     * Returns true if the current player has at least one legal move. Cheaper than checking whether
+     * legalMoves() is empty.
      */
-    private int captureInDirection(Position p, int deltaX, int deltaY){
-    	int opponent = (currentPlayer == 1 ? 2 : 1); 
-        
-    	int captured = 0;
-    	int cc = p.col;
-    	int rr = p.row;
-        while ( 0 <= cc+deltaX && cc+deltaX < size && 0 <= rr+deltaY && rr+deltaY < size 
-    			&& board[cc+deltaX][rr+deltaY] == opponent ){ 
-        	cc = cc + deltaX;
-        	rr = rr + deltaY;
-        	captured++;
-        }
-        if ( 0 <= cc+deltaX && cc+deltaX < size  && 0 <= rr+deltaY && rr+deltaY < size 
-    			&& board[cc+deltaX][rr+deltaY] == currentPlayer && captured > 0 ){
-        	return captured;
-        }
-        else
-        	return 0;
+    public boolean hasAnyLegalMove(){
+    	return board.hasMove(currentPlayer);
     }
 
 }
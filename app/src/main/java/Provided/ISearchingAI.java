@@ -0,0 +1,22 @@
+package Provided;
+import java.util.function.Consumer;
+/**
+ * An AI that searches for its move and can tell how far it has come. The GUI uses this to show
+ * the progress of the search while the AI is thinking, and to stop it when the game is closed.
+ */
+public interface ISearchingAI extends IOthelloAI {
+
+	/**
+	 * Sets who to tell about the progress of the search. The listener is called from the thread
+	 * running decideMove, each time the search has gone one ply deeper.
+	 * @param listener The listener, or null for none.
+	 */
+	public void setProgressListener(Consumer<SearchProgress> listener);
+
+	/**
+	 * Asks a running decideMove to return as soon as possible with the best move found so far.
+	 * Can be called from any thread; has no effect if no move is being decided.
+	 */
+	public void stop();
+
+}
@@ -0,0 +1,284 @@
+package Provided;
+import java.util.Arrays;
+/**
+ * Board for sizes other than 8x8, stored as a 1-dimensional array with a border of sentinel
+ * squares around the board (a padded mailbox). Walking in a direction is adding a fixed offset to
+ * the index, and a walk stops at the border without checking the coordinates.
+ *
+ * The board also keeps the frontier: the empty squares next to at least one token. Only those can
+ * be legal moves, so move generation looks at the frontier instead of every square of the board.
+ * The frontier changes only where a token is placed or removed, so it is updated with the 8
+ * neighbours of that square; turning tokens does not change it.
+ */
+class MailboxBoard extends Board {
+	private static final byte BORDER = 3;	// Value of the sentinel squares around the board
+
+	private final int stride;		// Index difference between neighbouring columns: size + 1
+	private final int[] directions;	// Index offsets of the 8 neighbours of a square
+	private final byte[] cells;		// 0 (empty), 1 (black), 2 (white) or BORDER for each index
+	private final int[] toSquare;	// Square (col*size + row) of each index, -1 for the border
+	private final int[] toIndex;	// Index of each square
+	private final int[] counts = new int[3];	// Tokens of each player
+
+	// The frontier as a set: the first frontierSize entries of frontier are its squares (as indices),
+	// and frontierPos gives the position of an index in frontier (or -1)
+	private final int[] neighbours;	// Number of tokens next to each index
+	private final int[] frontier;
+	private final int[] frontierPos;
+	private int frontierSize;
+
+	private int[] flipStack;	// Indices turned by the moves made with make()
+	private int[] frameStart;	// For each move on the stack, where its indices start in flipStack
+	private int frames;			// Number of moves on the stack
+
+	MailboxBoard(int size){
+		super(size);
+		stride = size + 1;
+		// Each column is stride indices: one border square shared with the previous column, then
+		// size squares. One column of border before and after the board, and one more index for
+		// the diagonal step out of the last square.
+		int length = (size + 2) * stride + 1;
+		directions = new int[]{-stride - 1, -stride, -stride + 1, -1, 1, stride - 1, stride, stride + 1};
+		cells = new byte[length];
+		Arrays.fill(cells, BORDER);
+		toSquare = new int[length];
+		Arrays.fill(toSquare, -1);
+		toIndex = new int[size*size];
+		for (int col = 0; col < size; col++){
+			for (int row = 0; row < size; row++){
+				int index = (col + 1) * stride + row + 1;
+				cells[index] = 0;
+				toSquare[index] = col*size + row;
+				toIndex[col*size + row] = index;
+			}
+		}
+		neighbours = new int[length];
+		frontier = new int[size*size];
+		frontierPos = new int[length];
+		Arrays.fill(frontierPos, -1);
+	}
+
+	private MailboxBoard(MailboxBoard other){
+		super(other.size);
+		stride = other.stride;
+		directions = other.directions;
+		toSquare = other.toSquare;
+		toIndex = other.toIndex;
+		cells = other.cells.clone();
+		System.arraycopy(other.counts, 0, counts, 0, counts.length);
+		neighbours = other.neighbours.clone();
+		frontier = other.frontier.clone();
+		frontierPos = other.frontierPos.clone();
+		frontierSize = other.frontierSize;
+		hash = other.hash;
+	}
+
+	@Override
+	int get(int col, int row){
+		return cells[toIndex[col*size + row]];
+	}
+
+	@Override
+	void set(int col, int row, int player){
+		int index = toIndex[col*size + row];
+		int old = cells[index];
+		hash ^= zobrist.key(col*size + row, old) ^ zobrist.key(col*size + row, player);
+		if ( old == 0 && player != 0 )
+			place(index, player);
+		else if ( old != 0 && player == 0 )
+			remove(index);
+		else
+			cells[index] = (byte) player;
+		if ( old != 0 )
+			counts[old]--;
+		if ( player != 0 )
+			counts[player]++;
+	}
+
+	@Override
+	Board copy(){
+		return new MailboxBoard(this);
+	}
+
+	@Override
+	int count(int player){
+		return counts[player];
+	}
+
+	@Override
+	boolean insert(int col, int row, int player){
+		int index = toIndex[col*size + row];
+		if ( cells[index] != 0 )
+			return false;
+		int opponent = player == 1 ? 2 : 1;
+		boolean capturesFound = false;
+		for (int d : directions){
+			int end = captureEnd(index, d, player, opponent);
+			if ( end != index ){
+				capturesFound = true;
+				for (int i = index + d; i != end; i += d){
+					cells[i] = (byte) player;
+					hash ^= zobrist.flip[toSquare[i]];
+					counts[player]++;
+					counts[opponent]--;
+				}
+			}
+		}
+		if ( capturesFound ){
+			place(index, player);
+			hash ^= zobrist.key(toSquare[index], player);
+			counts[player]++;
+		}
+		return capturesFound;
+	}
+
+	@Override
+	boolean make(int col, int row, int player){
+		int index = toIndex[col*size + row];
+		if ( cells[index] != 0 )
+			return false;
+		if ( flipStack == null ){
+			flipStack = new int[4*size*size];
+			frameStart = new int[size*size + 1];
+		}
+		int opponent = player == 1 ? 2 : 1;
+		int start = frameStart[frames];
+		int top = start;
+		for (int d : directions){
+			int end = captureEnd(index, d, player, opponent);
+			if ( end == index )
+				continue;
+			if ( top + size > flipStack.length )
+				flipStack = Arrays.copyOf(flipStack, 2*flipStack.length);
+			for (int i = index + d; i != end; i += d){
+				cells[i] = (byte) player;
+				flipStack[top++] = i;
+				hash ^= zobrist.flip[toSquare[i]];
+			}
+		}
+		if ( top == start )
+			return false;
+		counts[player] += top - start + 1;
+		counts[opponent] -= top - start;
+		place(index, player);
+		hash ^= zobrist.key(toSquare[index], player);
+		frameStart[++frames] = top;
+		return true;
+	}
+
+	@Override
+	void unmake(int col, int row, int player){
+		int opponent = player == 1 ? 2 : 1;
+		int start = frameStart[frames-1];
+		int end = frameStart[frames];
+		for (int i = start; i < end; i++){
+			cells[flipStack[i]] = (byte) opponent;
+			hash ^= zobrist.flip[toSquare[flipStack[i]]];
+		}
+		counts[player] -= end - start + 1;
+		counts[opponent] += end - start;
+		int index = toIndex[col*size + row];
+		remove(index);
+		hash ^= zobrist.key(toSquare[index], player);
+		frames--;
+	}
+
+	@Override
+	int flipped(int frame, int[] squares){
+		int start = frameStart[frame];
+		int count = frameStart[frame+1] - start;
+		for (int i = 0; i < count; i++)
+			squares[i] = toSquare[flipStack[start + i]];
+		return count;
+	}
+
+	@Override
+	int moves(int player, int[] moves){
+		// The frontier is in no particular order, so the moves are sorted afterwards
+		int opponent = player == 1 ? 2 : 1;
+		int count = 0;
+		for (int f = 0; f < frontierSize; f++){
+			int index = frontier[f];
+			if ( isLegal(index, player, opponent) )
+				moves[count++] = toSquare[index];
+		}
+		Arrays.sort(moves, 0, count);
+		return count;
+	}
+
+	@Override
+	boolean hasMove(int player){
+		int opponent = player == 1 ? 2 : 1;
+		for (int f = 0; f < frontierSize; f++){
+			if ( isLegal(frontier[f], player, opponent) )
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns true if the player captures in at least one direction by placing a token on the
+	 * given empty index.
+	 */
+	private boolean isLegal(int index, int player, int opponent){
+		for (int d : directions){
+			if ( cells[index + d] == opponent && captureEnd(index, d, player, opponent) != index )
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the index of the player's token that closes a line of the opponent's tokens starting
+	 * next to the given index in direction d, or the index itself if the player captures nothing in
+	 * that direction. The border stops the walk.
+	 */
+	private int captureEnd(int index, int d, int player, int opponent){
+		int i = index + d;
+		while ( cells[i] == opponent )
+			i += d;
+		return cells[i] == player && i != index + d ? i : index;
+	}
+
+	/**
+	 * Puts a token on an empty index and updates the frontier: the index leaves it, and empty
+	 * neighbours that had no token next to them join it.
+	 */
+	private void place(int index, int player){
+		cells[index] = (byte) player;
+		if ( frontierPos[index] >= 0 )
+			removeFromFrontier(index);
+		for (int d : directions){
+			int n = index + d;
+			if ( ++neighbours[n] == 1 && cells[n] == 0 )
+				addToFrontier(n);
+		}
+	}
+
+	/**
+	 * Empties an index and undoes what place did to the frontier.
+	 */
+	private void remove(int index){
+		cells[index] = 0;
+		for (int d : directions){
+			int n = index + d;
+			if ( --neighbours[n] == 0 && cells[n] == 0 )
+				removeFromFrontier(n);
+		}
+		if ( neighbours[index] > 0 )
+			addToFrontier(index);
+	}
+
+	private void addToFrontier(int index){
+		frontierPos[index] = frontierSize;
+		frontier[frontierSize++] = index;
+	}
+
+	private void removeFromFrontier(int index){
+		int last = frontier[--frontierSize];
+		int pos = frontierPos[index];
+		frontier[pos] = last;
+		frontierPos[last] = pos;
+		frontierPos[index] = -1;
+	}
+}
@@ -5,14 +5,21 @@ import java.awt.*;
 import java.awt.event.*;
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 /**
  * GUI to show the Othello game and to listen for input for the user/human player. When it is the user's turn, 
  * (s)he clicks on the place where (s)he wants to place a token, and when it is the computer's turn, the 
- * player needs to click anywhere in the frame to make the computer take it's turn. The user is made aware
+ * computer takes it's turn by itself. The user is made aware
  * of any illegal moves, or when (s)he - or the computer - have to pass because no legal moves are possible.  
+ *
+ * The computer decides its moves on a worker thread, so the window keeps responding while it thinks.
+ * The move is handed back to the event dispatch thread, which is the only thread that changes the
+ * game state. AIs that implement ISearchingAI show the progress of their search while they think.
  * @author Mai Ajspur
  * @version 9.2.2018
  */
@@ -28,6 +35,9 @@ public class OthelloGUI extends JComponent implements MouseListener
     private IOthelloAI ai2;			// The AI for player 2 
 	private Timer timer; 			// The timer used to refresh the UI.
 	private CountDownLatch latch;   // used to signal when the game has terminated
+	private final ExecutorService worker;	// The thread the AIs decide their moves on
+	private CompletableFuture<Position> pendingMove;	// The move being decided, null if no AI is thinking
+	private volatile SearchProgress progress;	// Latest progress of the move being decided, null if none yet
 
     // Images for drawing the game board
     private Image 		part, blackPion, whitePion, background;
@@ -67,6 +77,15 @@ public class OthelloGUI extends JComponent implements MouseListener
     		this.ai1 = ai1;
     	this.ai2=ai2;
     	this.addMouseListener(this);
+		this.worker = Executors.newSingleThreadExecutor(r -> {
+			Thread thread = new Thread(r, "Othello AI");
+			thread.setDaemon(true);
+			return thread;
+		});
+		for (IOthelloAI ai : new IOthelloAI[]{this.ai1, this.ai2}){
+			if ( ai instanceof ISearchingAI )
+				((ISearchingAI) ai).setProgressListener(p -> { progress = p; repaint(); });
+		}
 		this.timer = new Timer(100, e -> gameTick()); //ensures the game window is updated independent of mouse events
 		this.timer.start();
     }
@@ -121,6 +140,15 @@ public class OthelloGUI extends JComponent implements MouseListener
     	g.drawImage(corner_right_top, imgSize+imgSize*size, 0, this);
     	g.drawImage(corner_right_bottom, imgSize+imgSize*size, size*imgSize+imgSize, this);
 		
+    	if ( pendingMove != null ){
+    		SearchProgress p = progress;
+    		String thinking = (state.getPlayerInTurn() == 1 ? "Black" : "White") + " is thinking"
+    				+ (p == null ? "..." : ": depth " + p.getDepth() + ", best " + p.getMove() + ", score " + p.getScore());
+    		g.setColor(Color.WHITE);
+    		g.setFont(g.getFont().deriveFont(Font.BOLD, 16f));
+    		g.drawString(thinking, imgSize, imgSize/2);
+    	}
+		
     	if ( state.isFinished() ){
     		int[] tokens = state.countTokens();
     		if ( tokens[0] > tokens[1] )
@@ -133,85 +161,107 @@ public class OthelloGUI extends JComponent implements MouseListener
 				
     }
 
+	/**
+	 * Called by the timer: lets the AI in turn start deciding its move if it is not doing so yet.
+	 */
 	private void gameTick(){
-		int currentPlayer = state.getPlayerInTurn();
-    	if ( !state.isFinished() ){
-    		Position place = getPlaceForNextTokenAI();
-    		if ( state.insertToken(place) ){ // Chosen move is legal
-				boolean nextPlayerCannotMove = state.legalMoves().isEmpty();
-   				if ( nextPlayerCannotMove ){ // The next player cannot move
-					repaint();
-   					state.changePlayer();
-   					if ( humanPlayer ){ // If there is a human involved, (s)he needs to know this
-   	  					boolean canMoveAfterwards = !state.legalMoves().isEmpty();
-   	   					if ( canMoveAfterwards ){
-   	   						String message = currentPlayer == 1 ? "Your opponent has no legal moves. It is your turn again." 
-   	   													 	    : "You have no legal moves. Your opponent will make another move (click again).";
-   	   						JOptionPane.showMessageDialog(this, message);
-   	   					}  						
-   					}
-   				}
- 			}
-   			else 
-   				illegalMoveAttempted(place); 		
-    		repaint();
-    	}
-		else{
+    	if ( state.isFinished() ){
 			onGameEnd();
+			return;
 		}
+		if ( pendingMove != null || isHumanTurn() )
+			return;
+		IOthelloAI ai = state.getPlayerInTurn() == 2 ? ai2 : ai1;
+		GameState copy = new GameState(state); // The AI must not see the board change while it thinks
+		progress = null;
+		CompletableFuture<Position> move = CompletableFuture.supplyAsync(() -> ai.decideMove(copy), worker);
+		pendingMove = move;
+		move.whenComplete((place, error) -> SwingUtilities.invokeLater(() -> aiMoveDecided(move, place, error)));
+		repaint();
+	}
+
+	/**
+	 * Plays the move an AI has decided, on the event dispatch thread.
+	 */
+	private void aiMoveDecided(CompletableFuture<Position> move, Position place, Throwable error){
+		if ( move != pendingMove ) // Cancelled
+			return;
+		pendingMove = null;
+		progress = null;
+		if ( error != null ){
+			timer.stop();
+			JOptionPane.showMessageDialog(this, "The AI for player "+ state.getPlayerInTurn() + " failed: "
+				+ error.getCause(), "AI Failed", JOptionPane.ERROR_MESSAGE);
+			return;
+		}
+		playMove(place);
+	}
+
+	/**
+	 * Stops the AI that is deciding a move, if any, and forgets its move.
+	 */
+	public void cancelThinking(){
+		if ( pendingMove == null )
+			return;
+		pendingMove.cancel(false);
+		pendingMove = null;
+		progress = null;
+		for (IOthelloAI ai : new IOthelloAI[]{ai1, ai2}){
+			if ( ai instanceof ISearchingAI )
+				((ISearchingAI) ai).stop();
+		}
+	}
+
+	@Override
+	public void removeNotify(){
+		super.removeNotify();
+		timer.stop();
+		cancelThinking();
+		worker.shutdown();
+	}
+
+	private boolean isHumanTurn(){
+		return humanPlayer && state.getPlayerInTurn() == 1;
 	}
-	
 
     public void mouseClicked(MouseEvent e){
-    	int currentPlayer = state.getPlayerInTurn();
+    	if ( state.isFinished() )
+			onGameEnd();
+		else if ( isHumanTurn() )
+			playMove(humanSelectedPlace(e));
+    }
+
+	/**
+	 * Puts a token for the player in turn, passes for the next player if it cannot move, and tells
+	 * the human about illegal moves and passes.
+	 */
+	private void playMove(Position place){
+		int currentPlayer = state.getPlayerInTurn();
     	if ( !state.isFinished() ){
-    		Position place = getPlaceForNextToken(e);
-    		if ( state.insertToken(place) ){ // Chosen move is legal
-				boolean nextPlayerCannotMove = state.legalMoves().isEmpty();
+    		if ( place != null && state.insertToken(place) ){ // Chosen move is legal
+				boolean nextPlayerCannotMove = !state.hasAnyLegalMove();
    				if ( nextPlayerCannotMove ){ // The next player cannot move
 					repaint();
    					state.changePlayer();
    					if ( humanPlayer ){ // If there is a human involved, (s)he needs to know this
-   	  					boolean canMoveAfterwards = !state.legalMoves().isEmpty();
+   	  					boolean canMoveAfterwards = state.hasAnyLegalMove();
    	   					if ( canMoveAfterwards ){
    	   						String message = currentPlayer == 1 ? "Your opponent has no legal moves. It is your turn again." 
-   	   													 	    : "You have no legal moves. Your opponent will make another move (click again).";
+   	   													 	    : "You have no legal moves. Your opponent will make another move.";
    	   						JOptionPane.showMessageDialog(this, message);
    	   					}  						
    					}
    				}
  			}
-   			else{
+   			else 
    				illegalMoveAttempted(place); 		
-			} 
     		repaint();
     	}
 		else{
 			onGameEnd();
 		}
-    }
-    
-    /**
-     * Get a position to place the next token (i.e. read mouse click if human
-     * player is in turn, otherwise ask corresponding AI)
-     */
-	private Position getPlaceForNextTokenAI(){
-		if ( state.getPlayerInTurn() == 2 ) 
-			return ai2.decideMove(state);
-		else
-			return ai1.decideMove(state);
 	}
 
-    private Position getPlaceForNextToken(MouseEvent e){
-    	if ( state.getPlayerInTurn() == 2 ) 
-			return ai2.decideMove(state);
-		else {
-			if ( humanPlayer )
-				return humanSelectedPlace(e);
-			else
-				return ai1.decideMove(state);
-		}
-    }
 
     /**
      * Display message for when an illegal move has been attempted 
@@ -12,6 +12,14 @@ public class Position{
 		this.col = col;
 		this.row = row;
 	}
+
+	public int getCol(){
+		return col;
+	}
+
+	public int getRow(){
+		return row;
+	}
 	
 	@Override
     public boolean equals(Object o) {
@@ -24,6 +32,11 @@ public class Position{
         Position p = (Position) o;
         return p.row == this.row && p.col == this.col;
     }
+
+	@Override
+	public int hashCode(){
+		return 31*col + row;
+	}
 	
 	@Override
 	public String toString(){
@@ -0,0 +1,45 @@
+package Provided;
+/**
+ * What a searching AI has found so far while deciding a move: the deepest completed search, the
+ * best move at that depth and its score. Sent to the listener of an ISearchingAI.
+ */
+public final class SearchProgress {
+	private final int depth;		// Depth of the last completed iteration
+	private final Position move;	// Best move found at that depth
+	private final int score;		// Its score, from black's point of view
+	private final long nodes;		// Positions visited so far
+	private final long elapsedMillis;	// Time since the search started
+
+	public SearchProgress(int depth, Position move, int score, long nodes, long elapsedMillis){
+		this.depth = depth;
+		this.move = move;
+		this.score = score;
+		this.nodes = nodes;
+		this.elapsedMillis = elapsedMillis;
+	}
+
+	public int getDepth(){
+		return depth;
+	}
+
+	public Position getMove(){
+		return move;
+	}
+
+	public int getScore(){
+		return score;
+	}
+
+	public long getNodes(){
+		return nodes;
+	}
+
+	public long getElapsedMillis(){
+		return elapsedMillis;
+	}
+
+	@Override
+	public String toString(){
+		return "depth " + depth + ", best " + move + ", score " + score + ", " + nodes + " nodes in " + elapsedMillis + " ms";
+	}
+}
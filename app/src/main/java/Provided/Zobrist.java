@@ -0,0 +1,58 @@
+package Provided;
+import java.util.concurrent.ConcurrentHashMap;
+/**
+ * Random keys for Zobrist hashing of game states. The hash of a state is the XOR of the key of every
+ * token on the board, plus WHITE_TO_MOVE when it is white's turn, so it can be updated with a few
+ * XORs when tokens are placed or turned. The keys are generated from a fixed seed, so hashes are the
+ * same in every run and can be stored in files.
+ */
+final class Zobrist {
+	/** XOR'ed into the hash of a state when player 2 (white) is in turn. */
+	static final long WHITE_TO_MOVE = mix(0x5DEECE66DL);
+
+	private static final ConcurrentHashMap<Integer, Zobrist> BY_SIZE = new ConcurrentHashMap<Integer, Zobrist>();
+
+	final long[] black;		// Key for a token of player 1 on each square (col*size + row)
+	final long[] white;		// Key for a token of player 2 on each square
+	final long[] flip;		// black[i] ^ white[i]: what turning the token on square i changes in the hash
+
+	private Zobrist(int size){
+		int squares = size*size;
+		black = new long[squares];
+		white = new long[squares];
+		flip = new long[squares];
+		long seed = size * 0x9E3779B97F4A7C15L;
+		for (int i = 0; i < squares; i++){
+			black[i] = mix(seed += 0x9E3779B97F4A7C15L);
+			white[i] = mix(seed += 0x9E3779B97F4A7C15L);
+			flip[i] = black[i] ^ white[i];
+		}
+	}
+
+	/**
+	 * Returns the keys for boards of the given size; they are created the first time they are needed.
+	 */
+	static Zobrist forSize(int size){
+		return BY_SIZE.computeIfAbsent(size, Zobrist::new);
+	}
+
+	/**
+	 * Returns the key of a token of the given player on the given square, 0 for an empty square.
+	 */
+	long key(int square, int player){
+		if ( player == 1 )
+			return black[square];
+		if ( player == 2 )
+			return white[square];
+		return 0;
+	}
+
+	/**
+	 * The SplitMix64 finalizer: turns consecutive seeds into well distributed 64-bit values.
+	 */
+	private static long mix(long z){
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+}
@@ -0,0 +1,317 @@
+package PythonProgrammers;
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import Provided.GameState;
+import Provided.Position;
+
+/**
+ * Analyses many positions: searches each to a fixed depth or for a fixed time on several threads,
+ * and gives the best move, score, principal variation and node count of each.
+ *
+ * Positions are streamed. They are read one at a time, at most a few per thread are searched or
+ * waiting at once, and every result is passed on, in the order of the input, as soon as it and
+ * those before it are done. The memory used does not grow with the number of positions.
+ *
+ * Every thread keeps its own MinimaxAI (and transposition table) from one position to the next,
+ * but clears it before each position, so a search to a fixed depth gives the same result whatever
+ * the number of threads or the order the positions are searched in. With a warm table (see
+ * setWarmTable) the table is kept instead, so positions from the same game help each other, at
+ * the price of results that depend on which positions a thread searched before. 8x8 positions are
+ * evaluated with PatternEvaluator unless the weighted evaluation is asked for, other sizes with
+ * WeightedEvaluator.
+ *
+ * As a program it reads positions as text, one per line as written by BoardText (empty lines and
+ * lines starting with # are skipped), or with --binary as 17-byte records of 8x8 positions (see
+ * writeBinary). It writes a line of JSON per position, see Result.toJson.
+ *
+ * Arguments: [--depth n | --time ms] [--threads n] [--table mb] [--evaluation pattern|weighted]
+ * [--warm-table] [--binary] [input [output]]. Without files, or with "-", it reads standard input and writes
+ * standard output. Depth 8 on all cores is the default.
+ */
+public class BatchAnalyzer {
+    private final int depth;
+    private final long timeLimitMillis;
+    private final int threads;
+    private final int tableMegabytes;
+    private final String evaluation;
+    private boolean warmTable; // Whether searchers keep their table from one position to the next
+
+    /**
+     * The analysis of one position.
+     */
+    public static class Result {
+        public final long index;            // Position of the input, counted from 0
+        public final GameState position;
+        public final Position move;         // null if the player in turn has to pass
+        public final int score;             // From black's point of view
+        public final int depth;             // Depth of the last completed iteration
+        public final long nodes;
+        public final List<Position> principalVariation;
+
+        Result(long index, GameState position, Position move, int score, int depth, long nodes, List<Position> principalVariation) {
+            this.index = index;
+            this.position = position;
+            this.move = move;
+            this.score = score;
+            this.depth = depth;
+            this.nodes = nodes;
+            this.principalVariation = principalVariation;
+        }
+
+        /**
+         * Returns the result as one line of JSON, with the position as written by BoardText and
+         * moves as written by BoardText.formatMove.
+         */
+        public String toJson() {
+            StringBuilder pv = new StringBuilder();
+            for (Position step : principalVariation) {
+                if (pv.length() > 0)
+                    pv.append(' ');
+                pv.append(BoardText.formatMove(step));
+            }
+            return "{\"index\":" + index + ",\"position\":\"" + BoardText.format(position) + "\",\"move\":\""
+                    + BoardText.formatMove(move) + "\",\"score\":" + score + ",\"depth\":" + depth
+                    + ",\"nodes\":" + nodes + ",\"pv\":\"" + pv + "\"}";
+        }
+    }
+
+    /**
+     * @param depth The depth to search every position to; the maximum depth with a time limit.
+     * @param timeLimitMillis The time per position, or 0 to search to the depth.
+     * @param threads The number of positions searched at the same time.
+     * @param tableMegabytes The transposition table of each thread.
+     * @param evaluation "pattern" or "weighted", as for OurBot.
+     */
+    public BatchAnalyzer(int depth, long timeLimitMillis, int threads, int tableMegabytes, String evaluation) {
+        EvaluatorChoice.check(evaluation);
+        if (threads < 1)
+            throw new IllegalArgumentException("The number of threads must be at least 1, not " + threads);
+        this.depth = depth;
+        this.timeLimitMillis = timeLimitMillis;
+        this.threads = threads;
+        this.tableMegabytes = tableMegabytes;
+        this.evaluation = evaluation;
+    }
+
+    /**
+     * Makes every thread keep its transposition table, killer moves and history scores from one
+     * position to the next instead of clearing them. This is faster when neighbouring positions
+     * come from the same game, but the result of a position then depends on the number of threads
+     * and on which positions each thread searched before it. Off by default.
+     */
+    public void setWarmTable(boolean warm) {
+        this.warmTable = warm;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int depth = 8;
+        long time = 0;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int table = MinimaxAI.DEFAULT_TABLE_MEGABYTES;
+        String evaluation = "pattern";
+        boolean binary = false;
+        boolean warm = false;
+        String input = "-";
+        String output = "-";
+        int files = 0;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--depth": depth = Integer.parseInt(args[++i]); break;
+                case "--time": time = Long.parseLong(args[++i]); depth = 64; break;
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--table": table = Integer.parseInt(args[++i]); break;
+                case "--evaluation": evaluation = args[++i]; break;
+                case "--warm-table": warm = true; break;
+                case "--binary": binary = true; break;
+                default:
+                    if (args[i].startsWith("--") || files == 2) {
+                        System.err.println("Usage: java PythonProgrammers.BatchAnalyzer [--depth n | --time ms] [--threads n] "
+                                + "[--table mb] [--evaluation pattern|weighted] [--warm-table] [--binary] [input [output]]");
+                        System.exit(1);
+                    }
+                    if (files++ == 0)
+                        input = args[i];
+                    else
+                        output = args[i];
+            }
+        }
+
+        BatchAnalyzer analyzer = new BatchAnalyzer(depth, time, threads, table, evaluation);
+        analyzer.setWarmTable(warm);
+        try (InputStream in = input.equals("-") ? System.in : Files.newInputStream(Paths.get(input));
+             OutputStream outStream = output.equals("-") ? System.out : Files.newOutputStream(Paths.get(output))) {
+            PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(outStream, StandardCharsets.UTF_8)));
+            Iterator<GameState> positions = binary ? readBinary(in) : readText(in);
+            long start = System.nanoTime();
+            long[] count = new long[1];
+            analyzer.analyze(positions, result -> {
+                out.println(result.toJson());
+                count[0]++;
+            });
+            out.flush();
+            System.err.printf("%d positions in %.1f s%n", count[0], (System.nanoTime() - start) / 1e9);
+        }
+    }
+
+    /**
+     * Analyses the positions and passes the results to the consumer in the order of the
+     * positions, on the calling thread. Positions are taken from the iterator only as threads
+     * become free.
+     * @throws IllegalStateException If a search fails.
+     */
+    public void analyze(Iterator<GameState> positions, Consumer<Result> results) throws InterruptedException {
+        ThreadLocal<MinimaxAI> searchers = ThreadLocal.withInitial(this::newSearcher);
+        ThreadLocal<EvaluatorChoice> evaluators = ThreadLocal.withInitial(() -> new EvaluatorChoice(evaluation));
+        try (OrderedExecutor<Result> executor = new OrderedExecutor<Result>(threads, "BatchAnalyzer", "Analysing a position failed")) {
+            long index = 0;
+            while (positions.hasNext()) {
+                GameState position = positions.next();
+                long positionIndex = index++;
+                executor.submit(() -> analyze(searchers.get(), evaluators.get(), positionIndex, position));
+                if (executor.isFull())
+                    results.accept(executor.take());
+            }
+            while (!executor.isEmpty())
+                results.accept(executor.take());
+        }
+    }
+
+    private MinimaxAI newSearcher() {
+        MinimaxAI searcher = new MinimaxAI(depth, tableMegabytes);
+        searcher.setTimeLimit(timeLimitMillis);
+        return searcher;
+    }
+
+    private Result analyze(MinimaxAI searcher, EvaluatorChoice evaluators, long index, GameState position) {
+        searcher.setEvaluator(evaluators.forPosition(position));
+        if (!warmTable)
+            searcher.clear();
+        MinimaxAI.Pair best = searcher.findBestMove(position, position.getPlayerInTurn());
+        SearchStats stats = searcher.getLastStats();
+        return new Result(index, position, best.move, best.score, stats.getDepth(), stats.getNodes(),
+                searcher.getPrincipalVariation());
+    }
+
+    /**
+     * Reads positions as text, one per line as written by BoardText, skipping empty lines and
+     * lines starting with #. Lines are read as the iterator is advanced.
+     * @throws IllegalArgumentException From next, with the line number, if a line is not a position.
+     */
+    public static Iterator<GameState> readText(InputStream stream) {
+        BufferedReader in = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+        return new Iterator<GameState>() {
+            private String line; // The next position, null if it still has to be read
+            private long lineNumber;
+
+            @Override
+            public boolean hasNext() {
+                try {
+                    while (line == null) {
+                        String read = in.readLine();
+                        if (read == null)
+                            return false;
+                        lineNumber++;
+                        read = read.trim();
+                        if (!read.isEmpty() && !read.startsWith("#"))
+                            line = read;
+                    }
+                    return true;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public GameState next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                String text = line;
+                line = null;
+                try {
+                    return BoardText.parse(text);
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Line " + lineNumber + ": " + e.getMessage(), e);
+                }
+            }
+        };
+    }
+
+    /**
+     * Reads 8x8 positions written by writeBinary, as the iterator is advanced.
+     */
+    public static Iterator<GameState> readBinary(InputStream stream) {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream, 1 << 16));
+        return new Iterator<GameState>() {
+            private GameState next; // null if it still has to be read
+            private boolean ended;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null && !ended) {
+                    try {
+                        long black = in.readLong();
+                        long white = in.readLong();
+                        int player = in.readByte();
+                        if ((black & white) != 0 || (player != 1 && player != 2))
+                            throw new IllegalArgumentException("Not a position record: " + Long.toHexString(black)
+                                    + " " + Long.toHexString(white) + " " + player);
+                        next = new GameState(toBoard(black, white), player);
+                    } catch (EOFException e) {
+                        ended = true;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public GameState next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                GameState position = next;
+                next = null;
+                return position;
+            }
+        };
+    }
+
+    /**
+     * Writes an 8x8 position as a 17-byte record: the black and the white bitboard (bit col*8 +
+     * row) as big-endian longs, then the player in turn as a byte.
+     */
+    public static void writeBinary(GameState position, DataOutputStream out) throws IOException {
+        out.writeLong(position.getBitboard(1));
+        out.writeLong(position.getBitboard(2));
+        out.writeByte(position.getPlayerInTurn());
+    }
+
+    private static int[][] toBoard(long black, long white) {
+        int[][] board = new int[8][8];
+        for (int square = 0; square < 64; square++) {
+            if ((black >>> square & 1) != 0)
+                board[square / 8][square % 8] = 1;
+            else if ((white >>> square & 1) != 0)
+                board[square / 8][square % 8] = 2;
+        }
+        return board;
+    }
+}
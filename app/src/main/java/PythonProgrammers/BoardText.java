@@ -0,0 +1,90 @@
+package PythonProgrammers;
+import Provided.GameState;
+import Provided.Position;
+
+/**
+ * Writes positions as one line of text and reads them back, so positions can be kept in files
+ * and passed on the command line.
+ *
+ * The board is written row by row from the top left, with 'X' for black, 'O' for white and '-'
+ * for an empty square, followed by a space and 'X' or 'O' for the player in turn. The start
+ * position on 8x8 is
+ * "---------------------------XO------OX--------------------------- X".
+ *
+ * Moves are written as the letter of the column and the number of the row, "a1" being the top
+ * left square, and a pass as "pass".
+ */
+public class BoardText {
+
+    /**
+     * Returns the position as text.
+     */
+    public static String format(GameState state) {
+        int[][] board = state.getBoard();
+        int size = board.length;
+        StringBuilder text = new StringBuilder(size * size + 2);
+        for (int row = 0; row < size; row++)
+            for (int col = 0; col < size; col++)
+                text.append(board[col][row] == 1 ? 'X' : board[col][row] == 2 ? 'O' : '-');
+        text.append(' ').append(state.getPlayerInTurn() == 1 ? 'X' : 'O');
+        return text.toString();
+    }
+
+    /**
+     * Returns the move as text, "pass" for null.
+     */
+    public static String formatMove(Position move) {
+        if (move == null)
+            return "pass";
+        return (char) ('a' + move.getCol()) + Integer.toString(move.getRow() + 1);
+    }
+
+    /**
+     * Reads a move written by formatMove, returning null for "pass".
+     * @throws IllegalArgumentException If the text is not a move.
+     */
+    public static Position parseMove(String text) {
+        if (text.equals("pass"))
+            return null;
+        if (text.length() < 2 || text.charAt(0) < 'a' || text.charAt(0) > 'z')
+            throw new IllegalArgumentException("Not a move: " + text);
+        try {
+            int row = Integer.parseInt(text.substring(1)) - 1;
+            if (row < 0)
+                throw new IllegalArgumentException("Not a move: " + text);
+            return new Position(text.charAt(0) - 'a', row);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a move: " + text, e);
+        }
+    }
+
+    /**
+     * Reads a position written by format. The size of the board follows from the length of the text.
+     * @throws IllegalArgumentException If the text is not a valid position.
+     */
+    public static GameState parse(String text) {
+        String[] parts = text.trim().split("\\s+");
+        if (parts.length != 2 || parts[1].length() != 1)
+            throw new IllegalArgumentException("Expected a board and the player in turn: " + text);
+        String squares = parts[0];
+        int size = (int) Math.round(Math.sqrt(squares.length()));
+        if (size * size != squares.length() || size < 4 || size % 2 != 0)
+            throw new IllegalArgumentException("A board must have n*n squares for an even n of at least 4, not " + squares.length());
+        int[][] board = new int[size][size];
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                char c = squares.charAt(row * size + col);
+                if (c == 'X')
+                    board[col][row] = 1;
+                else if (c == 'O')
+                    board[col][row] = 2;
+                else if (c != '-')
+                    throw new IllegalArgumentException("Unknown square '" + c + "' in " + text);
+            }
+        }
+        char player = parts[1].charAt(0);
+        if (player != 'X' && player != 'O')
+            throw new IllegalArgumentException("The player in turn must be X or O, not " + player);
+        return new GameState(board, player == 'X' ? 1 : 2);
+    }
+}
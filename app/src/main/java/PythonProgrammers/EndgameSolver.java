@@ -0,0 +1,358 @@
+package PythonProgrammers;
+import Provided.BitBoard;
+import Provided.GameState;
+import Provided.Position;
+
+/**
+ * Perfect-play solver for the end of a game on the 8x8 board.
+ *
+ * Instead of cutting the search off and guessing with an evaluation function, the solver searches
+ * every line to the end of the game and finds the exact final token difference. It works directly
+ * on bitboards (see BitBoard) with alpha-beta negamax and:
+ * - fastest-first ordering (moves that leave the opponent the fewest replies first) while many
+ *   squares are empty, and parity ordering (squares in a region with an odd number of empty squares
+ *   first) near the end,
+ * - a hash table of bounds for positions with many empty squares,
+ * - dedicated routines for the last 3, 2 and 1 empty squares that need no move generation.
+ *
+ * The score is the difference between the number of tokens at the end of the game, as in
+ * GameState.countTokens(); empty squares are not given to anyone.
+ */
+public class EndgameSolver {
+    private static final int INFINITY = 100; // More than any possible token difference
+    private static final int FASTEST_FIRST_EMPTIES = 7; // From this many empty squares, order moves by opponent mobility
+    private static final int HASH_EMPTIES = 9; // From this many empty squares, use the hash table
+    private static final int HASH_BITS = 18;
+    private static final int CHECK_INTERVAL = 4096; // Nodes between looks at the clock
+
+    // The quadrant (0-3) of each square, for parity
+    private static final int[] QUADRANT = new int[64];
+    private static final long[] QUADRANT_MASK = new long[4];
+    static {
+        for (int square = 0; square < 64; square++) {
+            int quadrant = ((square >>> 3) >= 4 ? 2 : 0) | ((square & 7) >= 4 ? 1 : 0);
+            QUADRANT[square] = quadrant;
+            QUADRANT_MASK[quadrant] |= 1L << square;
+        }
+    }
+
+    // Hash table: position (own and opponent tokens) -> bounds on its score and the best move
+    private final long[] hashOwn = new long[1 << HASH_BITS];
+    private final long[] hashOpp = new long[1 << HASH_BITS];
+    private final int[] hashData = new int[1 << HASH_BITS]; // lower + 128, upper + 128 (8 bits each), move + 1 (8 bits)
+
+    private final int[][] orderedMoves = new int[65][64]; // Moves at each number of empty squares, in search order
+    private final int[][] orderKeys = new int[65][64];    // The sort keys of those moves
+    private long deadline;
+    private boolean aborted;
+    private long nodes;
+    private long nextCheck; // The node count at which search next looks at the clock
+
+    /**
+     * Finds the best move and the exact final score for the player in turn.
+     * @param state An 8x8 game state (state.usesBitboard() must be true).
+     * @param deadline System.nanoTime() at which to give up.
+     * @return The best move and the final token difference (black minus white) with perfect play,
+     * or null if the deadline passed first. The move is null if the player in turn cannot move.
+     */
+    public MinimaxAI.Pair solve(GameState state, long deadline) {
+        int player = state.getPlayerInTurn();
+        long own = state.getBitboard(player);
+        long opp = state.getBitboard(3 - player);
+        this.deadline = deadline;
+        this.aborted = false;
+        this.nodes = 0;
+        this.nextCheck = CHECK_INTERVAL;
+        int sign = player == 1 ? 1 : -1;
+
+        long moves = BitBoard.moves(own, opp);
+        if (moves == 0) {
+            int score = search(own, opp, -INFINITY, INFINITY, false);
+            return aborted ? null : new MinimaxAI.Pair(null, sign * score);
+        }
+
+        int empties = Long.bitCount(~(own | opp));
+        int count = order(own, opp, moves, empties, -1);
+        int[] list = orderedMoves[empties];
+        int alpha = -INFINITY;
+        int bestMove = list[0];
+        for (int i = 0; i < count; i++) {
+            int square = list[i];
+            long flipped = BitBoard.flips(square, own, opp);
+            long newOwn = opp & ~flipped;
+            long newOpp = own | flipped | (1L << square);
+            int score;
+            if (i == 0) {
+                score = -search(newOwn, newOpp, -INFINITY, INFINITY, false);
+            } else {
+                score = -search(newOwn, newOpp, -alpha - 1, -alpha, false);
+                if (score > alpha && !aborted)
+                    score = -search(newOwn, newOpp, -INFINITY, -score, false);
+            }
+            if (aborted)
+                return null;
+            if (score > alpha) {
+                alpha = score;
+                bestMove = square;
+            }
+        }
+        return new MinimaxAI.Pair(new Position(bestMove >>> 3, bestMove & 7), sign * alpha);
+    }
+
+    /**
+     * Returns the number of positions visited by the last call to solve.
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Negamax alpha-beta search to the end of the game.
+     * @param own The tokens of the player to move.
+     * @param opp The tokens of the opponent.
+     * @param passed Whether the opponent just passed, so the game is over if this player cannot move either.
+     * @return The final token difference seen from the player to move.
+     */
+    private int search(long own, long opp, int alpha, int beta, boolean passed) {
+        // solve1/2/3 count nodes too, so the count may step past any given multiple
+        if (++nodes >= nextCheck) {
+            nextCheck = nodes + CHECK_INTERVAL;
+            if (System.nanoTime() > deadline)
+                aborted = true;
+        }
+        if (aborted)
+            return 0;
+
+        long empty = ~(own | opp);
+        int empties = Long.bitCount(empty);
+        if (empties <= 3)
+            return solveLast(own, opp, alpha, beta, empty, empties);
+
+        long moves = BitBoard.moves(own, opp);
+        if (moves == 0) {
+            if (passed)
+                return finalScore(own, opp);
+            return -search(opp, own, -beta, -alpha, true);
+        }
+
+        int index = 0;
+        int hashMove = -1;
+        if (empties >= HASH_EMPTIES) {
+            index = hashIndex(own, opp);
+            if (hashOwn[index] == own && hashOpp[index] == opp) {
+                int data = hashData[index];
+                int lower = (data & 0xFF) - 128;
+                int upper = ((data >>> 8) & 0xFF) - 128;
+                if (lower >= beta)
+                    return lower;
+                if (upper <= alpha)
+                    return upper;
+                if (lower == upper)
+                    return lower;
+                alpha = Math.max(alpha, lower);
+                beta = Math.min(beta, upper);
+                hashMove = (data >>> 16) - 1;
+            }
+        }
+        int alphaOrig = alpha;
+
+        int count = order(own, opp, moves, empties, hashMove);
+        int[] list = orderedMoves[empties];
+        int best = -INFINITY;
+        int bestMove = list[0];
+        for (int i = 0; i < count && best < beta; i++) {
+            int square = list[i];
+            long flipped = BitBoard.flips(square, own, opp);
+            long newOwn = opp & ~flipped;
+            long newOpp = own | flipped | (1L << square);
+            int a = Math.max(alpha, best);
+            int score;
+            if (i == 0) {
+                score = -search(newOwn, newOpp, -beta, -a, false);
+            } else { // Prove the move is worse with a null window, search it fully only if it is not
+                score = -search(newOwn, newOpp, -a - 1, -a, false);
+                if (score > a && score < beta && !aborted)
+                    score = -search(newOwn, newOpp, -beta, -score, false);
+            }
+            if (aborted)
+                return 0;
+            if (score > best) {
+                best = score;
+                bestMove = square;
+            }
+        }
+
+        if (empties >= HASH_EMPTIES) {
+            int lower = best >= beta || best > alphaOrig ? best : -INFINITY;
+            int upper = best <= alphaOrig || best < beta ? best : INFINITY;
+            if (hashOwn[index] == own && hashOpp[index] == opp) { // Combine with what was known already
+                int data = hashData[index];
+                lower = Math.max(lower, (data & 0xFF) - 128);
+                upper = Math.min(upper, ((data >>> 8) & 0xFF) - 128);
+            }
+            hashOwn[index] = own;
+            hashOpp[index] = opp;
+            hashData[index] = (lower + 128) | ((upper + 128) << 8) | ((bestMove + 1) << 16);
+        }
+        return best;
+    }
+
+    /**
+     * Writes the legal moves into orderedMoves[empties] in the order they should be searched.
+     * @param hashMove A move to search first, -1 if none.
+     * @return The number of moves.
+     */
+    private int order(long own, long opp, long moves, int empties, int hashMove) {
+        int[] list = orderedMoves[empties];
+        int[] keys = orderKeys[empties];
+        int parity = parity(~(own | opp));
+        int count = 0;
+        for (long m = moves; m != 0; m &= m - 1) {
+            int square = Long.numberOfTrailingZeros(m);
+            int key;
+            if (square == hashMove) {
+                key = Integer.MIN_VALUE;
+            } else if (empties >= FASTEST_FIRST_EMPTIES) {
+                long flipped = BitBoard.flips(square, own, opp);
+                long newOwn = own | flipped | (1L << square);
+                long newOpp = opp & ~flipped;
+                // Fewest replies first; among equals, prefer odd regions
+                key = 4 * Long.bitCount(BitBoard.moves(newOpp, newOwn)) - ((parity >>> QUADRANT[square]) & 1);
+            } else {
+                key = ((parity >>> QUADRANT[square]) & 1) == 1 ? 0 : 1;
+            }
+            int j = count++;
+            while (j > 0 && keys[j - 1] > key) {
+                keys[j] = keys[j - 1];
+                list[j] = list[j - 1];
+                j--;
+            }
+            keys[j] = key;
+            list[j] = square;
+        }
+        return count;
+    }
+
+    /**
+     * Solves a position with at most 3 empty squares, trying the squares in odd regions first.
+     */
+    private int solveLast(long own, long opp, int alpha, int beta, long empty, int empties) {
+        if (empties == 0)
+            return finalScore(own, opp);
+        int s1 = Long.numberOfTrailingZeros(empty);
+        if (empties == 1)
+            return solve1(own, opp, s1);
+        long rest = empty & (empty - 1);
+        int s2 = Long.numberOfTrailingZeros(rest);
+        if (empties == 2)
+            return solve2(own, opp, alpha, beta, s1, s2);
+        int s3 = Long.numberOfTrailingZeros(rest & (rest - 1));
+        // Parity: with 3 empty squares, the one alone in its quadrant goes first
+        if (QUADRANT[s1] == QUADRANT[s2]) {
+            int t = s1; s1 = s3; s3 = t;
+        } else if (QUADRANT[s1] == QUADRANT[s3]) {
+            int t = s1; s1 = s2; s2 = t;
+        }
+        return solve3(own, opp, alpha, beta, s1, s2, s3);
+    }
+
+    private int solve3(long own, long opp, int alpha, int beta, int s1, int s2, int s3) {
+        nodes++;
+        int best = -INFINITY;
+        long flipped;
+        if ((flipped = BitBoard.flips(s1, own, opp)) != 0) {
+            best = -solve2(opp & ~flipped, own | flipped | (1L << s1), -beta, -alpha, s2, s3);
+            if (best >= beta)
+                return best;
+        }
+        if ((flipped = BitBoard.flips(s2, own, opp)) != 0) {
+            best = Math.max(best, -solve2(opp & ~flipped, own | flipped | (1L << s2), -beta, -Math.max(alpha, best), s1, s3));
+            if (best >= beta)
+                return best;
+        }
+        if ((flipped = BitBoard.flips(s3, own, opp)) != 0)
+            best = Math.max(best, -solve2(opp & ~flipped, own | flipped | (1L << s3), -beta, -Math.max(alpha, best), s1, s2));
+        if (best > -INFINITY)
+            return best;
+
+        // The player to move has to pass; the opponent minimises the score
+        best = INFINITY;
+        if ((flipped = BitBoard.flips(s1, opp, own)) != 0) {
+            best = solve2(own & ~flipped, opp | flipped | (1L << s1), alpha, beta, s2, s3);
+            if (best <= alpha)
+                return best;
+        }
+        if ((flipped = BitBoard.flips(s2, opp, own)) != 0) {
+            best = Math.min(best, solve2(own & ~flipped, opp | flipped | (1L << s2), alpha, Math.min(beta, best), s1, s3));
+            if (best <= alpha)
+                return best;
+        }
+        if ((flipped = BitBoard.flips(s3, opp, own)) != 0)
+            best = Math.min(best, solve2(own & ~flipped, opp | flipped | (1L << s3), alpha, Math.min(beta, best), s1, s2));
+        return best < INFINITY ? best : finalScore(own, opp);
+    }
+
+    private int solve2(long own, long opp, int alpha, int beta, int s1, int s2) {
+        nodes++;
+        int best = -INFINITY;
+        long flipped;
+        if ((flipped = BitBoard.flips(s1, own, opp)) != 0) {
+            best = -solve1(opp & ~flipped, own | flipped | (1L << s1), s2);
+            if (best >= beta)
+                return best;
+        }
+        if ((flipped = BitBoard.flips(s2, own, opp)) != 0)
+            best = Math.max(best, -solve1(opp & ~flipped, own | flipped | (1L << s2), s1));
+        if (best > -INFINITY)
+            return best;
+
+        best = INFINITY;
+        if ((flipped = BitBoard.flips(s1, opp, own)) != 0) {
+            best = solve1(own & ~flipped, opp | flipped | (1L << s1), s2);
+            if (best <= alpha)
+                return best;
+        }
+        if ((flipped = BitBoard.flips(s2, opp, own)) != 0)
+            best = Math.min(best, solve1(own & ~flipped, opp | flipped | (1L << s2), s1));
+        return best < INFINITY ? best : finalScore(own, opp);
+    }
+
+    /**
+     * The last empty square: the player to move takes it if possible, otherwise the opponent does.
+     */
+    private int solve1(long own, long opp, int square) {
+        nodes++;
+        int ownCount = Long.bitCount(own);
+        int oppCount = Long.bitCount(opp);
+        long flipped = BitBoard.flips(square, own, opp);
+        if (flipped != 0) {
+            int turned = Long.bitCount(flipped);
+            return (ownCount + turned + 1) - (oppCount - turned);
+        }
+        flipped = BitBoard.flips(square, opp, own);
+        if (flipped != 0) {
+            int turned = Long.bitCount(flipped);
+            return (ownCount - turned) - (oppCount + turned + 1);
+        }
+        return ownCount - oppCount;
+    }
+
+    private static int finalScore(long own, long opp) {
+        return Long.bitCount(own) - Long.bitCount(opp);
+    }
+
+    /**
+     * Returns a mask with bit q set if quadrant q has an odd number of empty squares.
+     */
+    private static int parity(long empty) {
+        int parity = 0;
+        for (int quadrant = 0; quadrant < 4; quadrant++)
+            parity |= (Long.bitCount(empty & QUADRANT_MASK[quadrant]) & 1) << quadrant;
+        return parity;
+    }
+
+    private static int hashIndex(long own, long opp) {
+        long h = own * 0x9E3779B97F4A7C15L ^ opp * 0xC2B2AE3D27D4EB4FL;
+        return (int) (h >>> (64 - HASH_BITS));
+    }
+}
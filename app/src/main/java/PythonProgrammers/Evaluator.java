@@ -0,0 +1,40 @@
+package PythonProgrammers;
+import Provided.GameState;
+
+/**
+ * A static evaluation function for the search. An evaluator may keep sums that it updates as the
+ * search makes and unmakes moves, so evaluating a position does not have to look at the whole
+ * board again. The search calls reset at the root, onMakeMove right after every
+ * GameState.makeMove and onUnmakeMove right before the matching GameState.unmakeMove.
+ *
+ * An evaluator belongs to one search thread; copy gives one for another thread.
+ */
+public interface Evaluator {
+
+    /**
+     * Computes the state of the evaluator from scratch for the given position.
+     */
+    void reset(GameState state);
+
+    /**
+     * Updates the evaluator after a move.
+     * @param undo The undo record returned by state.makeMove.
+     */
+    void onMakeMove(GameState state, int undo);
+
+    /**
+     * Updates the evaluator before a move is taken back; the move is still on the board.
+     * @param undo The undo record that is about to be passed to state.unmakeMove.
+     */
+    void onUnmakeMove(GameState state, int undo);
+
+    /**
+     * Returns the score of the position; higher is better for black.
+     */
+    int evaluate(GameState state);
+
+    /**
+     * Returns an evaluator with the same settings but its own state, for another search thread.
+     */
+    Evaluator copy();
+}
@@ -0,0 +1,52 @@
+package PythonProgrammers;
+import Provided.GameState;
+
+/**
+ * The evaluation chosen by name, as OurBot and the tools take it: "pattern" evaluates 8x8 boards
+ * with PatternEvaluator (its weights are for 8x8 only) and other sizes with WeightedEvaluator, and
+ * "weighted" always uses WeightedEvaluator.
+ *
+ * One evaluator of each kind is kept and reused, the pattern one created on the first 8x8
+ * position, so like an evaluator a choice belongs to one search thread.
+ */
+public class EvaluatorChoice {
+    private final boolean usePatterns;
+    private Evaluator patternEvaluator; // Created on the first 8x8 position, null before
+    private final Evaluator weightedEvaluator = new WeightedEvaluator();
+
+    /**
+     * @param evaluation "pattern" or "weighted".
+     * @throws IllegalArgumentException If the evaluation is neither.
+     */
+    public EvaluatorChoice(String evaluation) {
+        check(evaluation);
+        this.usePatterns = evaluation.equals("pattern");
+    }
+
+    /**
+     * Checks an evaluation name, for settings that are checked before any evaluator is needed.
+     * @throws IllegalArgumentException If the evaluation is not "pattern" or "weighted".
+     */
+    public static void check(String evaluation) {
+        if (!evaluation.equals("pattern") && !evaluation.equals("weighted"))
+            throw new IllegalArgumentException("The evaluation must be pattern or weighted, not " + evaluation);
+    }
+
+    /**
+     * Returns whether the state is evaluated with PatternEvaluator.
+     */
+    public boolean usesPatterns(GameState state) {
+        return usePatterns && state.usesBitboard();
+    }
+
+    /**
+     * Returns the evaluator for positions of the state's size.
+     */
+    public Evaluator forPosition(GameState state) {
+        if (!usesPatterns(state))
+            return weightedEvaluator;
+        if (patternEvaluator == null)
+            patternEvaluator = new PatternEvaluator();
+        return patternEvaluator;
+    }
+}
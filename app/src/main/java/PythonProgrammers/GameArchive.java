@@ -0,0 +1,446 @@
+package PythonProgrammers;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import Provided.GameState;
+
+/**
+ * A compact file of finished games, written by MatchRunner and Tournament (--archive) and read
+ * back for statistics and training data without parsing.
+ *
+ * An archive is two files: the games, and next to it with ".idx" added the index, the offset of
+ * every game in the first file. Both start with a 4-byte magic number and are only ever appended
+ * to. A game is stored, big-endian, as:
+ *
+ *   size, flags                                   1 byte each; flag 1: the game has a start position
+ *   black discs, white discs                      2 bytes each, at the end of the game
+ *   black moves, white moves                      2 bytes each, passes not counted
+ *   black think time, white think time            4 bytes each, in microseconds
+ *   black name, white name                        1 byte length, then UTF-8
+ *   player in turn, start position                only with flag 1; 1 byte, then 2 bits per square
+ *   moves                                         1 byte each, the square (col*size + row)
+ *
+ * Games without a start position start from the usual one, black first. An 8x8 game between two
+ * bots named like "PythonProgrammers.OurBot:4" takes about 120 bytes, half of them moves.
+ *
+ * Boards up to 16x16 can be stored, since a square must fit in a byte.
+ *
+ * As a program it replays every game of an archive and prints, for every pairing of black and
+ * white, the wins, draws and losses and the average time per move. Arguments: file
+ */
+public final class GameArchive {
+    public static final int MAX_SIZE = 16;
+    static final int GAMES_MAGIC = 0x4f474131; // "OGA1"
+    static final int INDEX_MAGIC = 0x4f474931; // "OGI1"
+    private static final int FLAG_START = 1;
+    private static final int HEADER_BYTES = 18;  // Everything before the length of the black name
+    private static final int MAX_RECORD = 1024;  // No game is longer than this, names and start position included
+
+    private GameArchive() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: java PythonProgrammers.GameArchive file");
+            System.exit(1);
+        }
+        long start = System.nanoTime();
+        Map<String, long[]> pairings = new TreeMap<String, long[]>(); // wins, draws, losses, moves, think nanos
+        long[] positions = new long[1];
+        int games;
+        try (Reader reader = new Reader(Paths.get(args[0]))) {
+            games = reader.size();
+            reader.forEach(game -> {
+                long[] totals = pairings.computeIfAbsent(game.black + " vs " + game.white, k -> new long[5]);
+                int winner = game.getWinner();
+                totals[winner == 1 ? 0 : winner == 0 ? 1 : 2]++;
+                totals[3] += game.getMoveCount();
+                totals[4] += game.getThinkNanos(1) + game.getThinkNanos(2);
+                game.replay(state -> positions[0]++);
+            });
+        }
+        System.out.printf("%-60s %6s %6s %6s %10s%n", "Black vs white", "W", "D", "L", "ms/move");
+        for (Map.Entry<String, long[]> pairing : pairings.entrySet()) {
+            long[] t = pairing.getValue();
+            System.out.printf("%-60s %6d %6d %6d %10.3f%n", pairing.getKey(), t[0], t[1], t[2], t[3] == 0 ? 0 : t[4] / 1e6 / t[3]);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d games, %d positions replayed in %.1f s%n", games, positions[0], seconds);
+    }
+
+    /**
+     * Returns the path of the index of an archive.
+     */
+    public static Path indexPath(Path archive) {
+        return Paths.get(archive.toString() + ".idx");
+    }
+
+    /**
+     * Appends games to an archive, creating it if it does not exist. Games can be appended from
+     * several threads. They are on disk once the writer is flushed or closed.
+     */
+    public static final class Writer implements Closeable {
+        private static final int INDEX_BATCH = 512; // Offsets kept back until their games are flushed
+
+        private final DataOutputStream games;
+        private final DataOutputStream index;
+        private long offset; // Where the next game starts
+        // Offsets of games not yet in the index. They are written only after the games are
+        // flushed, so a reader never finds an offset whose game is not completely on disk.
+        private final long[] unindexed = new long[INDEX_BATCH];
+        private int unindexedCount;
+
+        public Writer(Path archive) throws IOException {
+            Path indexPath = indexPath(archive);
+            boolean exists = Files.exists(archive);
+            if (exists) {
+                checkMagic(archive, GAMES_MAGIC);
+                checkMagic(indexPath, INDEX_MAGIC);
+                offset = Files.size(archive);
+            }
+            games = new DataOutputStream(new BufferedOutputStream(append(archive), 1 << 16));
+            index = new DataOutputStream(new BufferedOutputStream(append(indexPath), 1 << 12));
+            if (!exists) {
+                games.writeInt(GAMES_MAGIC);
+                index.writeInt(INDEX_MAGIC);
+                offset = 4;
+                flush(); // So readers find an empty archive, not a file that is not one
+            }
+        }
+
+        private static OutputStream append(Path path) throws IOException {
+            return Files.newOutputStream(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+
+        /**
+         * Appends a game played by MatchRunner.
+         * @param start The position the game was played from, before it was played.
+         */
+        public synchronized void append(String black, String white, GameState start, GameResult result) throws IOException {
+            int size = start.getSize();
+            if (size > MAX_SIZE)
+                throw new IllegalArgumentException("Games on boards larger than " + MAX_SIZE + "x" + MAX_SIZE + " cannot be archived");
+            byte[] blackName = name(black);
+            byte[] whiteName = name(white);
+            boolean standardStart = isStandardStart(start);
+            long begin = offset;
+            games.writeByte(size);
+            games.writeByte(standardStart ? 0 : FLAG_START);
+            games.writeShort(result.blackTokens);
+            games.writeShort(result.whiteTokens);
+            games.writeShort(result.moveCount[0]);
+            games.writeShort(result.moveCount[1]);
+            games.writeInt(micros(result.thinkNanos[0]));
+            games.writeInt(micros(result.thinkNanos[1]));
+            games.writeByte(blackName.length);
+            games.write(blackName);
+            games.writeByte(whiteName.length);
+            games.write(whiteName);
+            int written = HEADER_BYTES + 2 + blackName.length + whiteName.length;
+            if (!standardStart) {
+                byte[] squares = pack(start);
+                games.writeByte(start.getPlayerInTurn());
+                games.write(squares);
+                written += 1 + squares.length;
+            }
+            for (int square : result.moves)
+                games.writeByte(square);
+            offset += written + result.moves.length;
+            unindexed[unindexedCount++] = begin;
+            if (unindexedCount == INDEX_BATCH)
+                flush();
+        }
+
+        public synchronized void flush() throws IOException {
+            games.flush();
+            for (int i = 0; i < unindexedCount; i++)
+                index.writeLong(unindexed[i]);
+            unindexedCount = 0;
+            index.flush();
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                try {
+                    games.close();
+                } finally {
+                    index.close();
+                }
+            }
+        }
+
+        private static byte[] name(String name) {
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > 255)
+                throw new IllegalArgumentException("Player names must be at most 255 bytes: " + name);
+            return bytes;
+        }
+
+        private static int micros(long nanos) {
+            return (int) Math.min(nanos / 1000, 0xffffffffL); // Unsigned, about 71 minutes at most
+        }
+
+        private static void checkMagic(Path path, int magic) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                ByteBuffer buffer = ByteBuffer.allocate(4);
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                }
+                if (buffer.hasRemaining() || buffer.getInt(0) != magic)
+                    throw new IOException(path + " is not a game archive");
+            }
+        }
+    }
+
+    /**
+     * Reads an archive by mapping it into memory. The games appended after the reader was opened
+     * are not seen.
+     */
+    public static final class Reader implements Closeable {
+        private static final long SEGMENT = 1L << 30; // Buffers are limited to 2 GB, so larger files are mapped in parts
+
+        private final FileChannel gamesChannel;
+        private final MappedByteBuffer[] segments; // Segment i covers [i*SEGMENT, (i+1)*SEGMENT + MAX_RECORD)
+        private final MappedByteBuffer index;
+        private final int count;
+
+        public Reader(Path archive) throws IOException {
+            try (FileChannel indexChannel = FileChannel.open(indexPath(archive), StandardOpenOption.READ)) {
+                index = indexChannel.map(FileChannel.MapMode.READ_ONLY, 0, indexChannel.size());
+            }
+            if (index.limit() < 4 || index.getInt(0) != INDEX_MAGIC)
+                throw new IOException(indexPath(archive) + " is not a game archive index");
+            gamesChannel = FileChannel.open(archive, StandardOpenOption.READ);
+            long length = gamesChannel.size();
+            segments = new MappedByteBuffer[(int) Math.max(1, (length + SEGMENT - 1) / SEGMENT)];
+            for (int i = 0; i < segments.length; i++) {
+                long start = i * SEGMENT;
+                segments[i] = gamesChannel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(length - start, SEGMENT + MAX_RECORD));
+            }
+            if (length < 4 || segments[0].getInt(0) != GAMES_MAGIC)
+                throw new IOException(archive + " is not a game archive");
+            // Writers index a game only once it is on disk, but an index written by an older
+            // writer, or a copy made while writing, can end with games that are not complete
+            int indexed = (index.limit() - 4) / 8;
+            while (indexed > 0 && !complete(index.getLong(4 + 8 * (indexed - 1)), length))
+                indexed--;
+            count = indexed;
+        }
+
+        /**
+         * Returns whether the whole game at the offset is in the first length bytes of the file.
+         */
+        private boolean complete(long offset, long length) {
+            if (offset < 4 || offset + HEADER_BYTES + 1 > length)
+                return false;
+            ByteBuffer segment = segments[(int) (offset / SEGMENT)];
+            int at = (int) (offset % SEGMENT);
+            int size = segment.get(at) & 0xff;
+            boolean hasStart = (segment.get(at + 1) & FLAG_START) != 0;
+            int moves = (segment.getShort(at + 6) & 0xffff) + (segment.getShort(at + 8) & 0xffff);
+            long end = offset + HEADER_BYTES + 1 + (segment.get(at + HEADER_BYTES) & 0xff);
+            if (end + 1 > length)
+                return false;
+            end += 1 + (segment.get(at + (int) (end - offset)) & 0xff);
+            if (hasStart)
+                end += 1 + (size * size + 3) / 4;
+            return end + moves <= length;
+        }
+
+        /**
+         * Returns the number of games.
+         */
+        public int size() {
+            return count;
+        }
+
+        /**
+         * Returns the game with the given number, counted from 0 in the order they were appended.
+         */
+        public Game game(int number) {
+            if (number < 0 || number >= count)
+                throw new IndexOutOfBoundsException("Game " + number + " of " + count);
+            long offset = index.getLong(4 + 8 * number);
+            // Slices are independent of each other, so games can be read from several threads
+            ByteBuffer segment = segments[(int) (offset / SEGMENT)];
+            int position = (int) (offset % SEGMENT);
+            return new Game(segment.slice(position, segment.limit() - position));
+        }
+
+        /**
+         * Passes every game to the consumer, in the order they were appended.
+         */
+        public void forEach(Consumer<Game> consumer) {
+            for (int i = 0; i < count; i++)
+                consumer.accept(game(i));
+        }
+
+        @Override
+        public void close() throws IOException {
+            gamesChannel.close();
+        }
+    }
+
+    /**
+     * A game read from an archive. Only the header is decoded; the moves and the start position
+     * are read from the file when asked for.
+     */
+    public static final class Game {
+        private final ByteBuffer record;
+        public final int size;
+        public final String black;
+        public final String white;
+        private final boolean hasStart;
+        private final int startOffset; // Where the start position, or else the moves, begin
+        private final int moveCount;
+
+        Game(ByteBuffer record) {
+            this.record = record;
+            size = record.get(0) & 0xff;
+            hasStart = (record.get(1) & FLAG_START) != 0;
+            moveCount = getBlackMoves() + getWhiteMoves();
+            int blackLength = record.get(HEADER_BYTES) & 0xff;
+            black = string(HEADER_BYTES + 1, blackLength);
+            int whiteAt = HEADER_BYTES + 1 + blackLength;
+            int whiteLength = record.get(whiteAt) & 0xff;
+            white = string(whiteAt + 1, whiteLength);
+            startOffset = whiteAt + 1 + whiteLength;
+        }
+
+        private String string(int at, int length) {
+            byte[] bytes = new byte[length];
+            record.get(at, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        public int getBlackTokens() {
+            return record.getShort(2) & 0xffff;
+        }
+
+        public int getWhiteTokens() {
+            return record.getShort(4) & 0xffff;
+        }
+
+        public int getBlackMoves() {
+            return record.getShort(6) & 0xffff;
+        }
+
+        public int getWhiteMoves() {
+            return record.getShort(8) & 0xffff;
+        }
+
+        /**
+         * Returns the time the given player spent in decideMove, in nanoseconds (stored in microseconds).
+         * @param player 1 (black) or 2 (white).
+         */
+        public long getThinkNanos(int player) {
+            return (record.getInt(player == 1 ? 10 : 14) & 0xffffffffL) * 1000;
+        }
+
+        /**
+         * Returns 0 for a draw, 1 if black won and 2 if white won, like GameResult.getWinner().
+         */
+        public int getWinner() {
+            int black = getBlackTokens();
+            int white = getWhiteTokens();
+            return black == white ? 0 : black > white ? 1 : 2;
+        }
+
+        /**
+         * Returns the number of moves, passes not counted.
+         */
+        public int getMoveCount() {
+            return moveCount;
+        }
+
+        /**
+         * Returns the square (col*size + row) of the given move.
+         */
+        public int getMove(int number) {
+            return record.get(movesOffset() + number) & 0xff;
+        }
+
+        private int movesOffset() {
+            return hasStart ? startOffset + 1 + (size * size + 3) / 4 : startOffset;
+        }
+
+        /**
+         * Returns the position the game was played from.
+         */
+        public GameState getStartPosition() {
+            if (!hasStart)
+                return new GameState(size, 1);
+            int[][] board = new int[size][size];
+            for (int square = 0; square < size * size; square++) {
+                int packed = record.get(startOffset + 1 + square / 4) & 0xff;
+                board[square / size][square % size] = packed >>> (2 * (square % 4)) & 3;
+            }
+            return new GameState(board, record.get(startOffset));
+        }
+
+        /**
+         * Returns the game in the form MatchRunner gave it.
+         */
+        public GameResult toResult() {
+            int[] moves = new int[moveCount];
+            int at = movesOffset();
+            for (int i = 0; i < moveCount; i++)
+                moves[i] = record.get(at + i) & 0xff;
+            return new GameResult(getBlackTokens(), getWhiteTokens(), moves, new int[]{getBlackMoves(), getWhiteMoves()},
+                    new long[]{getThinkNanos(1), getThinkNanos(2)});
+        }
+
+        /**
+         * Plays the game through, passing the consumer the position before every move and then
+         * the final position. It is the same GameState every time, so copy it to keep it.
+         */
+        public void replay(Consumer<GameState> consumer) {
+            GameState state = getStartPosition();
+            int at = movesOffset();
+            for (int i = 0; i < moveCount; i++) {
+                consumer.accept(state);
+                if (state.makeMove(record.get(at + i) & 0xff) < 0)
+                    throw new IllegalStateException("Move " + (i + 1) + " of the game is not legal");
+                if (!state.hasAnyLegalMove())
+                    state.changePlayer();
+            }
+            consumer.accept(state);
+        }
+    }
+
+    private static boolean isStandardStart(GameState state) {
+        if (state.getPlayerInTurn() != 1)
+            return false;
+        int[][] board = state.getBoard();
+        int[][] standard = new GameState(state.getSize(), 1).getBoard();
+        for (int col = 0; col < board.length; col++)
+            for (int row = 0; row < board.length; row++)
+                if (board[col][row] != standard[col][row])
+                    return false;
+        return true;
+    }
+
+    private static byte[] pack(GameState state) {
+        int size = state.getSize();
+        int[][] board = state.getBoard();
+        byte[] packed = new byte[(size * size + 3) / 4];
+        for (int square = 0; square < size * size; square++)
+            packed[square / 4] = (byte) (packed[square / 4] | board[square / size][square % size] << (2 * (square % 4)));
+        return packed;
+    }
+}
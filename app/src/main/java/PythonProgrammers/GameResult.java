@@ -0,0 +1,36 @@
+package PythonProgrammers;
+
+/**
+ * The outcome of one game played by MatchRunner.
+ */
+public class GameResult {
+    public final int blackTokens;
+    public final int whiteTokens;
+    public final int[] moves;         // The squares (col*size + row) played, in order; passes are not recorded
+    public final int[] moveCount;     // Number of moves made by [black, white]
+    public final long[] thinkNanos;   // Total time spent in decideMove by [black, white]
+
+    public GameResult(int blackTokens, int whiteTokens, int[] moves, int[] moveCount, long[] thinkNanos) {
+        this.blackTokens = blackTokens;
+        this.whiteTokens = whiteTokens;
+        this.moves = moves;
+        this.moveCount = moveCount;
+        this.thinkNanos = thinkNanos;
+    }
+
+    /**
+     * Returns 0 for a draw, 1 if black won and 2 if white won, like OthelloGUI.getWinner().
+     */
+    public int getWinner() {
+        return blackTokens == whiteTokens ? 0 : blackTokens > whiteTokens ? 1 : 2;
+    }
+
+    /**
+     * Returns the average time per move of the given player in milliseconds.
+     * @param player 1 (black) or 2 (white).
+     */
+    public double averageMoveMillis(int player) {
+        int count = moveCount[player - 1];
+        return count == 0 ? 0 : thinkNanos[player - 1] / 1e6 / count;
+    }
+}
@@ -0,0 +1,118 @@
+package PythonProgrammers;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import Provided.*;
+
+/**
+ * Plays games between two AIs without the GUI: no window, no images and no timer between moves,
+ * so games are as fast as the AIs. The rules for passing and for the end of the game are the same
+ * as in OthelloGUI.gameTick(): after a move, if the next player cannot move the turn goes back,
+ * and the game ends when neither player can move.
+ *
+ * The games are played in pairs from a random opening (see Openings.random), with each AI playing
+ * black once, so deterministic AIs do not play the same game over and over. With --plies 0 every
+ * game starts from the start position and only the colours alternate.
+ *
+ * Arguments: [--archive file] [--plies n] ai1 ai2 [size] [games], where the AIs are given as for
+ * Provided.Othello. With --archive the games are appended to that GameArchive.
+ */
+public class MatchRunner {
+
+    public static void main(String[] arguments) throws IOException {
+        String archivePath = null;
+        int plies = 6;
+        List<String> positional = new ArrayList<String>();
+        for (int i = 0; i < arguments.length; i++) {
+            if (arguments[i].equals("--archive") && i + 1 < arguments.length)
+                archivePath = arguments[++i];
+            else if (arguments[i].equals("--plies") && i + 1 < arguments.length)
+                plies = Integer.parseInt(arguments[++i]);
+            else
+                positional.add(arguments[i]);
+        }
+        String[] args = positional.toArray(new String[0]);
+        if (args.length < 2) {
+            System.err.println("Usage: java PythonProgrammers.MatchRunner [--archive file] [--plies n] OthelloAI1 OthelloAI2 [size] [games]");
+            System.exit(1);
+        }
+        int size = args.length >= 3 ? Integer.parseInt(args[2]) : 8;
+        int games = args.length >= 4 ? Integer.parseInt(args[3]) : 100;
+        IOthelloAI[] ais = new IOthelloAI[2];
+        try {
+            ais[0] = Othello.parseGameLogicParam(args[0]);
+            ais[1] = Othello.parseGameLogicParam(args[1]);
+        } catch (ReflectiveOperationException e) {
+            System.err.println("Could not create the AIs: " + e);
+            System.exit(1);
+            return;
+        }
+        if (ais[0] == null || ais[1] == null) {
+            System.err.println("Both players must be AIs in a headless match");
+            System.exit(1);
+        }
+
+        int[] wins = new int[3]; // draws, ai1 wins, ai2 wins
+        long[] thinkNanos = new long[2]; // Of ai1 and ai2
+        int[] moveCount = new int[2];
+        long start = System.nanoTime();
+        try (GameArchive.Writer archive = archivePath == null ? null : new GameArchive.Writer(Paths.get(archivePath))) {
+            for (int g = 0; g < games; g++) {
+                int black = g % 2; // Index of the AI playing black: ai1 in even games, ai2 in odd ones
+                int white = 1 - black;
+                GameState opening = Openings.random(new Random(g / 2), size, plies);
+                GameResult result = play(ais[black], ais[white], new GameState(opening));
+                if (archive != null)
+                    archive.append(args[black], args[white], opening, result);
+                int winner = result.getWinner();
+                wins[winner == 0 ? 0 : winner == 1 ? black + 1 : white + 1]++;
+                thinkNanos[black] += result.thinkNanos[0];
+                moveCount[black] += result.moveCount[0];
+                thinkNanos[white] += result.thinkNanos[1];
+                moveCount[white] += result.moveCount[1];
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(args[0] + " vs " + args[1] + ", " + size + "x" + size + ", " + games + " games, colours alternating");
+        System.out.println(args[0] + " wins: " + wins[1] + ", " + args[1] + " wins: " + wins[2] + ", draws: " + wins[0]);
+        System.out.printf("Average time per move: %s %.3f ms, %s %.3f ms%n",
+                args[0], thinkNanos[0] / 1e6 / Math.max(moveCount[0], 1), args[1], thinkNanos[1] / 1e6 / Math.max(moveCount[1], 1));
+        System.out.printf("%.1f s, %.0f games per minute%n", seconds, games / seconds * 60);
+    }
+
+    /**
+     * Plays a game from the start position, black moving first.
+     */
+    public static GameResult play(IOthelloAI black, IOthelloAI white, int size) {
+        return play(black, white, new GameState(size, 1));
+    }
+
+    /**
+     * Plays a game to the end from the given state, which is changed as the game goes on.
+     * @throws IllegalStateException if an AI chooses an illegal move (the GUI would ask it again forever).
+     */
+    public static GameResult play(IOthelloAI black, IOthelloAI white, GameState state) {
+        int[] moves = new int[state.getSize() * state.getSize()];
+        int played = 0;
+        int[] moveCount = new int[2];
+        long[] thinkNanos = new long[2];
+        while (!state.isFinished()) {
+            int currentPlayer = state.getPlayerInTurn();
+            long start = System.nanoTime();
+            Position place = (currentPlayer == 1 ? black : white).decideMove(state);
+            thinkNanos[currentPlayer - 1] += System.nanoTime() - start;
+            if (place == null || !state.insertToken(place))
+                throw new IllegalStateException("The AI for player " + currentPlayer
+                        + (currentPlayer == 1 ? " (black)" : " (white)") + " chose an invalid move (position " + place + ")");
+            moves[played++] = place.getCol() * state.getSize() + place.getRow();
+            moveCount[currentPlayer - 1]++;
+            if (!state.hasAnyLegalMove()) // The next player cannot move
+                state.changePlayer();
+        }
+        int[] tokens = state.countTokens();
+        return new GameResult(tokens[0], tokens[1], Arrays.copyOf(moves, played), moveCount, thinkNanos);
+    }
+}
@@ -1,17 +1,65 @@
 package PythonProgrammers;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 import Provided.Position;
 import Provided.GameState;
+import Provided.SearchProgress;
 
 /**
  * Based on the pseudocode for the minimax algorithm from pg. 196 of the textbook.
+ *
+ * By default the search is principal variation search (PVS) in negamax form: the first move of
+ * every position is searched with the full window, the others with a null window that only shows
+ * whether they are better, and a move that is better is searched again with the full window. With
+ * iterative deepening every iteration starts with a narrow (aspiration) window around the score
+ * of the previous one, widened when the score falls outside it. The moves both players are
+ * expected to play are kept as the principal variation, see getPrincipalVariation. The textbook's
+ * separate MAX-VALUE and MIN-VALUE functions with full windows can still be chosen, see
+ * setPrincipalVariationSearch.
  * 
- * Currently contains print statements for testing/debugging, which can be removed
- * prior to submission.
+ * What each search did (nodes, cutoffs, transposition table hits, depth, time) is kept in a
+ * SearchStats object, see getLastStats. While searching, the progress after every completed depth
+ * can be sent to a listener, see setProgressListener.
  */
 public class MinimaxAI {
     private int searchDepth;  // The maximum number of ply (half-moves) to search
-    private boolean hasPrintedResult = false;
+    private int rootMove; // The best move (square) found at the root by the current search, -1 if none
+    private int[][] moveBuffers; // Legal moves for each ply of the search, reused between nodes
+    private Evaluator evaluator = new WeightedEvaluator(); // Scores positions at the depth limit
+    private TranspositionTable table; // Results of earlier searches, or null if disabled
+    private long timeLimitMillis; // Time per move for iterative deepening, 0 to search to searchDepth
+    private int iterationDepth; // The depth of the iteration being searched
+    private int lastDepth; // The depth of the last completed iteration
+    private long deadline; // System.nanoTime() after which the current iteration is abandoned
+    private boolean aborted; // Whether the current iteration ran out of time
+    private SearchStats stats = new SearchStats(); // Statistics of the current or last search
+    private MinimaxAI[] helpers = new MinimaxAI[0]; // Searches run on other threads, sharing the table
+    private ExecutorService helperThreads; // Runs the helpers, null when searching on one thread
+    private volatile boolean stopRequested; // Set to tell a helper that the main search has finished
+    private MoveOrdering ordering; // Killer moves and history scores of this thread's search
+    private boolean moveOrdering = true; // false to try the moves in the order they are generated
+    private Consumer<SearchProgress> progressListener; // Told about every completed iteration, or null
+    private volatile boolean cancelled; // Set by stop() to end the current iterative deepening search
+    private boolean deepening; // Whether the current search is iterative deepening, which stop() can end
+    private boolean pondering; // Whether the current search is a ponder search (see ponder)
+    private int ponderDepth; // The depth a ponder search goes to unless it is stopped
+    private boolean principalVariationSearch = true; // false for the MAX-VALUE/MIN-VALUE search
+    private int[][] pvTable; // Principal variation from each ply: pvTable[ply][ply..pvLength[ply]-1]
+    private int[] pvLength;
+    private List<Position> principalVariation = List.of(); // Of the last completed iteration
+    private ProbCut probCut; // Selective search calibration, or null to search every move to the full depth
+    private boolean shallowSearch; // Whether a ProbCut check is searching; it leaves the ordering and the table alone
+
+    public static final int ASPIRATION_WINDOW = 32; // Half the width of the first window of an iteration
+    private static final int INFINITY = Integer.MAX_VALUE; // Bound of the full window; -INFINITY does not overflow
+
+    public static final int DEFAULT_TABLE_MEGABYTES = 16;
 
     public MinimaxAI() {
         this(6);
@@ -21,26 +69,492 @@ public class MinimaxAI {
      * @param searchDepth The maximum depth to search in the game tree.
      */
     public MinimaxAI(int searchDepth) {
+        this(searchDepth, DEFAULT_TABLE_MEGABYTES);
+    }
+
+    /**
+     * @param searchDepth The maximum depth to search in the game tree.
+     * @param tableMegabytes The memory to use for the transposition table, 0 to search without one.
+     */
+    public MinimaxAI(int searchDepth, int tableMegabytes) {
         this.searchDepth = searchDepth;
+        this.table = tableMegabytes > 0 ? new TranspositionTable(tableMegabytes) : null;
+    }
+
+    /**
+     * A helper for parallel search or a ponderer: same settings and the same transposition table as main.
+     */
+    private MinimaxAI(MinimaxAI main) {
+        this.searchDepth = main.searchDepth;
+        this.table = main.table;
+        this.evaluator = main.evaluator.copy();
+        this.principalVariationSearch = main.principalVariationSearch;
+        this.moveOrdering = main.moveOrdering;
+        this.probCut = main.probCut;
+    }
+
+    /**
+     * Forgets everything learned from earlier searches: the transposition table, killer moves and
+     * history scores. A single-threaded search after this finds the same move and score as a new
+     * MinimaxAI with the same settings would, without allocating a new table.
+     */
+    public void clear() {
+        if (table != null)
+            table.clear();
+        ordering = null;
+        for (MinimaxAI helper : helpers)
+            helper.ordering = null;
+    }
+
+    /**
+     * Sets the number of threads to search with (Lazy SMP). The extra threads run their own
+     * iterative deepening searches from the same position and only share the transposition table.
+     * They fill it with results the main thread can use, and its move is the one returned; a
+     * search to a fixed depth gets the same score as on one thread. The threads are daemon
+     * threads kept between calls to findBestMove.
+     * @param threads The number of threads, 1 to search on the calling thread only.
+     */
+    public void setThreads(int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("The number of threads must be at least 1, not " + threads);
+        if (threads > 1 && table == null)
+            throw new IllegalStateException("Searching on several threads needs a transposition table");
+        if (helperThreads != null)
+            helperThreads.shutdownNow();
+        helperThreads = null;
+        helpers = new MinimaxAI[threads - 1];
+        for (int i = 0; i < helpers.length; i++)
+            helpers[i] = new MinimaxAI(this);
+        if (helpers.length > 0) {
+            helperThreads = Executors.newFixedThreadPool(helpers.length, r -> {
+                Thread thread = new Thread(r, "MinimaxAI helper");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Sets the evaluation function used at the depth limit. The default is a WeightedEvaluator with
+     * the default weights.
+     */
+    public void setEvaluator(Evaluator evaluator) {
+        if (evaluator == this.evaluator)
+            return;
+        this.evaluator = evaluator;
+        for (MinimaxAI helper : helpers)
+            helper.evaluator = evaluator.copy();
+    }
+
+    /**
+     * Chooses the search algorithm: principal variation search with aspiration windows (the
+     * default), or the textbook's MAX-VALUE and MIN-VALUE functions with full windows, which
+     * visits more nodes and is kept to compare against.
+     */
+    public void setPrincipalVariationSearch(boolean on) {
+        this.principalVariationSearch = on;
+        for (MinimaxAI helper : helpers)
+            helper.principalVariationSearch = on;
+    }
+
+    /**
+     * Switches move ordering (see MoveOrdering) on, the default, or off. Without it the moves are
+     * tried in the order they are generated; the cutoffs are still counted, so the two can be
+     * compared with getFirstMoveCutoffRate.
+     */
+    public void setMoveOrdering(boolean on) {
+        this.moveOrdering = on;
+        for (MinimaxAI helper : helpers)
+            helper.moveOrdering = on;
+    }
+
+    /**
+     * Makes the search selective with Multi-ProbCut: in positions searched with a null window, a
+     * shallow search first predicts whether the deep one would fall outside the window, and if
+     * the prediction is clear enough the position is cut off without the deep search. Hopeless
+     * and winning lines are then searched less deeply, so the same time goes deeper into the rest,
+     * at the price of sometimes cutting a line that would have mattered. Only used with principal
+     * variation search, and only on 8x8 boards, since the calibration fits PatternEvaluator there;
+     * searches on other sizes are full width.
+     * @param probCut The calibration, or null to search every move to the full depth (the default).
+     */
+    public void setProbCut(ProbCut probCut) {
+        this.probCut = probCut;
+        for (MinimaxAI helper : helpers)
+            helper.probCut = probCut;
+    }
+
+    /**
+     * Switches between searching to a fixed depth and searching with a time limit.
+     * With a time limit the search is repeated one ply deeper at a time (iterative deepening)
+     * until the time is used up, and the best move of the deepest completed iteration is returned.
+     * Depth 1 is always completed, so a move is found even with a very small limit.
+     * @param millis The time to spend per move in milliseconds, or 0 to always search to searchDepth.
+     */
+    public void setTimeLimit(long millis) {
+        this.timeLimitMillis = millis;
+    }
+
+    /**
+     * Sets a listener that is told the depth, best move and score after every completed iteration.
+     * With a listener, a search to a fixed depth also goes there one ply at a time (iterative
+     * deepening), so there is progress to report and stop() can end it early.
+     * @param listener The listener, called on the searching thread, or null for none.
+     */
+    public void setProgressListener(Consumer<SearchProgress> listener) {
+        this.progressListener = listener;
+    }
+
+    /**
+     * Makes a running iterative deepening search (with a time limit or a progress listener) return
+     * the best move of the deepest iteration completed so far. Can be called from any thread.
+     */
+    public void stop() {
+        cancelled = true;
+    }
+
+    /**
+     * Returns a new searcher with the same depth and evaluation that shares this one's
+     * transposition table, for pondering on another thread while this one is idle. What it finds
+     * is in the table when this searcher continues.
+     */
+    public MinimaxAI ponderer() {
+        return new MinimaxAI(this);
+    }
+
+    /**
+     * Returns the principal variation of the last completed iteration of the last search: the
+     * chosen move followed by the moves both players are expected to play after it, with null for
+     * a pass. It ends early where the search took a position's score from the transposition
+     * table, and is empty after a search with setPrincipalVariationSearch(false).
+     */
+    public List<Position> getPrincipalVariation() {
+        return principalVariation;
+    }
+
+    /**
+     * Returns the best move the transposition table holds for the state, which after a search is
+     * usually the reply the search expected there, or null if the table has none.
+     */
+    public Position tableMove(GameState state) {
+        if (table == null)
+            return null;
+        long entry = table.probe(state.getHash());
+        int move = entry != 0 ? TranspositionTable.move(entry) : -1;
+        if (move < 0)
+            return null;
+        Position place = new Position(move / state.getSize(), move % state.getSize());
+        return state.legalMoves().contains(place) ? place : null; // In case of a hash collision
+    }
+
+    /**
+     * Searches with iterative deepening until maxDepth is completed or stop() is called, and
+     * returns the best move of the deepest completed iteration; meant for searching on the
+     * opponent's time. Unlike findBestMove, this ignores the time limit, does not report progress,
+     * and a stop() that comes before the search starts is not forgotten, so one searcher (see
+     * ponderer) should be used per ponder search.
+     */
+    public Pair ponder(GameState state, int player, int maxDepth) {
+        pondering = true;
+        ponderDepth = maxDepth;
+        try {
+            return find(state, player);
+        } finally {
+            pondering = false;
+        }
+    }
+
+    /**
+     * Returns the fraction of beta cutoffs in the last call to findBestMove that were caused by the
+     * first move tried, between 0 and 1. The closer to 1, the better the move ordering.
+     */
+    public double getFirstMoveCutoffRate() {
+        return ordering == null ? 0 : ordering.getFirstMoveCutoffRate();
+    }
+
+    /**
+     * Returns the depth reached by the last call to findBestMove.
+     */
+    public int getLastDepth() {
+        return lastDepth;
+    }
+
+    /**
+     * Returns the statistics of the last call to findBestMove. Nodes include those of the helper
+     * threads; the other counters are those of the main search.
+     */
+    public SearchStats getLastStats() {
+        return stats;
     }
     
     /**
      * MINIMAX-SEARCH in the pseudocode.
+     * The search makes and unmakes moves on a single copy of the given state, so the state
+     * itself is never changed.
      * @param state
      * @return A Pair containing the best move and its score.
      */
     public Pair findBestMove(GameState state, int player) {
-        // System.out.println("\nLegal moves: " + state.legalMoves());
-        Pair result;
+        cancelled = false;
+        return find(state, player);
+    }
+
+    private Pair find(GameState state, int player) {
+        if (player != 1 && player != 2)
+            return new Pair(null, 0);
+        GameState searchState = new GameState(state);
+        int size = state.getSize();
+        int[] tokens = state.countTokens();
+        int empties = size * size - tokens[0] - tokens[1];
+        int maxDepth = pondering ? Math.max(Math.min(ponderDepth, empties), 1)
+                : timeLimitMillis > 0 ? Math.max(empties, 1) : searchDepth;
+        if (table != null && !pondering)
+            table.newSearch();
+        long start = System.nanoTime();
+        stats = new SearchStats();
+        Future<?>[] running = startHelpers(state, player, maxDepth);
+        Pair best;
+        try {
+            best = search(searchState, player, maxDepth);
+        } finally {
+            stopHelpers(running);
+        }
+        for (MinimaxAI helper : helpers) {
+            stats.nodes += helper.stats.nodes;
+            stats.probCutNodes += helper.stats.probCutNodes;
+        }
+        stats.cutoffs = ordering.getCutoffs();
+        stats.firstMoveCutoffs = ordering.getFirstMoveCutoffs();
+        stats.cutoffIndexSum = ordering.getCutoffIndexSum();
+        stats.depth = lastDepth;
+        stats.score = best.score;
+        stats.elapsedNanos = System.nanoTime() - start;
+        return best;
+    }
+
+    /**
+     * The search of the main thread: to maxDepth, with iterative deepening if there is a time
+     * limit or a progress listener or when pondering. Principal variation search with a table
+     * deepens one ply at a time in any case: the moves the table keeps from each iteration make
+     * the next one search the best move first, which the null windows need.
+     */
+    private Pair search(GameState searchState, int player, int maxDepth) {
+        int size = searchState.getSize();
+        prepareBuffers(size, maxDepth);
+        aborted = false;
+        boolean timed = timeLimitMillis > 0 && !pondering;
+        deepening = timed || progressListener != null || pondering;
+        deadline = Long.MAX_VALUE;
+
+        if (!deepening && !(principalVariationSearch && table != null)) {
+            int score = searchRoot(searchState, player, maxDepth, -INFINITY, INFINITY);
+            lastDepth = maxDepth;
+            savePrincipalVariation(size);
+            return toPair(rootMove, score, size);
+        }
+
+        long start = System.nanoTime();
+        long budget = timeLimitMillis * 1_000_000;
+        if (timed)
+            deadline = start + budget;
+        int bestMove = -1;
+        int bestScore = 0;
+        int previousScore = 0; // Of the iteration before the last one
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            // Scores go up and down with the player to move at the depth limit, so the window is
+            // around the score of the last iteration that ended with the same player
+            int score = principalVariationSearch && depth > 2
+                    ? aspirationSearch(searchState, player, depth, previousScore)
+                    : searchRoot(searchState, player, depth, -INFINITY, INFINITY);
+            if (aborted)
+                break;
+            bestMove = rootMove;
+            previousScore = bestScore;
+            bestScore = score;
+            lastDepth = depth;
+            savePrincipalVariation(size);
+            if (progressListener != null && !pondering)
+                reportProgress(depth, toPair(bestMove, bestScore, size), start);
+            if (timed && System.nanoTime() - start > budget / 2)
+                break; // The next iteration would most likely not finish in time
+        }
+        return toPair(bestMove, bestScore, size);
+    }
+
+    /**
+     * Searches the state to the given depth with a window of ASPIRATION_WINDOW around the score
+     * of an earlier iteration. When the score falls outside, the window is made four times
+     * wider on that side and the depth searched again, until the score is inside.
+     * @return The minimax value, from black's point of view.
+     */
+    private int aspirationSearch(GameState state, int player, int depth, int previous) {
+        long delta = ASPIRATION_WINDOW;
+        int alpha = clamp(previous - delta);
+        int beta = clamp(previous + delta);
+        while (true) {
+            int score = searchRoot(state, player, depth, alpha, beta);
+            if (aborted)
+                return score;
+            if (score <= alpha && alpha > -INFINITY) {
+                delta *= 4;
+                alpha = clamp((long) score - delta);
+            } else if (score >= beta && beta < INFINITY) {
+                delta *= 4;
+                beta = clamp((long) score + delta);
+            } else {
+                return score;
+            }
+        }
+    }
+
+    private static int clamp(long bound) {
+        return (int) Math.max(-INFINITY, Math.min(INFINITY, bound));
+    }
+
+    private void savePrincipalVariation(int size) {
+        List<Position> moves = new ArrayList<Position>();
+        if (principalVariationSearch) {
+            for (int ply = 0; ply < pvLength[0]; ply++) {
+                int move = pvTable[0][ply];
+                moves.add(move < 0 ? null : new Position(move / size, move % size));
+            }
+        }
+        principalVariation = Collections.unmodifiableList(moves);
+    }
+
+    private void reportProgress(int depth, Pair best, long start) {
+        long nodes = stats.nodes;
+        for (MinimaxAI helper : helpers)
+            nodes += helper.stats.nodes; // Read while the helpers run, so only about right
+        progressListener.accept(new SearchProgress(depth, best.move, best.score, nodes, (System.nanoTime() - start) / 1_000_000));
+    }
+
+    /**
+     * The search of a helper thread: iterative deepening until the main search asks it to stop.
+     * Every other helper starts one ply deeper, so the threads are not all at the same depth.
+     * Helpers never go past maxDepth: deeper results in the table would change the score of a
+     * search to a fixed depth.
+     */
+    private void helpSearch(GameState state, int player, int maxDepth, int offset) {
+        prepareBuffers(state.getSize(), maxDepth);
+        aborted = false;
+        stats = new SearchStats();
+        deadline = Long.MAX_VALUE;
+        for (int depth = 1 + offset; depth <= maxDepth && !aborted; depth++)
+            searchRoot(state, player, depth, -INFINITY, INFINITY);
+    }
+
+    private Future<?>[] startHelpers(GameState state, int player, int maxDepth) {
+        Future<?>[] running = new Future<?>[helpers.length];
+        for (int i = 0; i < helpers.length; i++) {
+            MinimaxAI helper = helpers[i];
+            GameState helperState = new GameState(state);
+            int offset = i % 2;
+            helper.stopRequested = false;
+            running[i] = helperThreads.submit(() -> helper.helpSearch(helperState, player, maxDepth, offset));
+        }
+        return running;
+    }
+
+    /**
+     * Stops the helpers and waits until all of them have returned, even if this thread is
+     * interrupted meanwhile, since they write the shared table and their own buffers until then.
+     * The interrupt is kept for the caller.
+     */
+    private void stopHelpers(Future<?>[] running) {
+        for (MinimaxAI helper : helpers)
+            helper.stopRequested = true;
+        boolean interrupted = false;
+        Throwable failure = null;
+        for (Future<?> helper : running) {
+            while (true) {
+                try {
+                    helper.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    if (failure == null)
+                        failure = e.getCause();
+                    break;
+                }
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+        if (failure != null)
+            throw new IllegalStateException("A helper search failed", failure);
+    }
+
+    private void prepareBuffers(int size, int maxDepth) {
+        if (moveBuffers == null || moveBuffers.length < maxDepth || moveBuffers[0].length != size * size)
+            moveBuffers = new int[Math.max(maxDepth, 1)][size * size];
+        if (pvTable == null || pvTable.length < maxDepth + 1) {
+            pvTable = new int[maxDepth + 1][maxDepth + 1];
+            pvLength = new int[maxDepth + 1];
+        }
+        if (ordering == null || ordering.getSize() != size)
+            ordering = new MoveOrdering(size);
+        ordering.newSearch(maxDepth);
+    }
+
+    /**
+     * Searches the state to the given depth within a window, leaving the best move in rootMove.
+     * @param alpha The lower bound of the window, from black's point of view.
+     * @param beta The upper bound of the window, from black's point of view.
+     * @return The minimax value found, from black's point of view, meaningless if the search was
+     *         aborted. A value at or outside a bound only says that the minimax value is too.
+     */
+    private int searchRoot(GameState state, int player, int depth, int alpha, int beta) {
+        iterationDepth = depth;
+        rootMove = -1;
+        evaluator.reset(state);
+        if (principalVariationSearch) {
+            if (player == 1)
+                return pvs(state, 0, depth, alpha, beta, true);
+            return -pvs(state, 0, depth, -beta, -alpha, true);
+        }
         if(player == 1) //we are black
-            result = maxValue(state, searchDepth, Integer.MIN_VALUE, Integer.MAX_VALUE, true);
-        else if(player == 2)//we are white
-            result =  minValue(state, searchDepth, Integer.MIN_VALUE, Integer.MAX_VALUE, true);
-        else
-            result =  new Pair(null, 0);
-            return result;
+            return maxValue(state, depth, alpha, beta, true);
+        else //we are white
+            return minValue(state, depth, alpha, beta, true);
+    }
+
+    private static Pair toPair(int move, int score, int size) {
+        if (move < 0)
+            return new Pair(null, score);
+        return new Pair(new Position(move / size, move % size), score);
+    }
+
+    /**
+     * Checks the clock every 1024 nodes and marks the search as aborted when the deadline has
+     * passed, when stop() was called during iterative deepening or, for a helper, when the main
+     * search has finished. The first iteration of the main search is never aborted.
+     * @return True if the search should stop.
+     */
+    private boolean outOfTime() {
+        if (aborted)
+            return true;
+        if ((++stats.nodes & 1023) == 0 && (stopRequested
+                || iterationDepth > 1 && (cancelled && deepening || System.nanoTime() > deadline)))
+            aborted = true;
+        return aborted;
     }
     
+    /**
+     * Looks the position up in the transposition table, counting probes and hits.
+     * @return The entry, or 0 if there is no table or the position is not in it.
+     */
+    private long probe(long key) {
+        if (table == null)
+            return 0;
+        stats.tableProbes++;
+        long entry = table.probe(key);
+        if (entry != 0)
+            stats.tableHits++;
+        return entry;
+    }
+
     /**
      * Is the game over?
      * @param state
@@ -57,230 +571,365 @@ public class MinimaxAI {
      * @return The utility value.
      */
     private int utility(GameState state) {
-        if (!hasPrintedResult) {
-            printEvaluationDetails(state);
-            hasPrintedResult = true; // Ensure results are printed only once
-        }
         return evaluateBoard(state);
     }
 
     
     /**
      * MAX-VALUE function from the pseudocode.
-     * @param state
+     * @param state The state to search from; it is the same when the method returns.
      * @param remainingDepth The remaining depth to search
-     * @return A Pair containing the best move and its score.
+     * @param isRoot Whether to remember the best move in rootMove.
+     * @return The minimax value of the state.
      */
-    private Pair maxValue(GameState state, int remainingDepth, int alpha, int beta, boolean isRoot) {
+    private int maxValue(GameState state, int remainingDepth, int alpha, int beta, boolean isRoot) {
+        if (outOfTime())
+            return 0;
+        
         if (isTerminal(state)) {
             // If the game is over, return the utility value of the state
-            return new Pair(null, utility(state)); // Simplified: use utility directly
+            return utility(state); // Simplified: use utility directly
         }
         
         if (remainingDepth <= 0) {
             // If we've reached the depth limit, use the evaluation function
-            return new Pair(null, evaluateBoard(state)); // Simplified: use evaluateBoard directly
+            return evaluateBoard(state); // Simplified: use evaluateBoard directly
         }
         
-        ArrayList<Position> actions = state.legalMoves();
+        int[] actions = moveBuffers[iterationDepth - remainingDepth];
+        int actionCount = state.legalMoves(actions);
         
-        if (actions.isEmpty()) {
-            // If no legal moves, pass turn to opponent
-            //System.out.println("No legal moves available for MAX. Passing turn.");
+        if (actionCount == 0) {
+            // If no legal moves, pass turn to opponent and give it back afterwards
+            state.changePlayer();
+            int v = minValue(state, remainingDepth - 1, alpha, beta, false);
             state.changePlayer();
-            return minValue(state, remainingDepth - 1, alpha, beta, false);
+            return v;
         }
         
-        int v = Integer.MIN_VALUE; // like minus infinity
-        Position move = null;
+        long key = state.getHash();
+        long entry = probe(key);
+        if (entry != 0 && !isRoot && TranspositionTable.depth(entry) >= remainingDepth) {
+            int stored = TranspositionTable.score(entry);
+            int flag = TranspositionTable.flag(entry);
+            if (flag == TranspositionTable.EXACT
+                    || (flag == TranspositionTable.LOWER && stored >= beta)
+                    || (flag == TranspositionTable.UPPER && stored <= alpha)) {
+                stats.tableCutoffs++;
+                return stored;
+            }
+        }
+        int ply = iterationDepth - remainingDepth;
+        int player = state.getPlayerInTurn();
+        if (moveOrdering)
+            ordering.order(actions, actionCount, ply, player, entry != 0 ? TranspositionTable.move(entry) : -1);
         
-        //System.out.println("\nEvaluating moves for player " + (state.getPlayerInTurn() == 1 ? "Black" : "White") + " (MAX):");
+        int alphaOrig = alpha;
+        int v = Integer.MIN_VALUE; // like minus infinity
+        int move = -1;
         
-        for (Position a : actions) {
-            GameState nextState = result(state, a);
-            Pair minValueResult = minValue(nextState, remainingDepth - 1, alpha, beta, false);
-            
-            //System.out.println("Move " + a + " has minimax value: " + minValueResult.score);
+        for (int i = 0; i < actionCount; i++) {
+            int a = actions[i];
+            int undo = state.makeMove(a);
+            evaluator.onMakeMove(state, undo);
+            int minValueResult = minValue(state, remainingDepth - 1, alpha, beta, false);
+            evaluator.onUnmakeMove(state, undo);
+            state.unmakeMove(undo);
+            if (aborted)
+                return 0;
             
-            if (minValueResult.score > v) {
-                v = minValueResult.score;
+            if (minValueResult > v) {
+                v = minValueResult;
                 move = a;
+                if (isRoot)
+                    rootMove = a;
                 alpha = Math.max(alpha, v);
             }
             if (v >= beta){
-                return new Pair(move, v);
+                ordering.cutoff(a, i, ply, player, remainingDepth);
+                break;
             }
         }
         
-        return new Pair(move, v);
+        if (table != null)
+            table.store(key, remainingDepth, v >= beta ? TranspositionTable.LOWER
+                    : v <= alphaOrig ? TranspositionTable.UPPER : TranspositionTable.EXACT, v, move);
+        return v;
     }
     
     /**
      * MIN-VALUE function from the pseudocode.
-     * @param state
+     * @param state The state to search from; it is the same when the method returns.
      * @param remainingDepth The remaining depth to search
-     * @return A Pair containing the best move and its score.
+     * @param isRoot Whether to remember the best move in rootMove.
+     * @return The minimax value of the state.
      */
-     private Pair minValue(GameState state, int remainingDepth, int alpha, int beta, boolean isRoot) {
+     private int minValue(GameState state, int remainingDepth, int alpha, int beta, boolean isRoot) {
+        if (outOfTime())
+            return 0;
+        
         if (isTerminal(state)) {
             // If the game is over, return the utility value of the state
-            return new Pair(null, utility(state));
+            return utility(state);
         }
         
         if (remainingDepth <= 0) {
             // If we've reached the depth limit, use the evaluation function
-            return new Pair(null, evaluateBoard(state));
+            return evaluateBoard(state);
         }
         
-        ArrayList<Position> actions = state.legalMoves();
+        int[] actions = moveBuffers[iterationDepth - remainingDepth];
+        int actionCount = state.legalMoves(actions);
         
-        if (actions.isEmpty()) {
-            // If no legal moves, pass turn to opponent
-            System.out.println("No legal moves available for MIN. Passing turn.");
+        if (actionCount == 0) {
+            // If no legal moves, pass turn to opponent and give it back afterwards
+            state.changePlayer();
+            int v = maxValue(state, remainingDepth - 1, alpha, beta, false);
             state.changePlayer();
-            return maxValue(state, remainingDepth - 1, alpha, beta, false);
+            return v;
+        }
+        
+        long key = state.getHash();
+        long entry = probe(key);
+        if (entry != 0 && !isRoot && TranspositionTable.depth(entry) >= remainingDepth) {
+            int stored = TranspositionTable.score(entry);
+            int flag = TranspositionTable.flag(entry);
+            if (flag == TranspositionTable.EXACT
+                    || (flag == TranspositionTable.LOWER && stored >= beta)
+                    || (flag == TranspositionTable.UPPER && stored <= alpha)) {
+                stats.tableCutoffs++;
+                return stored;
+            }
         }
+        int ply = iterationDepth - remainingDepth;
+        int player = state.getPlayerInTurn();
+        if (moveOrdering)
+            ordering.order(actions, actionCount, ply, player, entry != 0 ? TranspositionTable.move(entry) : -1);
         
+        int betaOrig = beta;
         int v = Integer.MAX_VALUE; // like plus infinity
-        Position move = null;
+        int move = -1;
         
-        for (Position a : actions) {
-            GameState nextState = result(state, a);
+        for (int i = 0; i < actionCount; i++) {
+            int a = actions[i];
+            int undo = state.makeMove(a);
+            evaluator.onMakeMove(state, undo);
+            int maxValueResult = maxValue(state, remainingDepth - 1, alpha, beta, false);
+            evaluator.onUnmakeMove(state, undo);
+            state.unmakeMove(undo);
+            if (aborted)
+                return 0;
             
-            Pair maxValueResult = maxValue(nextState, remainingDepth - 1, alpha, beta, false);
-            
-            if (maxValueResult.score < v) {
-                v = maxValueResult.score;
+            if (maxValueResult < v) {
+                v = maxValueResult;
                 move = a;
+                if (isRoot)
+                    rootMove = a;
                 beta = Math.min(beta, v);
             }
             if(v <= alpha){
-                return new Pair(move, v);
+                ordering.cutoff(a, i, ply, player, remainingDepth);
+                break;
             }
         }
         
-        return new Pair(move, v);
+        if (table != null)
+            table.store(key, remainingDepth, v <= alpha ? TranspositionTable.UPPER
+                    : v >= betaOrig ? TranspositionTable.LOWER : TranspositionTable.EXACT, v, move);
+        return v;
     }
     
     /**
-     * Returns the result of applying some action to the current state.
-     * @param state The current game state.
-     * @param action The action to apply.
-     * @return The resulting game state.
-     */
-    private GameState result(GameState state, Position action) {
-        GameState nextState = new GameState(state.getBoard(), state.getPlayerInTurn());
-        nextState.insertToken(action);
-        return nextState;
-    }
-    
-    /**
-     * Evaluates the board state and returns a score.
-     * Higher scores favour MAX player (black). For the moment this the difference
-     * between the number of black and white tokens on the board.
-     * @param state
-     * @return The score of the board.
+     * Principal variation search in negamax form: scores are from the point of view of the player
+     * in turn, and the score of a move is minus the score of the position after it. The principal
+     * variation found from this position is left in pvTable[ply].
+     * @param state The state to search from; it is the same when the method returns.
+     * @param ply The number of moves and passes from the root to the state. It is not always
+     *        iterationDepth - remainingDepth: the ProbCut searches are shallower than that.
+     * @param remainingDepth The remaining depth to search
+     * @param isRoot Whether to remember the best move in rootMove.
+     * @return The value of the state for the player in turn; at or below alpha it is only an upper
+     *         bound, at or above beta only a lower bound.
      */
-    private int evaluateBoard(GameState state) {
-        // Count tokens
-        int[] tokens = state.countTokens();
-        int blackTokens = tokens[0];
-        int whiteTokens = tokens[1];
+    private int pvs(GameState state, int ply, int remainingDepth, int alpha, int beta, boolean isRoot) {
+        pvLength[ply] = ply;
+        if (outOfTime())
+            return 0;
 
-        // Count corners
-        int blackCorners = countCornerTokens(state, 1); // Count corners for Black
-        int whiteCorners = countCornerTokens(state, 2); // Count corners for White
+        int player = state.getPlayerInTurn();
+        if (isTerminal(state) || remainingDepth <= 0) {
+            int score = evaluateBoard(state);
+            return player == 1 ? score : -score;
+        }
 
-        // Count edges
-        int blackEdges = countEdgeTokens(state, 1); // Count edges for Black
-        int whiteEdges = countEdgeTokens(state, 2); // Count edges for White
+        int[] actions = moveBuffers[ply];
+        int actionCount = state.legalMoves(actions);
 
-        // Count mobility (number of legal moves)
-        int blackMobility = state.legalMoves().size();
-        state.changePlayer(); // Switch to the other player
-        int whiteMobility = state.legalMoves().size();
-        state.changePlayer(); // Switch back to the original player
+        if (actionCount == 0) {
+            // If no legal moves, pass turn to opponent and give it back afterwards
+            state.changePlayer();
+            int v = -pvs(state, ply + 1, remainingDepth - 1, -beta, -alpha, false);
+            state.changePlayer();
+            setPrincipalVariation(ply, -1);
+            return v;
+        }
 
-        // Weighted evaluation
-        int score = (blackTokens - whiteTokens) + // Token difference
-                    (8 * (blackCorners - whiteCorners)) + // Corners are very valuable
-                    (5 * (blackEdges - whiteEdges)) + // Edges are moderately valuable
-                    (3 * (blackMobility - whiteMobility)); // Mobility is somewhat valuable
+        // The table holds scores and bounds from black's point of view
+        long key = state.getHash();
+        long entry = probe(key);
+        if (entry != 0 && !isRoot && TranspositionTable.depth(entry) >= remainingDepth) {
+            int stored = player == 1 ? TranspositionTable.score(entry) : -TranspositionTable.score(entry);
+            int flag = player == 1 ? TranspositionTable.flag(entry) : mirror(TranspositionTable.flag(entry));
+            if (flag == TranspositionTable.EXACT
+                    || (flag == TranspositionTable.LOWER && stored >= beta)
+                    || (flag == TranspositionTable.UPPER && stored <= alpha)) {
+                stats.tableCutoffs++;
+                return stored;
+            }
+        }
+        if (probCut != null && !isRoot && beta - alpha == 1 && remainingDepth >= ProbCut.MIN_DEPTH && state.getSize() == 8) {
+            int cut = probCut(state, ply, remainingDepth, alpha, beta);
+            if (cut != 0 || aborted)
+                return cut > 0 ? beta : alpha;
+            // The shallow searches used this ply's move buffer and principal variation
+            pvLength[ply] = ply;
+            actionCount = state.legalMoves(actions);
+        }
+        if (moveOrdering)
+            ordering.order(actions, actionCount, ply, player, entry != 0 ? TranspositionTable.move(entry) : -1);
 
-        return score;
-    }
+        int alphaOrig = alpha;
+        int v = -INFINITY;
+        int move = -1;
 
-    /**
-     * Counts the number of tokens in the corners for a given player.
-     * @param state The current game state.
-     * @param player The player (1 for Black, 2 for White).
-     * @return The number of corners controlled by the player.
-     */
-    private int countCornerTokens(GameState state, int player) {
-        int[][] board = state.getBoard();
-        int size = board.length;
-        int corners = 0;
+        for (int i = 0; i < actionCount; i++) {
+            int a = actions[i];
+            int undo = state.makeMove(a);
+            evaluator.onMakeMove(state, undo);
+            int score;
+            if (i == 0) {
+                score = -pvs(state, ply + 1, remainingDepth - 1, -beta, -alpha, false);
+            } else {
+                // Only find out whether the move is better than the best so far, and if it is,
+                // search it again for its score
+                score = -pvs(state, ply + 1, remainingDepth - 1, -alpha - 1, -alpha, false);
+                if (score > alpha && score < beta && !aborted)
+                    score = -pvs(state, ply + 1, remainingDepth - 1, -beta, -alpha, false);
+            }
+            evaluator.onUnmakeMove(state, undo);
+            state.unmakeMove(undo);
+            if (aborted)
+                return 0;
 
-        // Check the four corners
-        if (board[0][0] == player) corners++;
-        if (board[0][size - 1] == player) corners++;
-        if (board[size - 1][0] == player) corners++;
-        if (board[size - 1][size - 1] == player) corners++;
+            if (score > v) {
+                v = score;
+                move = a;
+                if (isRoot)
+                    rootMove = a;
+                if (v > alpha) {
+                    alpha = v;
+                    setPrincipalVariation(ply, a);
+                }
+            }
+            if (v >= beta) {
+                if (!shallowSearch)
+                    ordering.cutoff(a, i, ply, player, remainingDepth);
+                break;
+            }
+        }
 
-        return corners;
+        if (table != null && !shallowSearch) {
+            int flag = v >= beta ? TranspositionTable.LOWER : v <= alphaOrig ? TranspositionTable.UPPER : TranspositionTable.EXACT;
+            table.store(key, remainingDepth, player == 1 ? flag : mirror(flag), player == 1 ? v : -v, move);
+        }
+        return v;
     }
 
     /**
-     * Counts the number of tokens on the edges for a given player.
-     * @param state The current game state.
-     * @param player The player (1 for Black, 2 for White).
-     * @return The number of edges controlled by the player.
-     */
-    private int countEdgeTokens(GameState state, int player) {
-        int[][] board = state.getBoard();
-        int size = board.length;
-        int edges = 0;
-
-        // Check the top and bottom edges
-        for (int i = 0; i < size; i++) {
-            if (board[0][i] == player) edges++;
-            if (board[size - 1][i] == player) edges++;
-        }
+     * Tries the ProbCut checks for the depth: shallow null window searches at the scores that
+     * predict a deep score outside the window. The shallow searches store nothing in the table
+     * and teach the move ordering nothing, so when no check cuts, the full depth search is the
+     * one it would have been without them.
+     * @param ply The ply of the position, which the shallow searches search from.
+     * @return 1 if the position is predicted to fail high, -1 if it is predicted to fail low, 0 if
+     *         it has to be searched to the full depth.
+     */
+    private int probCut(GameState state, int ply, int remainingDepth, int alpha, int beta) {
+        boolean nested = shallowSearch;
+        long nodes = stats.nodes;
+        shallowSearch = true;
+        int cut = shallowSearches(state, ply, remainingDepth, alpha, beta);
+        shallowSearch = nested;
+        if (!nested)
+            stats.probCutNodes += stats.nodes - nodes;
+        return cut;
+    }
 
-        // Check the left and right edges (excluding corners to avoid double-counting)
-        for (int i = 1; i < size - 1; i++) {
-            if (board[i][0] == player) edges++;
-            if (board[i][size - 1] == player) edges++;
+    private int shallowSearches(GameState state, int ply, int remainingDepth, int alpha, int beta) {
+        int[] tokens = state.countTokens();
+        for (ProbCut.Check check : probCut.checks(64 - tokens[0] - tokens[1], remainingDepth)) {
+            long bound = probCut.shallowBeta(check, beta);
+            if (bound < INFINITY && bound > -INFINITY) {
+                int score = pvs(state, ply, check.shallowDepth, (int) bound - 1, (int) bound, false);
+                if (aborted)
+                    return 0;
+                if (score >= bound) {
+                    stats.probCutoffs++;
+                    return 1;
+                }
+            }
+            bound = probCut.shallowAlpha(check, alpha);
+            if (bound < INFINITY && bound > -INFINITY) {
+                int score = pvs(state, ply, check.shallowDepth, (int) bound, (int) bound + 1, false);
+                if (aborted)
+                    return 0;
+                if (score <= bound) {
+                    stats.probCutoffs++;
+                    return -1;
+                }
+            }
         }
+        return 0;
+    }
 
-        return edges;
+    /**
+     * Turns a lower bound into an upper bound and back, for a score seen from the other player.
+     */
+    private static int mirror(int flag) {
+        return flag == TranspositionTable.LOWER ? TranspositionTable.UPPER
+                : flag == TranspositionTable.UPPER ? TranspositionTable.LOWER : flag;
     }
 
     /**
-     * Prints the final results (Black and White tokens, token difference, and the winner).
-     * @param state The current game state.
+     * Makes the principal variation of a ply the move followed by that of the next ply.
      */
-    private void printEvaluationDetails(GameState state) {
-        int[] tokens = state.countTokens();
-        int blackTokens = tokens[0];
-        int whiteTokens = tokens[1];
-
-        // Print winner summary 
-        System.out.println("Black tokens: " + blackTokens);
-        System.out.println("White tokens: " + whiteTokens);
-        System.out.println("Token difference: " + (blackTokens - whiteTokens));
-
-        if (blackTokens > whiteTokens) {
-            System.out.println("Black wins!");
-        } else if (whiteTokens > blackTokens) {
-            System.out.println("White wins!");
-        } else {
-            System.out.println("It's a tie!");
-        }
-        System.out.println("----------------------------------------");
+    private void setPrincipalVariation(int ply, int move) {
+        int[] line = pvTable[ply];
+        line[ply] = move;
+        int length = pvLength[ply + 1];
+        System.arraycopy(pvTable[ply + 1], ply + 1, line, ply + 1, length - ply - 1);
+        pvLength[ply] = length;
     }
 
+    /**
+     * Evaluates the board state at the depth limit or at the end of the game.
+     * Higher scores favour MAX player (black).
+     * @param state
+     * @return The score of the board.
+     */
+    private int evaluateBoard(GameState state) {
+        stats.leafEvaluations++;
+        return evaluator.evaluate(state);
+    }
 
+    /**
+     * Evaluates a position without searching it, as the search does at its depth limit.
+     * Used by the benchmarks.
+     */
+    int evaluate(GameState state) {
+        evaluator.reset(state);
+        return evaluator.evaluate(state);
+    }
 
     /**
      * Helper class for a move and its score.
@@ -0,0 +1,189 @@
+package PythonProgrammers;
+
+/**
+ * Decides in which order the search tries the legal moves of a position, so that alpha-beta
+ * pruning cuts off as early as possible.
+ *
+ * Moves are tried in this order: the move remembered in the transposition table (hash move),
+ * corners, the two killer moves of the ply (moves that recently caused a cutoff at the same
+ * depth), and then the remaining moves by history score (how often and how deep a move caused
+ * cutoffs) plus a static square priority. X-squares and C-squares, the squares next to a
+ * corner, get a low static priority so they come last.
+ *
+ * Also counts how many cutoffs there were and how many of them happened on the first move tried,
+ * which tells how close the ordering is to the best case.
+ */
+public class MoveOrdering {
+    private static final int HASH_MOVE = 1 << 30;
+    private static final int CORNER = 1 << 29;
+    private static final int KILLER_1 = 1 << 28;
+    private static final int KILLER_2 = 1 << 27;
+    private static final int HISTORY_LIMIT = 1 << 20; // History scores are halved when one gets this large
+
+    private final int size;
+    private final int[] squarePriority; // Static priority of each square (col*size + row)
+    private final int[][] history;      // [player - 1][square]
+    private int[][] killers;            // [ply][0 or 1]
+    private int[] scores;               // Scratch buffer for the scores of the moves being ordered
+    private long cutoffs;
+    private long firstMoveCutoffs;
+    private long cutoffIndexSum;        // Sum of the index of the move causing each cutoff
+
+    /**
+     * @param size The size of the board.
+     */
+    public MoveOrdering(int size) {
+        this.size = size;
+        this.squarePriority = squarePriorities(size);
+        this.history = new int[2][size * size];
+        this.killers = new int[0][];
+        this.scores = new int[size * size];
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Prepares for a new search to at most the given number of plies: killer moves are forgotten,
+     * history scores are kept but halved, and the cutoff counters are reset.
+     */
+    public void newSearch(int maxPly) {
+        if (killers.length < maxPly + 1)
+            killers = new int[maxPly + 1][2];
+        for (int[] killer : killers) {
+            killer[0] = -1;
+            killer[1] = -1;
+        }
+        for (int[] scores : history)
+            for (int i = 0; i < scores.length; i++)
+                scores[i] >>= 1;
+        cutoffs = 0;
+        firstMoveCutoffs = 0;
+        cutoffIndexSum = 0;
+    }
+
+    /**
+     * Sorts the moves so the most promising one comes first.
+     * @param moves The legal moves (squares), sorted in place.
+     * @param count The number of legal moves.
+     * @param ply The distance from the root of the search.
+     * @param player The player to move.
+     * @param hashMove The move from the transposition table, or -1 if none.
+     */
+    public void order(int[] moves, int count, int ply, int player, int hashMove) {
+        int[] killer = killers[ply];
+        int[] playerHistory = history[player - 1];
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            int score;
+            if (move == hashMove)
+                score = HASH_MOVE;
+            else if (squarePriority[move] == CORNER)
+                score = CORNER;
+            else if (move == killer[0])
+                score = KILLER_1;
+            else if (move == killer[1])
+                score = KILLER_2;
+            else
+                score = playerHistory[move] + squarePriority[move];
+            // Insertion sort on the score, highest first; there are rarely more than 15 moves
+            int j = i;
+            while (j > 0 && scores[j - 1] < score) {
+                scores[j] = scores[j - 1];
+                moves[j] = moves[j - 1];
+                j--;
+            }
+            scores[j] = score;
+            moves[j] = move;
+        }
+    }
+
+    /**
+     * Records that a move caused a cutoff.
+     * @param move The move (square).
+     * @param index The position of the move in the ordered list, 0 for the first.
+     * @param ply The distance from the root of the search.
+     * @param player The player who made the move.
+     * @param remainingDepth The remaining depth of the node; deeper cutoffs count more.
+     */
+    public void cutoff(int move, int index, int ply, int player, int remainingDepth) {
+        cutoffs++;
+        cutoffIndexSum += index;
+        if (index == 0)
+            firstMoveCutoffs++;
+        int[] killer = killers[ply];
+        if (killer[0] != move) {
+            killer[1] = killer[0];
+            killer[0] = move;
+        }
+        int[] playerHistory = history[player - 1];
+        playerHistory[move] += remainingDepth * remainingDepth;
+        if (playerHistory[move] > HISTORY_LIMIT)
+            for (int[] scores : history)
+                for (int i = 0; i < scores.length; i++)
+                    scores[i] >>= 1;
+    }
+
+    /**
+     * Returns the number of cutoffs since the last call to newSearch.
+     */
+    public long getCutoffs() {
+        return cutoffs;
+    }
+
+    /**
+     * Returns the number of cutoffs caused by the first move tried since the last call to newSearch.
+     */
+    public long getFirstMoveCutoffs() {
+        return firstMoveCutoffs;
+    }
+
+    /**
+     * Returns the sum over all cutoffs since the last call to newSearch of the position of the
+     * move in the ordered list (0 for the first move).
+     */
+    public long getCutoffIndexSum() {
+        return cutoffIndexSum;
+    }
+
+    /**
+     * Returns the fraction of cutoffs caused by the first move tried, between 0 and 1 (1 is perfect
+     * ordering), or 0 if there were no cutoffs.
+     */
+    public double getFirstMoveCutoffRate() {
+        return cutoffs == 0 ? 0 : (double) firstMoveCutoffs / cutoffs;
+    }
+
+    /**
+     * Static priorities: corners first, then edges and the squares in between, then C-squares (on
+     * an edge next to a corner) and last X-squares (diagonally next to a corner).
+     */
+    private static int[] squarePriorities(int size) {
+        int[] priority = new int[size * size];
+        int last = size - 1;
+        for (int col = 0; col < size; col++) {
+            for (int row = 0; row < size; row++) {
+                boolean colEdge = col == 0 || col == last;
+                boolean rowEdge = row == 0 || row == last;
+                boolean colNextToEdge = col == 1 || col == last - 1;
+                boolean rowNextToEdge = row == 1 || row == last - 1;
+                int value;
+                if (colEdge && rowEdge)
+                    value = CORNER;
+                else if (colNextToEdge && rowNextToEdge)
+                    value = -200; // X-square
+                else if ((colEdge && rowNextToEdge) || (rowEdge && colNextToEdge))
+                    value = -100; // C-square
+                else if (colEdge || rowEdge)
+                    value = 20;
+                else if (colNextToEdge || rowNextToEdge)
+                    value = -10;
+                else
+                    value = 0;
+                priority[col * size + row] = value;
+            }
+        }
+        return priority;
+    }
+}
@@ -0,0 +1,210 @@
+package PythonProgrammers;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import Provided.BitBoard;
+import Provided.GameState;
+import Provided.Position;
+
+/**
+ * Best moves for positions early in the game on the 8x8 board, found by deep searches ahead of
+ * time (see OpeningBookBuilder), so the bot does not have to search them during a game.
+ *
+ * The book is a file of fixed-size entries sorted by key, where the key is a hash of the position
+ * turned into its canonical orientation: of the 8 rotations and reflections of the board, the one
+ * with the smallest bitboards. Positions that are rotations or reflections of each other therefore
+ * share one entry, and the move is stored in the canonical orientation and turned back when it is
+ * looked up. The file is memory-mapped, so opening a book reads nothing and a lookup is a binary
+ * search that touches a few pages.
+ */
+public class OpeningBook {
+    static final String DEFAULT_BOOK = "/PythonProgrammers/book.bin";
+
+    private static final int MAGIC = 0x4F54424B; // "OTBK"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16; // Magic, version, number of entries, unused
+    private static final int ENTRY_BYTES = 16;  // Key (8 bytes), score (4), move (2), depth (2)
+
+    private static OpeningBook standard; // The book that comes with the program, loaded on first use
+    private static boolean standardLoaded;
+
+    private final ByteBuffer buffer;
+    private final int size;
+
+    /**
+     * One position of the book.
+     */
+    public static class Entry {
+        public final long key;   // See key()
+        public final int move;   // Best move (col*8 + row) in the canonical orientation
+        public final int score;  // Score of the search, from black's point of view
+        public final int depth;  // Depth of the search
+
+        public Entry(long key, int move, int score, int depth) {
+            this.key = key;
+            this.move = move;
+            this.score = score;
+            this.depth = depth;
+        }
+    }
+
+    /**
+     * @param buffer The contents of a book file, as written by write.
+     * @throws IOException If the buffer does not hold a book.
+     */
+    OpeningBook(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer.order(ByteOrder.BIG_ENDIAN);
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION)
+            throw new IOException("Not an opening book of version " + VERSION);
+        this.size = buffer.getInt(8);
+        if ((long) HEADER_BYTES + (long) size * ENTRY_BYTES > buffer.capacity())
+            throw new IOException("The opening book is truncated");
+    }
+
+    /**
+     * Opens a book file by mapping it into memory.
+     */
+    public static OpeningBook open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new OpeningBook(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Returns the book that comes with the program, or null if there is none. When the program
+     * runs from a directory the file is mapped; from a jar it is read into memory.
+     */
+    public static synchronized OpeningBook standard() {
+        if (!standardLoaded) {
+            standardLoaded = true;
+            URL url = OpeningBook.class.getResource(DEFAULT_BOOK);
+            try {
+                if (url == null)
+                    standard = null;
+                else if (url.getProtocol().equals("file"))
+                    standard = open(Paths.get(url.toURI()));
+                else
+                    try (InputStream in = url.openStream()) {
+                        standard = new OpeningBook(ByteBuffer.wrap(in.readAllBytes()));
+                    }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (URISyntaxException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return standard;
+    }
+
+    /**
+     * Returns the number of positions in the book.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the book move for the state, or null if the position is not in the book or the board
+     * is not 8x8.
+     */
+    public Position lookup(GameState state) {
+        if (!state.usesBitboard())
+            return null;
+        Entry entry = find(Symmetry.canonicalKey(state));
+        if (entry == null)
+            return null;
+        Position move = actualMove(state, entry.move);
+        long black = state.getBitboard(1);
+        long white = state.getBitboard(2);
+        long legal = state.getPlayerInTurn() == 1 ? BitBoard.moves(black, white) : BitBoard.moves(white, black);
+        if ((legal & (1L << (move.getCol() * 8 + move.getRow()))) == 0)
+            return null; // Two positions with the same key; cannot happen in practice
+        return move;
+    }
+
+    /**
+     * Returns the entry with the given key, or null if there is none.
+     */
+    public Entry find(long key) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long found = buffer.getLong(HEADER_BYTES + middle * ENTRY_BYTES);
+            if (found < key)
+                low = middle + 1;
+            else if (found > key)
+                high = middle - 1;
+            else
+                return entry(middle);
+        }
+        return null;
+    }
+
+    /**
+     * Returns all entries, in key order.
+     */
+    public List<Entry> entries() {
+        List<Entry> entries = new ArrayList<Entry>(size);
+        for (int i = 0; i < size; i++)
+            entries.add(entry(i));
+        return entries;
+    }
+
+    private Entry entry(int index) {
+        int offset = HEADER_BYTES + index * ENTRY_BYTES;
+        return new Entry(buffer.getLong(offset), buffer.getShort(offset + 12), buffer.getInt(offset + 8), buffer.getShort(offset + 14));
+    }
+
+    /**
+     * Writes a book file with the given entries, which must have different keys.
+     */
+    public static void write(Path file, Collection<Entry> entries) throws IOException {
+        List<Entry> sorted = new ArrayList<Entry>(entries);
+        sorted.sort((a, b) -> Long.compare(a.key, b.key));
+        ByteBuffer out = ByteBuffer.allocate(HEADER_BYTES + sorted.size() * ENTRY_BYTES);
+        out.putInt(MAGIC).putInt(VERSION).putInt(sorted.size()).putInt(0);
+        for (Entry entry : sorted)
+            out.putLong(entry.key).putInt(entry.score).putShort((short) entry.move).putShort((short) entry.depth);
+        if (file.getParent() != null)
+            Files.createDirectories(file.getParent());
+        Files.write(file, out.array());
+    }
+
+    /**
+     * Returns the key of a position: a hash of its canonical orientation and the player in turn
+     * (see Symmetry.canonicalKey).
+     */
+    public static long key(GameState state) {
+        return Symmetry.canonicalKey(state);
+    }
+
+    /**
+     * Returns the move in the canonical orientation of the position, as stored in the book.
+     * @param move A square, col*8 + row.
+     */
+    public static int canonicalMove(GameState state, int move) {
+        return Symmetry.square(move, 8, Symmetry.canonical(state));
+    }
+
+    /**
+     * Undoes canonicalMove: returns the move on the board of the state.
+     * @param move A square in the canonical orientation of the position, as stored in the book.
+     */
+    public static Position actualMove(GameState state, int move) {
+        int square = Symmetry.square(move, 8, Symmetry.inverse(Symmetry.canonical(state)));
+        return new Position(square / 8, square % 8);
+    }
+}
@@ -0,0 +1,95 @@
+package PythonProgrammers;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import Provided.GameState;
+import Provided.Position;
+
+/**
+ * Builds or grows an OpeningBook for the 8x8 board.
+ *
+ * The builder plays games from the start position. Every position within the first plies of a game
+ * is searched to the given depth (unless the book already has it from a search at least as deep)
+ * and its best move is added to the book. The games follow the book moves, except that now and
+ * then a random legal move is played instead, so the book covers the replies to other openings
+ * too and not only the one line the search likes best. If the book file exists, its positions are
+ * kept and the new ones added.
+ *
+ * Arguments: [--games n] [--plies n] [--depth n] [--random p] [--seed n] [--book file].
+ * The book is written to app/src/main/resources/PythonProgrammers/book.bin by default.
+ */
+public class OpeningBookBuilder {
+    public static void main(String[] args) throws Exception {
+        int games = 200;
+        int plies = 12;
+        int depth = 8;
+        double random = 0.2;
+        long seed = 1;
+        String book = "app/src/main/resources/PythonProgrammers/book.bin";
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--games": games = Integer.parseInt(args[++i]); break;
+                case "--plies": plies = Integer.parseInt(args[++i]); break;
+                case "--depth": depth = Integer.parseInt(args[++i]); break;
+                case "--random": random = Double.parseDouble(args[++i]); break;
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                case "--book": book = args[++i]; break;
+                default:
+                    System.err.println("Usage: java PythonProgrammers.OpeningBookBuilder [--games n] [--plies n] "
+                            + "[--depth n] [--random p] [--seed n] [--book file]");
+                    System.exit(1);
+            }
+        }
+
+        Path path = Paths.get(book);
+        Map<Long, OpeningBook.Entry> entries = new HashMap<Long, OpeningBook.Entry>();
+        if (Files.exists(path))
+            for (OpeningBook.Entry entry : OpeningBook.open(path).entries())
+                entries.put(entry.key, entry);
+        int before = entries.size();
+
+        long start = System.nanoTime();
+        MinimaxAI searcher = new MinimaxAI(depth);
+        searcher.setEvaluator(new PatternEvaluator());
+        Random rng = new Random(seed);
+        for (int g = 1; g <= games; g++) {
+            grow(entries, searcher, depth, plies, random, rng);
+            if (g % 10 == 0 || g == games)
+                System.out.printf("%d games, %d positions (%d new) in %.1f s%n",
+                        g, entries.size(), entries.size() - before, (System.nanoTime() - start) / 1e9);
+        }
+        OpeningBook.write(path, entries.values());
+        System.out.println("Book written to " + path + " (" + Files.size(path) + " bytes)");
+    }
+
+    /**
+     * Plays one game for the given number of plies, adding every position on the way to the book.
+     */
+    static void grow(Map<Long, OpeningBook.Entry> entries, MinimaxAI searcher, int depth, int plies,
+                     double random, Random rng) {
+        GameState state = new GameState(8, 1);
+        for (int ply = 0; ply < plies && !state.isFinished(); ply++) {
+            List<Position> moves = state.legalMoves();
+            if (moves.isEmpty()) {
+                state.changePlayer();
+                continue;
+            }
+            long key = OpeningBook.key(state);
+            OpeningBook.Entry entry = entries.get(key);
+            Position best;
+            if (entry == null || entry.depth < depth) {
+                MinimaxAI.Pair found = searcher.findBestMove(state, state.getPlayerInTurn());
+                best = found.move;
+                int move = OpeningBook.canonicalMove(state, best.getCol() * 8 + best.getRow());
+                entries.put(key, new OpeningBook.Entry(key, move, found.score, depth));
+            } else {
+                best = OpeningBook.actualMove(state, entry.move);
+            }
+            state.insertToken(rng.nextDouble() < random ? moves.get(rng.nextInt(moves.size())) : best);
+        }
+    }
+}
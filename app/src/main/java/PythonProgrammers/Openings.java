@@ -0,0 +1,53 @@
+package PythonProgrammers;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import Provided.GameState;
+
+/**
+ * Random opening positions, used to give test games and benchmarks some variety.
+ */
+public class Openings {
+
+    /**
+     * Plays the given number of random legal moves from the start position, passing when needed.
+     * The same random generator state always gives the same position. As in a real game, the
+     * player in turn can move unless the game is finished.
+     * @param size The size of the board.
+     * @param plies The number of moves to play; fewer if the game ends first.
+     */
+    public static GameState random(Random random, int size, int plies) {
+        GameState state = new GameState(size, 1);
+        int[] moves = new int[size * size];
+        for (int ply = 0; ply < plies && !state.isFinished(); ply++) {
+            int count = state.legalMoves(moves);
+            if (count == 0) {
+                state.changePlayer();
+                ply--;
+                continue;
+            }
+            state.makeMove(moves[random.nextInt(count)]);
+        }
+        if (!state.isFinished() && !state.hasAnyLegalMove())
+            state.changePlayer();
+        return new GameState(state);
+    }
+
+    /**
+     * Returns random openings (see random) of which no two are the same position or rotations or
+     * reflections of each other, so games from them are not repeats. There are fewer than count if
+     * few plies do not allow that many different positions.
+     */
+    public static GameState[] distinct(Random random, int size, int plies, int count) {
+        Set<Long> seen = new HashSet<Long>();
+        GameState[] openings = new GameState[count];
+        int found = 0;
+        for (int tries = 0; found < count && tries < 100 * count; tries++) {
+            GameState opening = random(random, size, plies);
+            if (seen.add(Symmetry.canonicalKey(opening)))
+                openings[found++] = opening;
+        }
+        return Arrays.copyOf(openings, found);
+    }
+}
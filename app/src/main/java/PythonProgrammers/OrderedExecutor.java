@@ -0,0 +1,84 @@
+package PythonProgrammers;
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs tasks on a fixed number of daemon threads and gives their results back in the order the
+ * tasks were submitted, for the tools that work through a long stream of positions or games.
+ *
+ * Only a few tasks per thread should be waiting or running at once (see isFull): enough that no
+ * thread waits for work, but few enough that a caller who submits tasks as it reads its input and
+ * takes the results as they come uses memory that does not grow with the input.
+ */
+public class OrderedExecutor<T> implements AutoCloseable {
+    private static final int QUEUED_PER_THREAD = 4; // Tasks in flight per thread, so no thread waits for work
+
+    private final ExecutorService pool;
+    private final ArrayDeque<Future<T>> pending = new ArrayDeque<Future<T>>();
+    private final int capacity;
+    private final String failureMessage;
+
+    /**
+     * @param threads The number of threads running tasks.
+     * @param threadName The name of the threads.
+     * @param failureMessage The message of the exception take throws when a task failed.
+     */
+    public OrderedExecutor(int threads, String threadName, String failureMessage) {
+        if (threads < 1)
+            throw new IllegalArgumentException("The number of threads must be at least 1, not " + threads);
+        this.pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.capacity = QUEUED_PER_THREAD * threads;
+        this.failureMessage = failureMessage;
+    }
+
+    /**
+     * Starts a task. It runs on one of the threads, so it must only use state of that thread
+     * (for example kept in a ThreadLocal) or state that does not change.
+     */
+    public void submit(Callable<T> task) {
+        pending.add(pool.submit(task));
+    }
+
+    /**
+     * Returns true if as many tasks are waiting or running as keep all threads busy, so the next
+     * result should be taken before more tasks are submitted.
+     */
+    public boolean isFull() {
+        return pending.size() >= capacity;
+    }
+
+    /**
+     * Returns true if every submitted task has been taken.
+     */
+    public boolean isEmpty() {
+        return pending.isEmpty();
+    }
+
+    /**
+     * Waits for the oldest task that has not been taken and returns its result.
+     * @throws IllegalStateException With the failure message, if the task threw an exception.
+     */
+    public T take() throws InterruptedException {
+        try {
+            return pending.removeFirst().get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(failureMessage, e.getCause());
+        }
+    }
+
+    /**
+     * Stops the threads, interrupting any tasks still running.
+     */
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+}
@@ -1,29 +1,361 @@
 package PythonProgrammers;
+import java.io.PrintStream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 import Provided.*;
 /**
- * Implementation of our bot. Uses the minimax algorithm to make decisions.
+ * Implementation of our bot. Uses the minimax algorithm to make decisions, plays the moves of the
+ * opening book while the position is in it, and plays perfectly with the endgame solver once few
+ * enough squares are left on an 8x8 board. It can also search on the opponent's time (see
+ * setPondering).
  */
-public class OurBot implements IOthelloAI {
+public class OurBot implements ISearchingAI {
+    public static final int DEFAULT_ENDGAME_EMPTIES = 14;
+
     private MinimaxAI minimaxAI;
+    private final int searchDepth;
+    private EndgameSolver endgameSolver = new EndgameSolver();
+    private int endgameEmpties = DEFAULT_ENDGAME_EMPTIES; // Solve exactly from this many empty squares
+    private long timeLimitMillis; // Time per move, 0 if there is no limit
+    private SearchStats lastStats; // Statistics of the search for the last move, null before the first
+    private PrintStream statsLog; // Gets the statistics of every move as a line of JSON, or null
+    private final EvaluatorChoice evaluators; // The pattern or weighted evaluation, by board size
+    private OpeningBook openingBook = OpeningBook.standard(); // null to play without a book
+    private ProbCut probCut; // Selective search with the pattern evaluation, null to search full width
+
+    // Pondering: after each move, a search of the position after the expected reply runs on
+    // ponderThread until the next call to decideMove
+    private boolean pondering; // Whether to search on the opponent's time
+    private ExecutorService ponderThread; // Created when pondering is switched on
+    private MinimaxAI ponderer; // The searcher of the running ponder search, null if there is none
+    private Future<MinimaxAI.Pair> ponderResult; // Result of the running ponder search
+    private volatile GameState ponderState; // The position pondered on, null while the reply is guessed
+    private volatile long ponderStart; // When the search of ponderState started (System.nanoTime)
     
     /**
      * @param searchDepth The maximum depth to search in the game tree.
      */
     public OurBot(int searchDepth) {
-        this.minimaxAI = new MinimaxAI(searchDepth);
+        this(searchDepth, MinimaxAI.DEFAULT_TABLE_MEGABYTES);
+    }
+
+    /**
+     * @param searchDepth The maximum depth to search in the game tree.
+     * @param tableMegabytes The memory to use for the transposition table, 0 to search without one.
+     */
+    public OurBot(int searchDepth, int tableMegabytes) {
+        this(searchDepth, tableMegabytes, "pattern");
+    }
+
+    /**
+     * @param searchDepth The maximum depth to search in the game tree.
+     * @param tableMegabytes The memory to use for the transposition table, 0 to search without one.
+     * @param evaluation "pattern" to evaluate 8x8 boards with PatternEvaluator, or "weighted" to
+     *                   always use WeightedEvaluator. Other board sizes always use WeightedEvaluator.
+     */
+    public OurBot(int searchDepth, int tableMegabytes, String evaluation) {
+        this.evaluators = new EvaluatorChoice(evaluation);
+        this.minimaxAI = new MinimaxAI(searchDepth, tableMegabytes);
+        this.searchDepth = searchDepth;
+    }
+
+    /**
+     * For comparing time-limited and selective variants in tournaments, e.g.
+     * "PythonProgrammers.OurBot:60,16,pattern,100,1.0".
+     * @param searchDepth The maximum depth to search in the game tree.
+     * @param tableMegabytes The memory to use for the transposition table, 0 to search without one.
+     * @param evaluation "pattern" or "weighted", see above.
+     * @param timeLimitMillis The time per move, see setTimeLimit; 0 to search to searchDepth.
+     * @param probCutThreshold The threshold for searching selectively with the ProbCut calibration
+     *                         that comes with the program (see setProbCut), 0 to search full width.
+     */
+    public OurBot(int searchDepth, int tableMegabytes, String evaluation, long timeLimitMillis, double probCutThreshold) {
+        this(searchDepth, tableMegabytes, evaluation);
+        minimaxAI.setTimeLimit(timeLimitMillis);
+        this.timeLimitMillis = timeLimitMillis;
+        ProbCut standard = ProbCut.standard();
+        this.probCut = probCutThreshold > 0 && standard != null ? standard.withThreshold(probCutThreshold) : null;
     }
     
     public OurBot() {
         this(6); //  6 ply is three full moves
     }
     
+    /**
+     * Makes the bot search with iterative deepening for the given time per move instead of to a
+     * fixed depth; see MinimaxAI.setTimeLimit.
+     * @param millis The time to spend per move in milliseconds, or 0 to search to the fixed depth.
+     */
+    public void setTimeLimit(long millis) {
+        minimaxAI.setTimeLimit(millis);
+        this.timeLimitMillis = millis;
+    }
+
+    /**
+     * Sets from how many empty squares the bot switches from minimax to the exact endgame solver.
+     * Only used on 8x8 boards. If the solver does not finish within the time limit, the move is
+     * found with minimax instead.
+     * @param empties The number of empty squares, 0 to never use the solver.
+     */
+    public void setEndgameEmpties(int empties) {
+        this.endgameEmpties = empties;
+    }
+    
+    /**
+     * Sets the opening book the bot plays from. By default it uses the book that comes with the
+     * program, if there is one.
+     * @param book The book, or null to always search.
+     */
+    public void setOpeningBook(OpeningBook book) {
+        this.openingBook = book;
+    }
+
+    /**
+     * Makes the search selective with Multi-ProbCut (see MinimaxAI.setProbCut), which lets it go
+     * deeper in the same time. Only used with the pattern evaluation on 8x8 boards, the one the
+     * calibration was made for.
+     * @param probCut The calibration, for example ProbCut.standard(), or null to search every move
+     *                to the full depth (the default).
+     */
+    public void setProbCut(ProbCut probCut) {
+        this.probCut = probCut;
+    }
+
+    /**
+     * Makes the bot search on the opponent's time (pondering). After deciding a move, it takes the
+     * reply its search expected from the transposition table (or guesses it with a shallower
+     * search) and goes on searching the position after that
+     * reply on a background thread, sharing the transposition table. If the opponent plays the
+     * expected reply, decideMove returns the move found while pondering, after searching only what
+     * is left of the depth (or of the time limit, counting the time pondered). After another reply
+     * the ponder search is stopped and the bot searches as usual, with the table already filled.
+     * Pondering is off by default, as it takes a processor from the opponent when both are programs
+     * on the same computer.
+     * @param on Whether to ponder. Switching it off stops a running ponder search.
+     */
+    public void setPondering(boolean on) {
+        if (!on)
+            endPondering(null);
+        else if (ponderThread == null) {
+            ponderThread = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "OurBot ponder");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        this.pondering = on;
+    }
+
+    @Override
+    public void setProgressListener(Consumer<SearchProgress> listener) {
+        minimaxAI.setProgressListener(listener);
+    }
+
+    /**
+     * Stops the minimax search; a running endgame solve is not interrupted, it ends at its time limit.
+     */
+    @Override
+    public void stop() {
+        minimaxAI.stop();
+    }
+
+    /**
+     * Makes the bot write the statistics of every move it decides to the given stream, as one line
+     * of JSON per move (see SearchStats.toJson).
+     * @param log The stream to write to, or null to stop writing.
+     */
+    public void setStatsLog(PrintStream log) {
+        this.statsLog = log;
+    }
+
+    /**
+     * Returns the statistics of the search for the last move, or null if no move was decided yet.
+     */
+    public SearchStats getLastStats() {
+        return lastStats;
+    }
+    
     /**
      * @param state
      * @return The position where the bot wants to put its token.
      */
     @Override
     public Position decideMove(GameState state) {
+        Position move = endPondering(state);
+        if (move == null)
+            move = search(state);
+        if (statsLog != null)
+            statsLog.println(lastStats.toJson());
+        if (pondering && move != null)
+            startPondering(state, move);
+        return move;
+    }
+
+    /**
+     * Starts pondering on the position after the given move and the opponent's expected reply.
+     * Nothing is pondered if the game ends, or if the book or the endgame solver will answer.
+     */
+    private void startPondering(GameState state, Position move) {
+        GameState next = new GameState(state);
+        if (!next.insertToken(move) || next.isFinished())
+            return;
+        int player = state.getPlayerInTurn();
+        int depth = timeLimitMillis > 0 ? Integer.MAX_VALUE : searchDepth; // With a time limit, until stopped
+        chooseEvaluator(next);
+        MinimaxAI searcher = minimaxAI.ponderer();
+        Position guess = minimaxAI.tableMove(next); // The reply our search expected
+        if (guess != null || !next.hasAnyLegalMove()) {
+            GameState expected = expectedState(next, guess);
+            if (expected == null)
+                return;
+            ponderStart = System.nanoTime();
+            ponderState = expected;
+            ponderResult = ponderThread.submit(() -> searcher.ponder(expected, player, depth));
+        } else {
+            // Guess the reply with a shallower search first, most of which the table answers
+            int guessDepth = Math.max(1, minimaxAI.getLastDepth() - 2);
+            ponderResult = ponderThread.submit(() -> {
+                Position reply = searcher.ponder(next, next.getPlayerInTurn(), guessDepth).move;
+                GameState expected = expectedState(next, reply);
+                if (expected == null)
+                    return null;
+                ponderStart = System.nanoTime();
+                ponderState = expected;
+                return searcher.ponder(expected, player, depth);
+            });
+        }
+        ponderer = searcher;
+    }
+
+    /**
+     * Returns the state after the opponent's reply (null if the opponent passes), or null if
+     * there is nothing to ponder there: we pass, the game is over, or the book or the endgame
+     * solver will answer.
+     */
+    private GameState expectedState(GameState next, Position reply) {
+        GameState expected = new GameState(next);
+        if (reply == null)
+            expected.changePlayer();
+        else if (!expected.insertToken(reply) || !expected.hasAnyLegalMove())
+            return null;
+        if (openingBook != null && openingBook.lookup(expected) != null)
+            return null;
+        if (expected.usesBitboard() && emptySquares(expected) <= endgameEmpties)
+            return null;
+        return expected;
+    }
+
+    /**
+     * Ends the running ponder search, if there is one. If it pondered on the given state, it first
+     * gets to search as deep (or as long, counting the time pondered) as a normal search would,
+     * and its move is returned. Otherwise it is stopped at once and null is returned.
+     */
+    private Position endPondering(GameState state) {
+        if (ponderResult == null)
+            return null;
+        long start = System.nanoTime();
+        GameState pondered = ponderState;
+        boolean hit = state != null && pondered != null && samePosition(state, pondered);
+        MinimaxAI ponderer = this.ponderer;
+        MinimaxAI.Pair result = null;
+        try {
+            if (!hit)
+                ponderer.stop();
+            else if (timeLimitMillis > 0) {
+                long left = timeLimitMillis * 1_000_000 - (start - ponderStart);
+                try {
+                    if (left > 0)
+                        ponderResult.get(left, TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    // The time is used up, so the ponder search ends with its deepest iteration
+                }
+                ponderer.stop();
+            }
+            result = ponderResult.get();
+        } catch (InterruptedException e) {
+            // The stopped ponder search finishes in the background; it only shares the table
+            ponderer.stop();
+            Thread.currentThread().interrupt();
+            hit = false;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Pondering failed", e.getCause());
+        } finally {
+            this.ponderResult = null;
+            this.ponderer = null;
+            this.ponderState = null;
+        }
+        if (!hit || result == null || result.move == null)
+            return null;
+        lastStats = ponderer.getLastStats();
+        lastStats.searcher = "ponder";
+        lastStats.elapsedNanos = System.nanoTime() - start;
+        return result.move;
+    }
+
+    private static boolean samePosition(GameState a, GameState b) {
+        if (a.getHash() != b.getHash() || a.getPlayerInTurn() != b.getPlayerInTurn() || a.getSize() != b.getSize())
+            return false;
+        if (a.usesBitboard() && b.usesBitboard())
+            return a.getBitboard(1) == b.getBitboard(1) && a.getBitboard(2) == b.getBitboard(2);
+        for (int col = 0; col < a.getSize(); col++)
+            for (int row = 0; row < a.getSize(); row++)
+                if (a.getToken(col, row) != b.getToken(col, row))
+                    return false;
+        return true;
+    }
+
+    private Position search(GameState state) {
+        if (openingBook != null) {
+            long start = System.nanoTime();
+            Position move = openingBook.lookup(state);
+            if (move != null) {
+                lastStats = new SearchStats();
+                lastStats.searcher = "book";
+                lastStats.elapsedNanos = System.nanoTime() - start;
+                return move;
+            }
+        }
+        chooseEvaluator(state);
+        int empties = emptySquares(state);
+        if (state.usesBitboard() && empties <= endgameEmpties) {
+            long start = System.nanoTime();
+            long deadline = timeLimitMillis > 0 ? start + timeLimitMillis * 1_000_000 : Long.MAX_VALUE;
+            MinimaxAI.Pair solved = endgameSolver.solve(state, deadline);
+            if (solved != null && solved.move != null) {
+                lastStats = new SearchStats();
+                lastStats.searcher = "endgame";
+                lastStats.nodes = endgameSolver.getNodes();
+                lastStats.depth = empties;
+                lastStats.score = solved.score;
+                lastStats.elapsedNanos = System.nanoTime() - start;
+                return solved.move;
+            }
+            if (timeLimitMillis > 0) // Use what is left of the time for minimax
+                minimaxAI.setTimeLimit(Math.max(1, timeLimitMillis - (System.nanoTime() - start) / 1_000_000));
+            MinimaxAI.Pair bestMove = minimaxAI.findBestMove(state, state.getPlayerInTurn());
+            minimaxAI.setTimeLimit(timeLimitMillis);
+            lastStats = minimaxAI.getLastStats();
+            lastStats.nodes += endgameSolver.getNodes(); // Count the time and work of the abandoned solve too
+            lastStats.elapsedNanos = System.nanoTime() - start;
+            return bestMove.move;
+        }
         MinimaxAI.Pair bestMove = minimaxAI.findBestMove(state, state.getPlayerInTurn());
+        lastStats = minimaxAI.getLastStats();
         return bestMove.move;
     }
+
+    private void chooseEvaluator(GameState state) {
+        minimaxAI.setEvaluator(evaluators.forPosition(state));
+        minimaxAI.setProbCut(evaluators.usesPatterns(state) ? probCut : null);
+    }
+
+    private static int emptySquares(GameState state) {
+        int[] tokens = state.countTokens();
+        return state.getSize() * state.getSize() - tokens[0] - tokens[1];
+    }
 } 
\ No newline at end of file
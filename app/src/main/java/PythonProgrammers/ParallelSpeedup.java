@@ -0,0 +1,59 @@
+package PythonProgrammers;
+import java.util.Objects;
+import java.util.Random;
+import Provided.GameState;
+import Provided.Position;
+
+/**
+ * Measures how much faster MinimaxAI gets with more search threads.
+ *
+ * A fixed set of midgame positions (random openings from a fixed seed) is searched to the same
+ * depth with 1, 2, 4, ... threads. For every thread count the total time, the speedup compared
+ * to one thread and the number of positions where the chosen move differs from the one-thread
+ * search are printed.
+ *
+ * Arguments: [depth] [maxThreads] [positions]. Defaults: 8, the number of cores, 20.
+ */
+public class ParallelSpeedup {
+    private static final int OPENING_PLIES = 20;
+
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int positionCount = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+        GameState[] positions = new GameState[positionCount];
+        Random random = new Random(2024);
+        for (int i = 0; i < positionCount; i++)
+            positions[i] = Openings.random(random, 8, OPENING_PLIES);
+
+        MinimaxAI warmUp = new MinimaxAI(depth, 64); // so the first measurement is not slowed down by the JIT compiler
+        for (int i = 0; i < Math.min(positionCount, 5); i++)
+            warmUp.findBestMove(positions[i], positions[i].getPlayerInTurn());
+
+        System.out.println("Depth " + depth + ", " + positionCount + " positions");
+        System.out.println("threads\ttime(ms)\tspeedup\tdifferent moves");
+        Position[] serialMoves = null;
+        long serialTime = 0;
+        for (int threads = 1; threads <= maxThreads; threads = threads == maxThreads ? threads + 1 : Math.min(2 * threads, maxThreads)) {
+            MinimaxAI ai = new MinimaxAI(depth, 64);
+            ai.setThreads(threads);
+            Position[] moves = new Position[positionCount];
+            long start = System.nanoTime();
+            for (int i = 0; i < positionCount; i++)
+                moves[i] = ai.findBestMove(positions[i], positions[i].getPlayerInTurn()).move;
+            long time = (System.nanoTime() - start) / 1_000_000;
+            int different = 0;
+            if (serialMoves == null) {
+                serialMoves = moves;
+                serialTime = time;
+            } else {
+                for (int i = 0; i < positionCount; i++)
+                    if (!Objects.equals(moves[i], serialMoves[i]))
+                        different++;
+            }
+            System.out.printf("%d\t%d\t%.2f\t%d%n", threads, time, (double) serialTime / Math.max(time, 1), different);
+            ai.setThreads(1);
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package PythonProgrammers;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import Provided.BitBoard;
+import Provided.GameState;
+
+/**
+ * Evaluation for the 8x8 board made of patterns: fixed groups of squares such as an edge with its
+ * two X-squares, the 3x3 block in a corner or a diagonal. The contents of the squares of a pattern
+ * (empty, black or white) are read as a base-3 number, the pattern code, which indexes a table of
+ * weights learned from games (see PatternTuner). Every rotation and reflection of a pattern uses
+ * the same table. The score is the sum of the weights of all patterns plus a weight for mobility,
+ * with a separate set of weights for each stage of the game (by the number of empty squares).
+ *
+ * The pattern codes are updated from the placed and flipped squares of each move, so evaluating
+ * a position is one table lookup per pattern and nothing is allocated.
+ *
+ * Scores are in 1/SCALE of a disc, from black's point of view.
+ */
+public class PatternEvaluator implements Evaluator {
+    public static final int SCALE = 32;
+    public static final int PHASES = 6; // Stages of the game: 60-51 empty squares, 50-41, ..., 10-0
+    static final String DEFAULT_WEIGHTS = "/PythonProgrammers/patterns.bin";
+
+    private static final int MAGIC = 0x4F545057; // "OTPW"
+    private static final int VERSION = 1;
+
+    // The shapes as (col, row) pairs in the top left corner of the board; every distinct rotation
+    // and reflection of a shape is used
+    private static final int[][][] SHAPES = {
+            {{0, 0}, {1, 0}, {2, 0}, {3, 0}, {4, 0}, {5, 0}, {6, 0}, {7, 0}, {1, 1}, {6, 1}}, // Edge and X-squares
+            {{0, 0}, {1, 0}, {2, 0}, {0, 1}, {1, 1}, {2, 1}, {0, 2}, {1, 2}, {2, 2}},         // Corner 3x3
+            {{0, 0}, {1, 0}, {2, 0}, {3, 0}, {4, 0}, {0, 1}, {1, 1}, {2, 1}, {3, 1}, {4, 1}}, // Corner 2x5
+            line(0, 1, 8, 1, 0), // Second row
+            line(0, 2, 8, 1, 0), // Third row
+            line(0, 3, 8, 1, 0), // Fourth row
+            line(0, 0, 8, 1, 1), // Main diagonal
+            line(0, 1, 7, 1, 1), // Diagonals of length 7 down to 4
+            line(0, 2, 6, 1, 1),
+            line(0, 3, 5, 1, 1),
+            line(0, 4, 4, 1, 1),
+    };
+
+    // Every pattern on the board: its squares, and where its weights start within a phase
+    static final int[][] PATTERN_SQUARES;
+    static final int[] PATTERN_OFFSET;
+    static final int MOBILITY; // Index of the mobility weight within a phase
+    static final int PHASE_SIZE; // Number of weights per phase
+
+    // For every square, the patterns it is part of and the power of 3 it has in their codes
+    private static final int[] SQUARE_START = new int[65];
+    private static final int[] SQUARE_PATTERN;
+    private static final int[] SQUARE_POWER;
+
+    static {
+        List<int[]> squares = new ArrayList<int[]>();
+        List<Integer> offsets = new ArrayList<Integer>();
+        int offset = 0;
+        for (int[][] shape : SHAPES) {
+            Set<Set<Integer>> seen = new HashSet<Set<Integer>>();
+            for (int transform = 0; transform < 8; transform++) {
+                int[] pattern = new int[shape.length];
+                Set<Integer> set = new LinkedHashSet<Integer>();
+                for (int i = 0; i < shape.length; i++) {
+                    pattern[i] = transform(shape[i][0], shape[i][1], transform);
+                    set.add(pattern[i]);
+                }
+                if (seen.add(set)) {
+                    squares.add(pattern);
+                    offsets.add(offset);
+                }
+            }
+            offset += pow3(shape.length);
+        }
+        PATTERN_SQUARES = squares.toArray(new int[0][]);
+        PATTERN_OFFSET = new int[offsets.size()];
+        for (int i = 0; i < PATTERN_OFFSET.length; i++)
+            PATTERN_OFFSET[i] = offsets.get(i);
+        MOBILITY = offset;
+        PHASE_SIZE = offset + 1;
+
+        int entries = 0;
+        for (int[] pattern : PATTERN_SQUARES)
+            entries += pattern.length;
+        SQUARE_PATTERN = new int[entries];
+        SQUARE_POWER = new int[entries];
+        int next = 0;
+        for (int square = 0; square < 64; square++) {
+            SQUARE_START[square] = next;
+            for (int p = 0; p < PATTERN_SQUARES.length; p++) {
+                int[] pattern = PATTERN_SQUARES[p];
+                for (int i = 0; i < pattern.length; i++) {
+                    if (pattern[i] == square) {
+                        SQUARE_PATTERN[next] = p;
+                        SQUARE_POWER[next] = pow3(i);
+                        next++;
+                    }
+                }
+            }
+        }
+        SQUARE_START[64] = next;
+    }
+
+    private static int[] sharedDefaultWeights; // Loaded from DEFAULT_WEIGHTS on first use
+
+    private final int[] weights; // PHASES * PHASE_SIZE weights, read only
+    private final int[] codes = new int[PATTERN_SQUARES.length];
+    private final int[] flipped = new int[64];
+    private int empties;
+
+    /**
+     * Uses the weights that come with the program.
+     */
+    public PatternEvaluator() {
+        this(defaultWeights());
+    }
+
+    /**
+     * @param weights Weights as returned by read; not copied, so they can be shared between threads.
+     */
+    public PatternEvaluator(int[] weights) {
+        if (weights.length != PHASES * PHASE_SIZE)
+            throw new IllegalArgumentException("Expected " + PHASES * PHASE_SIZE + " weights, not " + weights.length);
+        this.weights = weights;
+    }
+
+    /**
+     * Returns the number of weights the evaluator needs: one table per pattern shape and phase.
+     */
+    public static int weightCount() {
+        return PHASES * PHASE_SIZE;
+    }
+
+    /**
+     * Returns the weights that come with the program, loading them the first time.
+     */
+    public static synchronized int[] defaultWeights() {
+        if (sharedDefaultWeights == null) {
+            try (InputStream in = PatternEvaluator.class.getResourceAsStream(DEFAULT_WEIGHTS)) {
+                if (in == null)
+                    throw new IllegalStateException("The pattern weights " + DEFAULT_WEIGHTS + " are missing; run PatternTuner");
+                sharedDefaultWeights = read(in);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return sharedDefaultWeights;
+    }
+
+    /**
+     * Reads weights written by write: a gzip stream with a header followed by the weights of each
+     * phase as 16-bit numbers.
+     */
+    public static int[] read(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(stream), 1 << 16));
+        if (in.readInt() != MAGIC || in.readInt() != VERSION)
+            throw new IOException("Not a pattern weight file of version " + VERSION);
+        if (in.readInt() != PHASES || in.readInt() != PHASE_SIZE)
+            throw new IOException("The weight file was made for other patterns");
+        int[] weights = new int[PHASES * PHASE_SIZE];
+        for (int i = 0; i < weights.length; i++)
+            weights[i] = in.readShort();
+        return weights;
+    }
+
+    /**
+     * Writes weights so they can be read with read. Weights outside the 16-bit range are clamped.
+     */
+    public static void write(int[] weights, OutputStream stream) throws IOException {
+        GZIPOutputStream zip = new GZIPOutputStream(stream);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(zip, 1 << 16));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(PHASES);
+        out.writeInt(PHASE_SIZE);
+        for (int weight : weights)
+            out.writeShort(Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, weight)));
+        out.flush();
+        zip.finish();
+    }
+
+    /**
+     * Returns the phase of the game for the given number of empty squares.
+     */
+    static int phase(int empties) {
+        return Math.min(PHASES - 1, (60 - empties) / 10);
+    }
+
+    /**
+     * Writes the code of every pattern for the given position into codes.
+     */
+    static void codes(long black, long white, int[] codes) {
+        for (int p = 0; p < PATTERN_SQUARES.length; p++) {
+            int[] pattern = PATTERN_SQUARES[p];
+            int code = 0;
+            for (int i = pattern.length - 1; i >= 0; i--) {
+                long bit = 1L << pattern[i];
+                code = 3 * code + ((black & bit) != 0 ? 1 : (white & bit) != 0 ? 2 : 0);
+            }
+            codes[p] = code;
+        }
+    }
+
+    /**
+     * Returns the number of legal moves of black minus those of white.
+     */
+    static int mobility(long black, long white) {
+        return Long.bitCount(BitBoard.moves(black, white)) - Long.bitCount(BitBoard.moves(white, black));
+    }
+
+    @Override
+    public void reset(GameState state) {
+        if (!state.usesBitboard())
+            throw new IllegalArgumentException("The pattern evaluation only works on 8x8 boards");
+        long black = state.getBitboard(1);
+        long white = state.getBitboard(2);
+        codes(black, white, codes);
+        empties = 64 - Long.bitCount(black | white);
+    }
+
+    @Override
+    public void onMakeMove(GameState state, int undo) {
+        update(state, undo, 1);
+        empties--;
+    }
+
+    @Override
+    public void onUnmakeMove(GameState state, int undo) {
+        update(state, undo, -1);
+        empties++;
+    }
+
+    /**
+     * Adds (sign 1) or removes (sign -1) the changes of a move to the pattern codes: the placed
+     * square goes from empty (0) to the player, the flipped squares from the opponent to the player.
+     */
+    private void update(GameState state, int undo, int sign) {
+        int player = state.getMovePlayer(undo);
+        change(state.getMoveSquare(undo), sign * player);
+        int count = state.getFlippedSquares(undo, flipped);
+        int flip = sign * (player == 1 ? -1 : 1); // 1 to 2 for white, 2 to 1 for black
+        for (int i = 0; i < count; i++)
+            change(flipped[i], flip);
+    }
+
+    private void change(int square, int delta) {
+        for (int e = SQUARE_START[square]; e < SQUARE_START[square + 1]; e++)
+            codes[SQUARE_PATTERN[e]] += delta * SQUARE_POWER[e];
+    }
+
+    @Override
+    public int evaluate(GameState state) {
+        int base = phase(empties) * PHASE_SIZE;
+        int score = weights[base + MOBILITY] * mobility(state.getBitboard(1), state.getBitboard(2));
+        for (int p = 0; p < codes.length; p++)
+            score += weights[base + PATTERN_OFFSET[p] + codes[p]];
+        return score;
+    }
+
+    @Override
+    public Evaluator copy() {
+        return new PatternEvaluator(weights);
+    }
+
+    private static int[][] line(int col, int row, int length, int dc, int dr) {
+        int[][] squares = new int[length][];
+        for (int i = 0; i < length; i++)
+            squares[i] = new int[]{col + i * dc, row + i * dr};
+        return squares;
+    }
+
+    /**
+     * One of the 8 symmetries of the board applied to (col, row), as a square col*8 + row.
+     */
+    private static int transform(int col, int row, int transform) {
+        if ((transform & 1) != 0)
+            col = 7 - col;
+        if ((transform & 2) != 0)
+            row = 7 - row;
+        if ((transform & 4) != 0) {
+            int t = col;
+            col = row;
+            row = t;
+        }
+        return col * 8 + row;
+    }
+
+    private static int pow3(int n) {
+        int p = 1;
+        for (int i = 0; i < n; i++)
+            p *= 3;
+        return p;
+    }
+}
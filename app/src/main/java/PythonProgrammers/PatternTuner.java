@@ -0,0 +1,215 @@
+package PythonProgrammers;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import Provided.GameState;
+import Provided.IOthelloAI;
+
+/**
+ * Learns the weights of PatternEvaluator from games.
+ *
+ * Games are played between existing bots from random openings (the same bot on both sides by
+ * default), no two of them rotations or reflections of each other. Every position of a game is a
+ * sample whose target is the final disc difference of that game. The weights are then fitted by
+ * least squares: the mean squared difference between the evaluation of the samples and their
+ * targets is made small step by step. In each step every weight moves by the average error of the
+ * samples that use it (gradient descent, scaled per weight), so weights for rare patterns are not
+ * thrown around. A tenth of the games is kept apart to check that the weights also predict games
+ * they were not fitted to.
+ *
+ * Arguments: [--games n] [--bot spec] [--plies n] [--epochs n] [--threads n] [--seed n] [--out file].
+ * Bots are given as for Tournament. The weights are written to
+ * app/src/main/resources/PythonProgrammers/patterns.bin by default.
+ */
+public class PatternTuner {
+    private static final double LEARNING_RATE = 2;
+    private static final double REGULARIZATION = 100; // Samples a weight needs before it moves at full speed
+    private static final int PATTERNS = PatternEvaluator.PATTERN_SQUARES.length;
+
+    /**
+     * The positions of some games: pattern codes, phase, mobility and final disc difference of each.
+     */
+    static class Samples {
+        int count;
+        int[] codes = new int[1024 * PATTERNS];
+        byte[] phase = new byte[1024];
+        byte[] mobility = new byte[1024];
+        byte[] target = new byte[1024];
+        private final int[] scratch = new int[PATTERNS];
+
+        void add(long black, long white, int result) {
+            if (count == phase.length) {
+                codes = Arrays.copyOf(codes, 2 * codes.length);
+                phase = Arrays.copyOf(phase, 2 * count);
+                mobility = Arrays.copyOf(mobility, 2 * count);
+                target = Arrays.copyOf(target, 2 * count);
+            }
+            PatternEvaluator.codes(black, white, scratch);
+            System.arraycopy(scratch, 0, codes, count * PATTERNS, PATTERNS);
+            phase[count] = (byte) PatternEvaluator.phase(64 - Long.bitCount(black | white));
+            mobility[count] = (byte) PatternEvaluator.mobility(black, white);
+            target[count] = (byte) result;
+            count++;
+        }
+    }
+
+    /**
+     * One game: the black and white bitboards of every position before a move, and the final disc difference.
+     */
+    static class Game {
+        final long[] positions;
+        final int result;
+
+        Game(long[] positions, int result) {
+            this.positions = positions;
+            this.result = result;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int games = 20000;
+        String bot = "PythonProgrammers.OurBot:2,16,weighted";
+        int plies = 8;
+        int epochs = 40;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seed = 1;
+        String out = "app/src/main/resources/PythonProgrammers/patterns.bin";
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--games": games = Integer.parseInt(args[++i]); break;
+                case "--bot": bot = args[++i]; break;
+                case "--plies": plies = Integer.parseInt(args[++i]); break;
+                case "--epochs": epochs = Integer.parseInt(args[++i]); break;
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                case "--out": out = args[++i]; break;
+                default:
+                    System.err.println("Usage: java PythonProgrammers.PatternTuner [--games n] [--bot spec] [--plies n] "
+                            + "[--epochs n] [--threads n] [--seed n] [--out file]");
+                    System.exit(1);
+            }
+        }
+
+        long start = System.nanoTime();
+        List<Game> played = play(bot, games, plies, threads, seed);
+        Samples training = new Samples();
+        Samples validation = new Samples();
+        for (int g = 0; g < played.size(); g++) {
+            Game game = played.get(g);
+            Samples samples = g % 10 == 9 ? validation : training;
+            for (int i = 0; i < game.positions.length; i += 2)
+                samples.add(game.positions[i], game.positions[i + 1], game.result);
+        }
+        System.out.printf("%d games, %d training and %d validation positions in %.1f s%n",
+                played.size(), training.count, validation.count, (System.nanoTime() - start) / 1e9);
+
+        double[] weights = fit(training, validation, epochs);
+        int[] scaled = new int[weights.length];
+        for (int i = 0; i < weights.length; i++)
+            scaled[i] = (int) Math.round(weights[i] * PatternEvaluator.SCALE);
+        Path path = Paths.get(out);
+        if (path.getParent() != null)
+            Files.createDirectories(path.getParent());
+        try (OutputStream stream = Files.newOutputStream(path)) {
+            PatternEvaluator.write(scaled, stream);
+        }
+        System.out.println("Weights written to " + path + " (" + Files.size(path) + " bytes)");
+    }
+
+    /**
+     * Plays the games on the given number of threads, each thread with its own bot.
+     */
+    static List<Game> play(String bot, int games, int plies, int threads, long seed) throws InterruptedException, ExecutionException {
+        ThreadLocal<IOthelloAI> bots = ThreadLocal.withInitial(() -> Tournament.createBot(bot));
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Game>> running = new ArrayList<Future<Game>>();
+            for (GameState opening : Openings.distinct(new Random(seed), 8, plies, games))
+                running.add(pool.submit(() -> play(bots.get(), opening)));
+            List<Game> played = new ArrayList<Game>();
+            for (Future<Game> game : running)
+                played.add(game.get());
+            return played;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Plays one game from the opening and replays it to collect its positions.
+     */
+    private static Game play(IOthelloAI bot, GameState opening) {
+        GameResult result = MatchRunner.play(bot, bot, new GameState(opening));
+        GameState state = new GameState(opening);
+        long[] positions = new long[2 * result.moves.length];
+        for (int i = 0; i < result.moves.length; i++) {
+            positions[2 * i] = state.getBitboard(1);
+            positions[2 * i + 1] = state.getBitboard(2);
+            state.makeMove(result.moves[i]);
+            if (!state.hasAnyLegalMove())
+                state.changePlayer();
+        }
+        return new Game(positions, result.blackTokens - result.whiteTokens);
+    }
+
+    /**
+     * Fits the weights (in discs) to the training samples and prints the error after every epoch.
+     */
+    static double[] fit(Samples training, Samples validation, int epochs) {
+        int size = PatternEvaluator.PHASES * PatternEvaluator.PHASE_SIZE;
+        double[] weights = new double[size];
+        double[] gradient = new double[size];
+        double[] uses = new double[size];
+        for (int epoch = 1; epoch <= epochs; epoch++) {
+            Arrays.fill(gradient, 0);
+            Arrays.fill(uses, 0);
+            double squaredError = 0;
+            for (int s = 0; s < training.count; s++) {
+                int base = training.phase[s] * PatternEvaluator.PHASE_SIZE;
+                int mobility = training.mobility[s];
+                double error = training.target[s] - predict(weights, training, s);
+                squaredError += error * error;
+                for (int p = 0; p < PATTERNS; p++) {
+                    int index = base + PatternEvaluator.PATTERN_OFFSET[p] + training.codes[s * PATTERNS + p];
+                    gradient[index] += error;
+                    uses[index]++;
+                }
+                gradient[base + PatternEvaluator.MOBILITY] += error * mobility;
+                uses[base + PatternEvaluator.MOBILITY] += mobility * mobility;
+            }
+            for (int i = 0; i < size; i++)
+                if (uses[i] > 0)
+                    weights[i] += LEARNING_RATE * gradient[i] / (uses[i] + REGULARIZATION) / PATTERNS;
+            System.out.printf("Epoch %d: training error %.2f discs, validation error %.2f discs%n",
+                    epoch, Math.sqrt(squaredError / Math.max(training.count, 1)), rootMeanSquaredError(weights, validation));
+        }
+        return weights;
+    }
+
+    private static double predict(double[] weights, Samples samples, int s) {
+        int base = samples.phase[s] * PatternEvaluator.PHASE_SIZE;
+        double prediction = weights[base + PatternEvaluator.MOBILITY] * samples.mobility[s];
+        for (int p = 0; p < PATTERNS; p++)
+            prediction += weights[base + PatternEvaluator.PATTERN_OFFSET[p] + samples.codes[s * PATTERNS + p]];
+        return prediction;
+    }
+
+    private static double rootMeanSquaredError(double[] weights, Samples samples) {
+        double squaredError = 0;
+        for (int s = 0; s < samples.count; s++) {
+            double error = samples.target[s] - predict(weights, samples, s);
+            squaredError += error * error;
+        }
+        return Math.sqrt(squaredError / Math.max(samples.count, 1));
+    }
+}
@@ -0,0 +1,151 @@
+package PythonProgrammers;
+import java.util.Arrays;
+import Provided.GameState;
+
+/**
+ * Counts the positions reachable in a given number of moves (perft), to check that move
+ * generation and make/unmake follow the rules, and to measure how fast they are.
+ *
+ * Passes are handled as in OthelloGUI.gameTick: when the player in turn has no legal move but the
+ * game is not finished, the turn goes to the other player. As in the published perft tables, such
+ * a pass counts as a move, and a finished game counts as one position however many moves are left.
+ * From the 8x8 start position the counts are 4, 12, 56, 244, 1396, 8200, 55092, 390216, 3005288,
+ * 24571284, ...
+ *
+ * verify walks two representations of the same position (the bitboard or the mailbox board, and
+ * the int[][] reference) side by side and stops at the first position where they disagree.
+ *
+ * Arguments: [depth] [size | position], where the position is in BoardText format. Defaults: 9,
+ * the 8x8 start position.
+ */
+public class Perft {
+    private final int[][] moves; // Legal moves for each remaining depth
+
+    private Perft(int depth, int size) {
+        moves = new int[Math.max(depth, 1)][size * size];
+    }
+
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 9;
+        GameState start;
+        if (args.length == 2 && args[1].matches("\\d+"))
+            start = new GameState(Integer.parseInt(args[1]), 1);
+        else if (args.length > 1)
+            start = BoardText.parse(String.join(" ", Arrays.copyOfRange(args, 1, args.length)));
+        else
+            start = new GameState(8, 1);
+        System.out.println("Position " + BoardText.format(start));
+        System.out.println("depth\tnodes\ttime(ms)\tnodes/s");
+        for (int d = 1; d <= depth; d++) {
+            long begin = System.nanoTime();
+            long nodes = count(start, d);
+            long nanos = System.nanoTime() - begin;
+            System.out.printf("%d\t%d\t%.1f\t%.0f%n", d, nodes, nanos / 1e6, nodes / (nanos / 1e9));
+        }
+        int checkDepth = Math.min(depth, 7);
+        GameState reference = new GameState(start.getBoard(), start.getPlayerInTurn(), false);
+        long nodes = verify(reference, start, checkDepth);
+        System.out.println("The " + (start.usesBitboard() ? "bitboard" : "mailbox board") + " agrees with the int[][] board on all "
+                + nodes + " positions at depth " + checkDepth);
+    }
+
+    /**
+     * Returns the number of positions reached after depth moves from the given state. The state is
+     * the same when the method returns.
+     */
+    public static long count(GameState state, int depth) {
+        return new Perft(depth, state.getSize()).leaves(state, depth);
+    }
+
+    private long leaves(GameState state, int remaining) {
+        if (remaining == 0)
+            return 1;
+        int[] buffer = moves[remaining - 1];
+        int count = state.legalMoves(buffer);
+        if (count == 0) {
+            if (state.isFinished())
+                return 1;
+            state.changePlayer();
+            long nodes = leaves(state, remaining - 1);
+            state.changePlayer();
+            return nodes;
+        }
+        if (remaining == 1)
+            return count;
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            int undo = state.makeMove(buffer[i]);
+            nodes += leaves(state, remaining - 1);
+            state.unmakeMove(undo);
+        }
+        return nodes;
+    }
+
+    /**
+     * Walks the game tree of two states of the same position in step and checks that every
+     * position has the same legal moves, board, player in turn and hash in both, also after
+     * unmaking the moves.
+     * @param reference The state to trust, normally one using the int[][] board.
+     * @param other The state to check.
+     * @return The number of positions reached after depth moves.
+     * @throws IllegalStateException Describing the first position where the two disagree.
+     */
+    public static long verify(GameState reference, GameState other, int depth) {
+        Perft referenceBuffers = new Perft(depth, reference.getSize());
+        Perft otherBuffers = new Perft(depth, other.getSize());
+        return verify(reference, other, depth, referenceBuffers, otherBuffers);
+    }
+
+    private static long verify(GameState reference, GameState other, int remaining, Perft referenceBuffers, Perft otherBuffers) {
+        compare(reference, other, "");
+        if (remaining == 0)
+            return 1;
+        int[] referenceMoves = referenceBuffers.moves[remaining - 1];
+        int[] otherMoves = otherBuffers.moves[remaining - 1];
+        int count = reference.legalMoves(referenceMoves);
+        int otherCount = other.legalMoves(otherMoves);
+        int[] expected = Arrays.copyOf(referenceMoves, count);
+        int[] actual = Arrays.copyOf(otherMoves, otherCount);
+        Arrays.sort(expected);
+        Arrays.sort(actual);
+        if (!Arrays.equals(expected, actual))
+            throw new IllegalStateException("Legal moves " + Arrays.toString(actual) + " instead of "
+                    + Arrays.toString(expected) + " in " + BoardText.format(reference));
+        if (reference.isFinished() != other.isFinished())
+            throw new IllegalStateException("isFinished differs in " + BoardText.format(reference));
+        if (count == 0) {
+            if (reference.isFinished())
+                return 1;
+            reference.changePlayer();
+            other.changePlayer();
+            long nodes = verify(reference, other, remaining - 1, referenceBuffers, otherBuffers);
+            reference.changePlayer();
+            other.changePlayer();
+            return nodes;
+        }
+        long nodes = 0;
+        for (int move : expected) {
+            String before = BoardText.format(reference);
+            int referenceUndo = reference.makeMove(move);
+            int otherUndo = other.makeMove(move);
+            if (otherUndo < 0)
+                throw new IllegalStateException("Move " + move + " rejected in " + before);
+            compare(reference, other, " after move " + move + " in " + before);
+            nodes += verify(reference, other, remaining - 1, referenceBuffers, otherBuffers);
+            reference.unmakeMove(referenceUndo);
+            other.unmakeMove(otherUndo);
+            compare(reference, other, " after unmaking move " + move);
+        }
+        return nodes;
+    }
+
+    private static void compare(GameState reference, GameState other, String where) {
+        if (!Arrays.deepEquals(reference.getBoard(), other.getBoard()))
+            throw new IllegalStateException("Board " + BoardText.format(other) + " instead of "
+                    + BoardText.format(reference) + where);
+        if (reference.getPlayerInTurn() != other.getPlayerInTurn())
+            throw new IllegalStateException("Wrong player in turn in " + BoardText.format(reference) + where);
+        if (reference.getHash() != other.getHash())
+            throw new IllegalStateException("Different hash in " + BoardText.format(reference) + where);
+    }
+}
@@ -0,0 +1,193 @@
+package PythonProgrammers;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The calibration of Multi-ProbCut, the selective search of MinimaxAI (see MinimaxAI.setProbCut).
+ *
+ * The score of a deep search is predicted from that of a shallow search of the same position by
+ * linear regression: deep = slope * shallow + intercept, with an error whose standard deviation is
+ * sigma. If a cheap shallow search shows that the prediction is above beta (or below alpha) by
+ * more than threshold times sigma, the deep search is skipped and the position cut off, which is
+ * wrong only as often as the error is that large. Every depth has one or more such checks, with
+ * different shallow depths, tried from the shallowest, and separate checks for each stage of the
+ * game (the phases of PatternEvaluator).
+ *
+ * The regressions are fitted to the scores of PatternEvaluator by ProbCutCalibrator, and are only
+ * meaningful for that evaluation on 8x8 boards. Depths beyond those calibrated use the checks of
+ * the deepest calibrated depth with the same parity, with the shallow depth as much deeper.
+ */
+public final class ProbCut {
+    public static final double DEFAULT_THRESHOLD = 1.5;
+    public static final int MIN_DEPTH = 3; // Shallower searches are cheap enough as they are
+    static final int MAX_DEPTH = 64;
+    static final String DEFAULT_CALIBRATION = "/PythonProgrammers/probcut.txt";
+
+    private static ProbCut standard; // The calibration that comes with the program, loaded on first use
+    private static boolean standardLoaded;
+
+    private final List<Check> calibrated;
+    private final Check[][][] checks; // [phase][depth], empty where there is nothing to check
+    private final double threshold;
+
+    /**
+     * A regression from the score at a shallow depth to the score at a deeper one, both from the
+     * point of view of the player in turn.
+     */
+    public static final class Check {
+        public final int phase;
+        public final int depth;
+        public final int shallowDepth;
+        public final double slope;
+        public final double intercept;
+        public final double sigma;
+        public final int samples; // Positions the regression was fitted to
+
+        public Check(int phase, int depth, int shallowDepth, double slope, double intercept, double sigma, int samples) {
+            this.phase = phase;
+            this.depth = depth;
+            this.shallowDepth = shallowDepth;
+            this.slope = slope;
+            this.intercept = intercept;
+            this.sigma = sigma;
+            this.samples = samples;
+        }
+
+        private Check deeper(int plies) {
+            return new Check(phase, depth + plies, shallowDepth + plies, slope, intercept, sigma, samples);
+        }
+    }
+
+    /**
+     * @param calibrated The regressions, at most one per phase, depth and shallow depth.
+     * @param threshold How many standard deviations the prediction must be beyond the window.
+     */
+    public ProbCut(List<Check> calibrated, double threshold) {
+        this.calibrated = new ArrayList<Check>(calibrated);
+        this.threshold = threshold;
+        int deepest = 0;
+        for (Check check : calibrated)
+            deepest = Math.max(deepest, check.depth);
+        checks = new Check[PatternEvaluator.PHASES][MAX_DEPTH + 1][];
+        for (int phase = 0; phase < PatternEvaluator.PHASES; phase++) {
+            for (int depth = 0; depth <= MAX_DEPTH; depth++) {
+                int base = depth <= deepest ? depth : deepest - (depth - deepest) % 2;
+                List<Check> found = new ArrayList<Check>();
+                for (Check check : calibrated)
+                    if (check.phase == phase && check.depth == base && check.slope > 0 && check.shallowDepth < base)
+                        found.add(check.deeper(depth - base));
+                found.sort((a, b) -> Integer.compare(a.shallowDepth, b.shallowDepth));
+                checks[phase][depth] = found.toArray(new Check[0]);
+            }
+        }
+    }
+
+    /**
+     * Returns the calibration that comes with the program with the default threshold, or null if
+     * there is none.
+     */
+    public static synchronized ProbCut standard() {
+        if (!standardLoaded) {
+            standardLoaded = true;
+            try (InputStream in = ProbCut.class.getResourceAsStream(DEFAULT_CALIBRATION)) {
+                standard = in == null ? null : read(in, DEFAULT_THRESHOLD);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return standard;
+    }
+
+    /**
+     * Returns the same calibration with another threshold: smaller cuts more and errs more often.
+     */
+    public ProbCut withThreshold(double threshold) {
+        return new ProbCut(calibrated, threshold);
+    }
+
+    public double getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Returns the regressions the calibration was made of.
+     */
+    public List<Check> getCalibrated() {
+        return new ArrayList<Check>(calibrated);
+    }
+
+    /**
+     * Returns the checks for a search of the given depth in a position with that many empty
+     * squares, shallowest first; empty if there are none.
+     */
+    Check[] checks(int empties, int depth) {
+        if (depth < MIN_DEPTH || depth > MAX_DEPTH)
+            return checks[0][0];
+        return checks[PatternEvaluator.phase(empties)][depth];
+    }
+
+    /**
+     * Returns the score the shallow search must reach for the deep one to be predicted at least
+     * beta, rounded up.
+     */
+    long shallowBeta(Check check, int beta) {
+        return (long) Math.ceil((beta - check.intercept + threshold * check.sigma) / check.slope);
+    }
+
+    /**
+     * Returns the score the shallow search must stay under for the deep one to be predicted at
+     * most alpha, rounded down.
+     */
+    long shallowAlpha(Check check, int alpha) {
+        return (long) Math.floor((alpha - check.intercept - threshold * check.sigma) / check.slope);
+    }
+
+    /**
+     * Reads a calibration written by write: a line per regression with phase, depth, shallow
+     * depth, slope, intercept, sigma and samples. Empty lines and lines starting with # are skipped.
+     */
+    public static ProbCut read(InputStream stream, double threshold) throws IOException {
+        List<Check> checks = new ArrayList<Check>();
+        BufferedReader in = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+        String line;
+        while ((line = in.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#"))
+                continue;
+            String[] fields = line.split("\\s+");
+            if (fields.length != 7)
+                throw new IOException("Not a ProbCut calibration line: " + line);
+            try {
+                checks.add(new Check(Integer.parseInt(fields[0]), Integer.parseInt(fields[1]), Integer.parseInt(fields[2]),
+                        Double.parseDouble(fields[3]), Double.parseDouble(fields[4]), Double.parseDouble(fields[5]),
+                        Integer.parseInt(fields[6])));
+            } catch (NumberFormatException e) {
+                throw new IOException("Not a ProbCut calibration line: " + line, e);
+            }
+        }
+        return new ProbCut(checks, threshold);
+    }
+
+    /**
+     * Writes the calibration so it can be read with read.
+     */
+    public void write(Writer writer) {
+        PrintWriter out = new PrintWriter(writer);
+        out.println("# ProbCut calibration for PatternEvaluator, written by ProbCutCalibrator.");
+        out.println("# score(depth) = slope * score(shallow) + intercept, error with standard deviation sigma,");
+        out.println("# scores in 1/" + PatternEvaluator.SCALE + " disc for the player in turn.");
+        out.println("# phase depth shallow slope intercept sigma samples");
+        for (Check c : calibrated)
+            out.printf(Locale.ROOT, "%d %d %d %.4f %.2f %.2f %d%n", c.phase, c.depth, c.shallowDepth, c.slope, c.intercept, c.sigma, c.samples);
+        out.flush();
+    }
+}
@@ -0,0 +1,195 @@
+package PythonProgrammers;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import Provided.GameState;
+import Provided.IOthelloAI;
+
+/**
+ * Fits the regressions of ProbCut to positions from self-play.
+ *
+ * Games are played by a bot against itself from random openings, no two of them rotations or
+ * reflections of each other, and every few plies a position is taken. Each of these is searched
+ * with iterative deepening and PatternEvaluator to the largest depth, which gives its score at
+ * every depth. For every stage of the game, depth and shallow depth of a check, the least squares
+ * line through the pairs of shallow and deep scores and the standard deviation of its error are
+ * written, as read by ProbCut.read.
+ *
+ * The checks of a depth use shallow depths of about a quarter and a half of it, with the same
+ * parity, since scores go up and down with the player to move at the depth limit.
+ *
+ * Arguments: [--games n] [--bot spec] [--plies n] [--every n] [--depth n] [--threads n] [--seed n]
+ * [--out file]. Bots are given as for Tournament. The calibration is written to
+ * app/src/main/resources/PythonProgrammers/probcut.txt by default.
+ */
+public class ProbCutCalibrator {
+    private static final int MIN_SAMPLES = 30; // Fewer pairs than this give no regression
+
+    public static void main(String[] args) throws Exception {
+        int games = 100;
+        String bot = "PythonProgrammers.OurBot:2";
+        int plies = 8;
+        int every = 3;
+        int depth = 10;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seed = 1;
+        String out = "app/src/main/resources/PythonProgrammers/probcut.txt";
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--games": games = Integer.parseInt(args[++i]); break;
+                case "--bot": bot = args[++i]; break;
+                case "--plies": plies = Integer.parseInt(args[++i]); break;
+                case "--every": every = Integer.parseInt(args[++i]); break;
+                case "--depth": depth = Integer.parseInt(args[++i]); break;
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                case "--out": out = args[++i]; break;
+                default:
+                    System.err.println("Usage: java PythonProgrammers.ProbCutCalibrator [--games n] [--bot spec] [--plies n] "
+                            + "[--every n] [--depth n] [--threads n] [--seed n] [--out file]");
+                    System.exit(1);
+            }
+        }
+
+        long start = System.nanoTime();
+        List<GameState> positions = samplePositions(bot, games, plies, every, depth, seed);
+        System.out.printf("%d positions from %d games in %.1f s%n", positions.size(), games, (System.nanoTime() - start) / 1e9);
+
+        int[][] scores = scores(positions, depth, threads);
+        System.out.printf("Searched to depth %d in %.1f s%n", depth, (System.nanoTime() - start) / 1e9);
+
+        List<ProbCut.Check> checks = new ArrayList<ProbCut.Check>();
+        for (int phase = 0; phase < PatternEvaluator.PHASES; phase++) {
+            for (int deep = ProbCut.MIN_DEPTH; deep <= depth; deep++) {
+                for (int shallow : shallowDepths(deep)) {
+                    ProbCut.Check check = fit(positions, scores, phase, deep, shallow);
+                    if (check != null)
+                        checks.add(check);
+                }
+            }
+        }
+        ProbCut calibration = new ProbCut(checks, ProbCut.DEFAULT_THRESHOLD);
+        for (ProbCut.Check c : checks)
+            System.out.printf("phase %d depth %2d from %2d: slope %.3f, intercept %6.1f, sigma %6.1f (%d positions)%n",
+                    c.phase, c.depth, c.shallowDepth, c.slope, c.intercept, c.sigma, c.samples);
+        Path path = Paths.get(out);
+        if (path.getParent() != null)
+            Files.createDirectories(path.getParent());
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            calibration.write(writer);
+        }
+        System.out.println(checks.size() + " checks written to " + path);
+    }
+
+    /**
+     * Returns the shallow depths of the checks for a depth: about a quarter and a half of it, with
+     * the same parity, and at least 2 plies shallower.
+     */
+    static int[] shallowDepths(int depth) {
+        int quarter = sameParity(depth / 4, depth);
+        int half = sameParity(depth / 2, depth);
+        if (half > depth - 2)
+            half = depth - 2;
+        return quarter == half ? new int[]{quarter} : new int[]{quarter, half};
+    }
+
+    private static int sameParity(int shallow, int depth) {
+        if (shallow % 2 != depth % 2)
+            shallow++;
+        return Math.max(shallow, depth % 2 == 0 ? 2 : 1);
+    }
+
+    /**
+     * Plays the games and takes every few plies a position that has more empty squares than the
+     * depth, so the searches do not reach the end of the game.
+     */
+    private static List<GameState> samplePositions(String bot, int games, int plies, int every, int depth, long seed) {
+        IOthelloAI player = Tournament.createBot(bot);
+        List<GameState> positions = new ArrayList<GameState>();
+        for (GameState opening : Openings.distinct(new Random(seed), 8, plies, games)) {
+            GameResult result = MatchRunner.play(player, player, new GameState(opening));
+            GameState state = new GameState(opening);
+            for (int i = 0; i < result.moves.length; i++) {
+                int[] tokens = state.countTokens();
+                if (i % every == 0 && 64 - tokens[0] - tokens[1] > depth)
+                    positions.add(new GameState(state));
+                state.makeMove(result.moves[i]);
+                if (!state.hasAnyLegalMove())
+                    state.changePlayer();
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * Searches every position to the depth and returns its score at each depth (scores[i][d],
+     * for the player in turn), on the given number of threads.
+     */
+    private static int[][] scores(List<GameState> positions, int depth, int threads) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<int[]>> running = new ArrayList<Future<int[]>>();
+            for (GameState position : positions)
+                running.add(pool.submit(() -> scores(position, depth)));
+            int[][] scores = new int[positions.size()][];
+            for (int i = 0; i < scores.length; i++)
+                scores[i] = running.get(i).get();
+            return scores;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static int[] scores(GameState position, int depth) {
+        // A new table for every position, so no score comes from a deeper search of another one
+        MinimaxAI searcher = new MinimaxAI(depth, 4);
+        searcher.setEvaluator(new PatternEvaluator());
+        int[] scores = new int[depth + 1];
+        int sign = position.getPlayerInTurn() == 1 ? 1 : -1;
+        searcher.setProgressListener(progress -> scores[progress.getDepth()] = sign * progress.getScore());
+        searcher.findBestMove(position, position.getPlayerInTurn());
+        return scores;
+    }
+
+    /**
+     * Fits the deep scores of the positions in the phase to their shallow scores, or returns null
+     * if there are too few positions.
+     */
+    private static ProbCut.Check fit(List<GameState> positions, int[][] scores, int phase, int deep, int shallow) {
+        int n = 0;
+        double sumX = 0, sumY = 0, sumXX = 0, sumXY = 0;
+        for (int i = 0; i < positions.size(); i++) {
+            int[] tokens = positions.get(i).countTokens();
+            if (PatternEvaluator.phase(64 - tokens[0] - tokens[1]) != phase)
+                continue;
+            double x = scores[i][shallow];
+            double y = scores[i][deep];
+            n++;
+            sumX += x;
+            sumY += y;
+            sumXX += x * x;
+            sumXY += x * y;
+        }
+        if (n < MIN_SAMPLES)
+            return null;
+        double slope = (n * sumXY - sumX * sumY) / (n * sumXX - sumX * sumX);
+        double intercept = (sumY - slope * sumX) / n;
+        double squaredError = 0;
+        for (int i = 0; i < positions.size(); i++) {
+            int[] tokens = positions.get(i).countTokens();
+            if (PatternEvaluator.phase(64 - tokens[0] - tokens[1]) != phase)
+                continue;
+            double error = scores[i][deep] - slope * scores[i][shallow] - intercept;
+            squaredError += error * error;
+        }
+        return new ProbCut.Check(phase, deep, shallow, slope, intercept, Math.sqrt(squaredError / (n - 2)), n);
+    }
+}
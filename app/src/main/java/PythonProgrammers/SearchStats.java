@@ -0,0 +1,112 @@
+package PythonProgrammers;
+import java.util.Locale;
+
+/**
+ * What one search for a move did: how many nodes it visited, how well alpha-beta pruned, how much
+ * the transposition table helped, how deep it got and how long it took.
+ *
+ * The counters are plain fields filled in by the searcher that owns the object, so counting costs
+ * no more than an increment per event. toJson gives the statistics as one line of JSON, so a
+ * game's worth of moves can be written as JSON lines and loaded into any analysis tool.
+ */
+public class SearchStats {
+    String searcher = "minimax"; // "minimax", "endgame", "book" or "ponder"
+    long nodes;             // Positions visited, in all threads
+    long leafEvaluations;   // Calls to the evaluation function (depth limit or finished game)
+    long cutoffs;           // Beta cutoffs
+    long firstMoveCutoffs;  // Beta cutoffs caused by the first move tried
+    long cutoffIndexSum;    // Sum over all cutoffs of the position of the move in the ordered list
+    long tableProbes;       // Transposition table lookups
+    long tableHits;         // Lookups that found the position
+    long tableCutoffs;      // Hits whose score was good enough to return without searching
+    long probCutoffs;       // Positions cut off by a ProbCut check instead of searched to the full depth
+    long probCutNodes;      // Of the nodes, those visited by the shallow searches of ProbCut checks
+    int depth;              // Depth of the last completed iteration, or the number of empty squares when solved
+    int score;              // Score of the chosen move, from black's point of view
+    long elapsedNanos;      // Time spent on the search; for "ponder", the time decideMove waited for it
+
+    public String getSearcher() {
+        return searcher;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getLeafEvaluations() {
+        return leafEvaluations;
+    }
+
+    public long getCutoffs() {
+        return cutoffs;
+    }
+
+    public long getFirstMoveCutoffs() {
+        return firstMoveCutoffs;
+    }
+
+    /**
+     * Returns the average position of the move causing a cutoff in the ordered list (0 is the
+     * first move), or 0 if there were no cutoffs. The closer to 0, the better the move ordering.
+     */
+    public double getAverageCutoffIndex() {
+        return cutoffs == 0 ? 0 : (double) cutoffIndexSum / cutoffs;
+    }
+
+    public long getTableProbes() {
+        return tableProbes;
+    }
+
+    public long getTableHits() {
+        return tableHits;
+    }
+
+    public long getTableCutoffs() {
+        return tableCutoffs;
+    }
+
+    public long getProbCutoffs() {
+        return probCutoffs;
+    }
+
+    public long getProbCutNodes() {
+        return probCutNodes;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Returns the nodes visited per second, or 0 if no time was measured.
+     */
+    public double getNodesPerSecond() {
+        return elapsedNanos == 0 ? 0 : nodes * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * Returns the statistics as one line of JSON, without a line break.
+     */
+    public String toJson() {
+        return String.format(Locale.ROOT,
+                "{\"searcher\":\"%s\",\"depth\":%d,\"score\":%d,\"nodes\":%d,\"leafEvaluations\":%d,"
+                        + "\"cutoffs\":%d,\"firstMoveCutoffs\":%d,\"averageCutoffIndex\":%.3f,"
+                        + "\"tableProbes\":%d,\"tableHits\":%d,\"tableCutoffs\":%d,\"probCutoffs\":%d,\"probCutNodes\":%d,"
+                        + "\"elapsedMillis\":%.3f,\"nodesPerSecond\":%.0f}",
+                searcher, depth, score, nodes, leafEvaluations, cutoffs, firstMoveCutoffs, getAverageCutoffIndex(),
+                tableProbes, tableHits, tableCutoffs, probCutoffs, probCutNodes, elapsedNanos / 1e6, getNodesPerSecond());
+    }
+
+    @Override
+    public String toString() {
+        return toJson();
+    }
+}
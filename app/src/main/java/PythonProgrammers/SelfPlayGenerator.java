@@ -0,0 +1,282 @@
+package PythonProgrammers;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.stream.LongStream;
+import Provided.GameState;
+import Provided.Position;
+
+/**
+ * Generates labelled 8x8 positions for fitting evaluations by self-play on all cores.
+ *
+ * Every game starts with a number of random moves and is then played by MinimaxAI against itself,
+ * searching to a fixed depth. Each position before a move is labelled with the final disc
+ * difference of its game and, if it has few enough empty squares, with the exact final disc
+ * difference under perfect play from EndgameSolver. Game n always starts from the same opening
+ * (drawn from a generator seeded with the seed and n) and is played by a searcher that has
+ * forgotten all other games, so it is the same game whatever the number of threads or the order
+ * the games are played in, and runs can be split and repeated.
+ *
+ * The positions are written to a directory in chunks of a fixed number of games, chunk-00000.bin
+ * with games 0 to chunk-1 and so on. A chunk file only appears once all its games are written, and
+ * the settings of the run are kept in settings.txt, so a run that was stopped is resumed by running
+ * it again with the same settings: the chunks that exist are skipped. Asking for more games later
+ * adds chunks to the same data. The number of games is rounded up to whole chunks, so every chunk
+ * file holds the same games whenever it was written.
+ *
+ * A position is stored, big-endian, as 19 bytes: the black and white bitboards as longs (bit
+ * col*8 + row), the player in turn, the final disc difference and the exact one, both black minus
+ * white, or NO_EXACT if the position was not solved. The first 17 bytes are a position record of
+ * BatchAnalyzer.
+ *
+ * Arguments: [--games n] [--depth n] [--plies n] [--evaluation pattern|weighted] [--exact n]
+ * [--chunk n] [--threads n] [--seed n] [--out dir]. --exact gives the number of empty squares up
+ * to which positions are solved, 0 for none.
+ */
+public class SelfPlayGenerator {
+    public static final int RECORD_BYTES = 19;
+    public static final byte NO_EXACT = Byte.MIN_VALUE;
+
+    private final int depth;
+    private final int plies;
+    private final String evaluation;
+    private final int exactEmpties;
+    private final int chunkGames;
+    private final int threads;
+    private final long seed;
+
+    /**
+     * A labelled position read back from a chunk.
+     */
+    public static class Sample {
+        public final long black;
+        public final long white;
+        public final int playerInTurn;
+        public final int result; // Final disc difference of the game, black minus white
+        public final int exact;  // Final disc difference with perfect play, or NO_EXACT
+
+        Sample(long black, long white, int playerInTurn, int result, int exact) {
+            this.black = black;
+            this.white = white;
+            this.playerInTurn = playerInTurn;
+            this.result = result;
+            this.exact = exact;
+        }
+    }
+
+    /**
+     * @param depth The search depth of the players.
+     * @param plies The number of random moves at the start of every game.
+     * @param evaluation "pattern" or "weighted", as for OurBot.
+     * @param exactEmpties Positions with at most this many empty squares are solved; 0 for none.
+     * @param chunkGames The number of games per chunk file.
+     * @param threads The number of games played at the same time.
+     * @param seed The seed of the openings.
+     */
+    public SelfPlayGenerator(int depth, int plies, String evaluation, int exactEmpties, int chunkGames, int threads, long seed) {
+        EvaluatorChoice.check(evaluation);
+        if (chunkGames < 1 || threads < 1)
+            throw new IllegalArgumentException("Chunks need at least one game and the generator one thread");
+        this.depth = depth;
+        this.plies = plies;
+        this.evaluation = evaluation;
+        this.exactEmpties = exactEmpties;
+        this.chunkGames = chunkGames;
+        this.threads = threads;
+        this.seed = seed;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int games = 100000;
+        int depth = 4;
+        int plies = 8;
+        String evaluation = "pattern";
+        int exact = 0;
+        int chunk = 1000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seed = 1;
+        String out = "selfplay";
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--games": games = Integer.parseInt(args[++i]); break;
+                case "--depth": depth = Integer.parseInt(args[++i]); break;
+                case "--plies": plies = Integer.parseInt(args[++i]); break;
+                case "--evaluation": evaluation = args[++i]; break;
+                case "--exact": exact = Integer.parseInt(args[++i]); break;
+                case "--chunk": chunk = Integer.parseInt(args[++i]); break;
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                case "--out": out = args[++i]; break;
+                default:
+                    System.err.println("Usage: java PythonProgrammers.SelfPlayGenerator [--games n] [--depth n] [--plies n] "
+                            + "[--evaluation pattern|weighted] [--exact n] [--chunk n] [--threads n] [--seed n] [--out dir]");
+                    System.exit(1);
+            }
+        }
+        new SelfPlayGenerator(depth, plies, evaluation, exact, chunk, threads, seed).run(Paths.get(out), games, true);
+    }
+
+    /**
+     * Plays the games of the chunks that hold the first games, rounded up to whole chunks, and are
+     * not in the directory yet, and writes those chunks.
+     * @param verbose Whether to print a line for every chunk.
+     * @return The number of games played.
+     * @throws IllegalArgumentException If the directory holds data generated with other settings.
+     */
+    public long run(Path directory, long games, boolean verbose) throws IOException, InterruptedException {
+        Files.createDirectories(directory);
+        checkSettings(directory);
+        long chunks = (games + chunkGames - 1) / chunkGames;
+        List<Long> missing = new ArrayList<Long>();
+        for (long chunk = 0; chunk < chunks; chunk++)
+            if (!Files.exists(chunkPath(directory, chunk)))
+                missing.add(chunk);
+        if (verbose)
+            System.out.println((chunks - missing.size()) + " of " + chunks + " chunks already written");
+
+        ThreadLocal<Player> players = ThreadLocal.withInitial(Player::new);
+        long start = System.nanoTime();
+        try (OrderedExecutor<byte[]> executor = new OrderedExecutor<byte[]>(threads, "SelfPlayGenerator", "A self-play game failed")) {
+            // Games are queued in order, across chunks so no thread waits at the end of one, and
+            // taken in order; a chunk is written as soon as its last game is taken
+            PrimitiveIterator.OfLong queue = missing.stream()
+                    .flatMapToLong(chunk -> LongStream.range(chunk * chunkGames, (chunk + 1) * chunkGames))
+                    .iterator();
+            ByteArrayOutputStream chunkData = new ByteArrayOutputStream();
+            long played = 0;
+            for (long chunk : missing) {
+                for (int i = 0; i < chunkGames; i++) {
+                    while (queue.hasNext() && !executor.isFull()) {
+                        long number = queue.nextLong();
+                        executor.submit(() -> players.get().play(number));
+                    }
+                    chunkData.write(executor.take());
+                }
+                writeChunk(directory, chunk, chunkData.toByteArray());
+                played += chunkGames;
+                if (verbose)
+                    System.out.printf("Chunk %d: %d positions, %d games in %.1f s%n", chunk,
+                            chunkData.size() / RECORD_BYTES, played, (System.nanoTime() - start) / 1e9);
+                chunkData.reset();
+            }
+            return played;
+        }
+    }
+
+    /**
+     * Returns the file of a chunk in the directory.
+     */
+    public static Path chunkPath(Path directory, long chunk) {
+        return directory.resolve(String.format("chunk-%05d.bin", chunk));
+    }
+
+    private static void writeChunk(Path directory, long chunk, byte[] data) throws IOException {
+        // Written under another name first, so a chunk file is never incomplete
+        Path path = chunkPath(directory, chunk);
+        Path partial = directory.resolve(path.getFileName() + ".part");
+        Files.write(partial, data);
+        Files.move(partial, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Writes the settings to the directory, or checks that they are those already there.
+     */
+    private void checkSettings(Path directory) throws IOException {
+        String settings = "depth " + depth + "\nplies " + plies + "\nevaluation " + evaluation + "\nexact " + exactEmpties
+                + "\nchunk " + chunkGames + "\nseed " + seed + "\n";
+        Path path = directory.resolve("settings.txt");
+        if (!Files.exists(path)) {
+            Files.write(path, settings.getBytes(StandardCharsets.UTF_8));
+        } else if (!new String(Files.readAllBytes(path), StandardCharsets.UTF_8).equals(settings)) {
+            throw new IllegalArgumentException(directory + " holds positions generated with other settings, see " + path);
+        }
+    }
+
+    /**
+     * The searcher and solver of one thread. They are reused from game to game to save allocating
+     * their tables, but the searcher forgets the earlier games before each one, so the moves of a
+     * game do not depend on which games the thread played before. The solver's table only speeds
+     * it up; its scores are exact either way.
+     */
+    private class Player {
+        private final MinimaxAI searcher = new MinimaxAI(depth);
+        private final EndgameSolver solver = exactEmpties > 0 ? new EndgameSolver() : null;
+        private final EvaluatorChoice evaluators = new EvaluatorChoice(evaluation);
+
+        /**
+         * Plays game number n and returns its positions as records.
+         */
+        byte[] play(long n) throws IOException {
+            GameState state = Openings.random(new Random(seed * 1_000_003 + n), 8, plies);
+            searcher.setEvaluator(evaluators.forPosition(state));
+            searcher.clear();
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(60 * RECORD_BYTES);
+            DataOutputStream records = new DataOutputStream(bytes);
+            List<Integer> exact = new ArrayList<Integer>();
+            while (!state.isFinished()) {
+                BatchAnalyzer.writeBinary(state, records);
+                records.writeShort(0); // The labels, filled in below
+                int[] tokens = state.countTokens();
+                if (solver != null && 64 - tokens[0] - tokens[1] <= exactEmpties)
+                    exact.add(solver.solve(state, Long.MAX_VALUE).score);
+                else
+                    exact.add((int) NO_EXACT);
+                Position move = searcher.findBestMove(state, state.getPlayerInTurn()).move;
+                if (move == null || !state.insertToken(move))
+                    throw new IllegalStateException("MinimaxAI chose an invalid move (position " + move + ")");
+                if (!state.hasAnyLegalMove())
+                    state.changePlayer();
+            }
+            int[] tokens = state.countTokens();
+            byte[] data = bytes.toByteArray();
+            for (int i = 0; i < exact.size(); i++) {
+                data[i * RECORD_BYTES + 17] = (byte) (tokens[0] - tokens[1]);
+                data[i * RECORD_BYTES + 18] = (byte) (int) exact.get(i);
+            }
+            return data;
+        }
+    }
+
+    /**
+     * Reads the positions of a chunk file.
+     */
+    public static List<Sample> readChunk(Path chunk) throws IOException {
+        try (InputStream stream = Files.newInputStream(chunk)) {
+            return read(stream);
+        }
+    }
+
+    /**
+     * Reads positions written by the generator until the end of the stream.
+     */
+    public static List<Sample> read(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream, 1 << 16));
+        List<Sample> samples = new ArrayList<Sample>();
+        while (true) {
+            long black;
+            try {
+                black = in.readLong();
+            } catch (EOFException e) {
+                return samples;
+            }
+            long white = in.readLong();
+            int player = in.readByte();
+            int result = in.readByte();
+            int exact = in.readByte();
+            samples.add(new Sample(black, white, player, result, exact));
+        }
+    }
+}
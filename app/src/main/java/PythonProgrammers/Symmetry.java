@@ -0,0 +1,185 @@
+package PythonProgrammers;
+import Provided.GameState;
+import Provided.Position;
+
+/**
+ * The 8 rotations and reflections of a square board, and the canonical orientation of a position:
+ * the one that all 8 symmetric versions of it turn into. Books, caches and training data that store
+ * positions in their canonical orientation hold each position once instead of up to 8 times.
+ *
+ * A symmetry t is a number from 0 to 7 (IDENTITY is 0). Bit 1 mirrors the columns (col becomes
+ * size-1-col), bit 2 mirrors the rows, and bit 4 then swaps columns and rows. Moves found in the
+ * canonical orientation are turned back with the inverse symmetry.
+ *
+ * On 8x8 boards the symmetries are applied to whole bitboards with a few bit operations; other
+ * (even) sizes go square by square over the board array.
+ */
+public final class Symmetry {
+    public static final int COUNT = 8;
+    public static final int IDENTITY = 0;
+
+    private static final long WHITE_TO_MOVE = 0x9E3779B97F4A7C15L; // Distinguishes the player in turn in keys
+
+    private Symmetry() {
+    }
+
+    /**
+     * Returns the symmetry that undoes t.
+     */
+    public static int inverse(int t) {
+        // Swapping columns and rows last is undone by swapping first, which is the same as
+        // swapping last after mirroring the other way
+        return (t & 4) == 0 ? t : 4 | (t & 1) << 1 | (t & 2) >> 1;
+    }
+
+    /**
+     * Returns where a square (col*size + row) goes under the symmetry.
+     */
+    public static int square(int square, int size, int t) {
+        int col = square / size;
+        int row = square % size;
+        if ((t & 1) != 0)
+            col = size - 1 - col;
+        if ((t & 2) != 0)
+            row = size - 1 - row;
+        return (t & 4) != 0 ? row * size + col : col * size + row;
+    }
+
+    /**
+     * Returns where a move goes under the symmetry.
+     */
+    public static Position move(Position move, int size, int t) {
+        int square = square(move.getCol() * size + move.getRow(), size, t);
+        return new Position(square / size, square % size);
+    }
+
+    /**
+     * Applies the symmetry to an 8x8 bitboard (bit col*8 + row).
+     */
+    public static long transform(long bits, int t) {
+        if ((t & 1) != 0)
+            bits = Long.reverseBytes(bits); // A column is a byte
+        if ((t & 2) != 0)
+            bits = Long.reverse(Long.reverseBytes(bits)); // Reverses the bits within each byte
+        if ((t & 4) != 0)
+            bits = transpose(bits);
+        return bits;
+    }
+
+    /**
+     * Swaps columns and rows of an 8x8 bitboard: bit col*8 + row goes to row*8 + col. Swaps the
+     * off-diagonal 4x4 blocks, then the 2x2 blocks within them, then single squares.
+     */
+    private static long transpose(long x) {
+        long t = 0x0F0F0F0F00000000L & (x ^ (x << 28));
+        x ^= t ^ (t >>> 28);
+        t = 0x3333000033330000L & (x ^ (x << 14));
+        x ^= t ^ (t >>> 14);
+        t = 0x5500550055005500L & (x ^ (x << 7));
+        x ^= t ^ (t >>> 7);
+        return x;
+    }
+
+    /**
+     * Applies the symmetry to a board array (board[col][row]), returning a new array.
+     */
+    public static int[][] transform(int[][] board, int t) {
+        int size = board.length;
+        int[][] result = new int[size][size];
+        for (int col = 0; col < size; col++) {
+            for (int row = 0; row < size; row++) {
+                int square = square(col * size + row, size, t);
+                result[square / size][square % size] = board[col][row];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a symmetry that turns the position into its canonical orientation. On 8x8 boards
+     * this is the orientation with the smallest (black, white) bitboards as unsigned numbers;
+     * otherwise the one whose squares, read in order, come first. Symmetric positions have several
+     * such symmetries, and any of them may be returned.
+     */
+    public static int canonical(GameState state) {
+        if (state.usesBitboard())
+            return canonical(state.getBitboard(1), state.getBitboard(2));
+        return canonicalSquares(state);
+    }
+
+    private static int canonicalSquares(GameState state) {
+        int size = state.getSize();
+        int best = IDENTITY;
+        for (int t = 1; t < COUNT; t++) {
+            // Compare square by square what the two orientations have at each square
+            int undoT = inverse(t);
+            int undoBest = inverse(best);
+            for (int square = 0; square < size * size; square++) {
+                int a = squareValue(state, square(square, size, undoT));
+                int b = squareValue(state, square(square, size, undoBest));
+                if (a != b) {
+                    if (a < b)
+                        best = t;
+                    break;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the symmetry that gives the smallest (black, white) pair of 8x8 bitboards.
+     */
+    public static int canonical(long black, long white) {
+        int best = IDENTITY;
+        long bestBlack = black;
+        long bestWhite = white;
+        for (int t = 1; t < COUNT; t++) {
+            long b = transform(black, t);
+            long w = transform(white, t);
+            if (Long.compareUnsigned(b, bestBlack) < 0 || (b == bestBlack && Long.compareUnsigned(w, bestWhite) < 0)) {
+                best = t;
+                bestBlack = b;
+                bestWhite = w;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns a 64-bit hash of the position in its canonical orientation and the player in turn,
+     * which is the same for all symmetric versions of a position.
+     */
+    public static long canonicalKey(GameState state) {
+        int player = state.getPlayerInTurn();
+        if (state.usesBitboard()) {
+            long black = state.getBitboard(1);
+            long white = state.getBitboard(2);
+            int t = canonical(black, white);
+            return key(transform(black, t), transform(white, t), player);
+        }
+        int size = state.getSize();
+        int undo = inverse(canonicalSquares(state));
+        long hash = size;
+        for (int square = 0; square < size * size; square++)
+            hash = mix(hash + squareValue(state, square(square, size, undo)));
+        return hash ^ (player == 2 ? WHITE_TO_MOVE : 0);
+    }
+
+    private static long key(long black, long white, int player) {
+        return mix(mix(black) ^ white) ^ (player == 2 ? WHITE_TO_MOVE : 0);
+    }
+
+    /**
+     * The finalizer of SplitMix64: spreads every bit of the input over the whole result.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static int squareValue(GameState state, int square) {
+        return state.getToken(square / state.getSize(), square % state.getSize());
+    }
+}
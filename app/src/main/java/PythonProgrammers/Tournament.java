@@ -0,0 +1,320 @@
+package PythonProgrammers;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.reflect.Constructor;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import Provided.GameState;
+import Provided.IOthelloAI;
+
+/**
+ * Plays many headless games between bot variants on all cores and reports how they compare.
+ *
+ * Bots are given as class names, optionally followed by constructor arguments, for example
+ * "PythonProgrammers.OurBot:4" or "PythonProgrammers.OurBot:6,32". In a round robin every bot
+ * plays every other bot; in a gauntlet the first bot plays each of the others. Each match is a
+ * number of random openings, no two of them rotations or reflections of each other, and every
+ * opening is played twice with the colours swapped, so no bot profits from a lucky opening or from
+ * playing black.
+ *
+ * For every pair of bots the wins, draws and losses, the score and the Elo difference with a 95%
+ * confidence interval are printed, and for every bot the average time per move.
+ *
+ * With --archive every game is also appended to a GameArchive.
+ *
+ * Arguments: [--gauntlet] [--openings n] [--plies n] [--size n] [--threads n] [--seed n]
+ * [--csv file] [--archive file] bot1 bot2 [bot3 ...]
+ */
+public class Tournament {
+    private final List<String> bots;
+    private final boolean gauntlet;
+    private final int openings;     // Openings per pair of bots; each is played with both colours
+    private final int openingPlies; // Random moves at the start of each opening
+    private final int size;
+    private final int threads;
+    private final long seed;
+    private GameArchive.Writer archive; // null if the games are not kept
+
+    public Tournament(List<String> bots, boolean gauntlet, int openings, int openingPlies, int size, int threads, long seed) {
+        if (bots.size() < 2)
+            throw new IllegalArgumentException("A tournament needs at least two bots");
+        this.bots = new ArrayList<String>(bots);
+        this.gauntlet = gauntlet;
+        this.openings = openings;
+        this.openingPlies = openingPlies;
+        this.size = size;
+        this.threads = threads;
+        this.seed = seed;
+    }
+
+    public static void main(String[] args) throws Exception {
+        boolean gauntlet = false;
+        int openings = 50;
+        int plies = 6;
+        int size = 8;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seed = 1;
+        String csv = null;
+        String archive = null;
+        List<String> bots = new ArrayList<String>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--gauntlet": gauntlet = true; break;
+                case "--openings": openings = Integer.parseInt(args[++i]); break;
+                case "--plies": plies = Integer.parseInt(args[++i]); break;
+                case "--size": size = Integer.parseInt(args[++i]); break;
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                case "--csv": csv = args[++i]; break;
+                case "--archive": archive = args[++i]; break;
+                default: bots.add(args[i]);
+            }
+        }
+        if (bots.size() < 2) {
+            System.err.println("Usage: java PythonProgrammers.Tournament [--gauntlet] [--openings n] [--plies n] [--size n] "
+                    + "[--threads n] [--seed n] [--csv file] [--archive file] bot1 bot2 [bot3 ...]");
+            System.exit(1);
+        }
+        Tournament tournament = new Tournament(bots, gauntlet, openings, plies, size, threads, seed);
+        long start = System.nanoTime();
+        List<MatchResult> results;
+        try (GameArchive.Writer writer = archive == null ? null : new GameArchive.Writer(Paths.get(archive))) {
+            tournament.setArchive(writer);
+            results = tournament.run();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        tournament.print(results);
+        int games = 0;
+        for (MatchResult result : results)
+            games += result.games();
+        System.out.printf("%d games in %.1f s on %d threads (%.0f games per minute)%n", games, seconds, threads, games / seconds * 60);
+        if (csv != null)
+            writeCsv(results, csv);
+    }
+
+    /**
+     * Appends every game played from now on to the archive, or to none if it is null.
+     */
+    public void setArchive(GameArchive.Writer archive) {
+        this.archive = archive;
+    }
+
+    /**
+     * Plays all games and returns the results, one per pair of bots.
+     */
+    public List<MatchResult> run() throws InterruptedException, ExecutionException {
+        List<MatchResult> results = new ArrayList<MatchResult>();
+        for (int a = 0; a < bots.size(); a++)
+            for (int b = a + 1; b < bots.size() && (!gauntlet || a == 0); b++)
+                results.add(new MatchResult(bots.get(a), bots.get(b)));
+
+        GameState[] startPositions = Openings.distinct(new Random(seed), size, openingPlies, openings);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> games = new ArrayList<Future<?>>();
+            for (MatchResult result : results)
+                for (GameState opening : startPositions)
+                    games.add(pool.submit(() -> {
+                        playPair(result, opening);
+                        return null;
+                    }));
+            for (Future<?> game : games)
+                game.get();
+        } finally {
+            pool.shutdownNow();
+        }
+        return results;
+    }
+
+    /**
+     * Plays the opening twice, with each bot as black once. The bots are created for every game,
+     * since bots keep state (tables, killer moves) from game to game: reused, a game would depend
+     * on which games the thread happened to play before it, and the two entrants of a mirror
+     * match would be one bot.
+     */
+    private void playPair(MatchResult result, GameState opening) throws IOException {
+        GameResult firstBlack = MatchRunner.play(createBot(result.first), createBot(result.second), new GameState(opening));
+        result.add(firstBlack, true);
+        GameResult secondBlack = MatchRunner.play(createBot(result.second), createBot(result.first), new GameState(opening));
+        result.add(secondBlack, false);
+        if (archive != null) {
+            archive.append(result.first, result.second, opening, firstBlack);
+            archive.append(result.second, result.first, opening, secondBlack);
+        }
+    }
+
+    /**
+     * Creates a bot from "ClassName" or "ClassName:arg1,arg2,...", using a public constructor
+     * with that many parameters. Parameters can be int, long, double, boolean or String. If several
+     * constructors have that many parameters, each is tried until the arguments fit one of them.
+     */
+    public static IOthelloAI createBot(String spec) {
+        String[] parts = spec.split(":", 2);
+        String[] values = parts.length > 1 ? parts[1].split(",") : new String[0];
+        Constructor<?>[] constructors;
+        try {
+            constructors = Class.forName(parts[0]).getConstructors();
+        } catch (ClassNotFoundException e) {
+            throw new IllegalArgumentException("Could not create bot " + spec, e);
+        }
+        Exception failure = null;
+        for (Constructor<?> constructor : constructors) {
+            if (constructor.getParameterCount() != values.length)
+                continue;
+            Class<?>[] types = constructor.getParameterTypes();
+            Object[] arguments = new Object[values.length];
+            try {
+                for (int i = 0; i < values.length; i++)
+                    arguments[i] = parse(values[i].trim(), types[i]);
+                return (IOthelloAI) constructor.newInstance(arguments);
+            } catch (IllegalArgumentException | ReflectiveOperationException e) {
+                if (failure == null)
+                    failure = e;
+                else
+                    failure.addSuppressed(e);
+            }
+        }
+        if (failure != null)
+            throw new IllegalArgumentException("Could not create bot " + spec, failure);
+        throw new IllegalArgumentException("No public constructor with " + values.length + " parameters for bot " + spec);
+    }
+
+    private static Object parse(String value, Class<?> type) {
+        if (type == int.class) return Integer.parseInt(value);
+        if (type == long.class) return Long.parseLong(value);
+        if (type == double.class) return Double.parseDouble(value);
+        if (type == boolean.class) return Boolean.parseBoolean(value);
+        if (type == String.class) return value;
+        throw new IllegalArgumentException("Unsupported constructor parameter type " + type.getName());
+    }
+
+    private void print(List<MatchResult> results) {
+        System.out.printf("%-40s %-40s %6s %6s %6s %7s %16s%n", "Bot", "Opponent", "W", "D", "L", "Score", "Elo (95%)");
+        for (MatchResult r : results) {
+            double[] elo = r.elo();
+            System.out.printf("%-40s %-40s %6d %6d %6d %6.1f%% %+7.0f +/- %-5.0f%n",
+                    r.first, r.second, r.wins, r.draws, r.losses, 100 * r.score(), elo[0], elo[1]);
+        }
+        System.out.println();
+        System.out.printf("%-40s %10s%n", "Bot", "ms/move");
+        for (String bot : bots) {
+            long nanos = 0;
+            long moves = 0;
+            for (MatchResult r : results) {
+                if (r.first.equals(bot)) {
+                    nanos += r.firstNanos;
+                    moves += r.firstMoves;
+                } else if (r.second.equals(bot)) {
+                    nanos += r.secondNanos;
+                    moves += r.secondMoves;
+                }
+            }
+            System.out.printf("%-40s %10.3f%n", bot, moves == 0 ? 0 : nanos / 1e6 / moves);
+        }
+    }
+
+    /**
+     * Writes one line per pair of bots to a CSV file. Bot names are quoted as in RFC 4180, since
+     * their constructor arguments are separated by commas, and numbers use a dot whatever the locale.
+     */
+    public static void writeCsv(List<MatchResult> results, String file) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(Paths.get(file)))) {
+            out.println("bot,opponent,wins,draws,losses,score,elo,elo_error,bot_ms_per_move,opponent_ms_per_move");
+            for (MatchResult r : results) {
+                double[] elo = r.elo();
+                out.printf(Locale.ROOT, "%s,%s,%d,%d,%d,%.4f,%.1f,%.1f,%.4f,%.4f%n", csvField(r.first), csvField(r.second),
+                        r.wins, r.draws, r.losses, r.score(), elo[0], elo[1], r.firstNanos / 1e6 / Math.max(r.firstMoves, 1),
+                        r.secondNanos / 1e6 / Math.max(r.secondMoves, 1));
+            }
+        }
+    }
+
+    private static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0)
+            return value;
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * The games between two bots, counted from the first bot's point of view.
+     */
+    public static class MatchResult {
+        public final String first;
+        public final String second;
+        public int wins;
+        public int draws;
+        public int losses;
+        public long firstNanos;
+        public long firstMoves;
+        public long secondNanos;
+        public long secondMoves;
+
+        public MatchResult(String first, String second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        synchronized void add(GameResult game, boolean firstIsBlack) {
+            int firstColour = firstIsBlack ? 1 : 2;
+            int winner = game.getWinner();
+            if (winner == 0)
+                draws++;
+            else if (winner == firstColour)
+                wins++;
+            else
+                losses++;
+            int secondColour = 3 - firstColour;
+            firstNanos += game.thinkNanos[firstColour - 1];
+            firstMoves += game.moveCount[firstColour - 1];
+            secondNanos += game.thinkNanos[secondColour - 1];
+            secondMoves += game.moveCount[secondColour - 1];
+        }
+
+        public int games() {
+            return wins + draws + losses;
+        }
+
+        /**
+         * Returns the fraction of the points won by the first bot (a draw is half a point).
+         */
+        public double score() {
+            return games() == 0 ? 0.5 : (wins + 0.5 * draws) / games();
+        }
+
+        /**
+         * Returns the Elo difference of the first bot over the second and the half-width of its 95%
+         * confidence interval. The interval is the Wilson score interval of the score converted to
+         * Elo, so it does not shrink to nothing when every game ended the same way, as the normal
+         * approximation does. A score of 0% or 100% is treated as half a game less extreme, so the
+         * numbers stay finite.
+         */
+        public double[] elo() {
+            int n = games();
+            if (n == 0)
+                return new double[]{0, 0};
+            double s = score();
+            double z = 1.96;
+            double z2 = z * z;
+            double centre = (s + z2 / (2 * n)) / (1 + z2 / n);
+            double margin = z / (1 + z2 / n) * Math.sqrt(s * (1 - s) / n + z2 / (4.0 * n * n));
+            double low = toElo(centre - margin, n);
+            double high = toElo(centre + margin, n);
+            return new double[]{toElo(s, n), (high - low) / 2};
+        }
+
+        private static double toElo(double score, int games) {
+            double limit = 0.5 / games;
+            score = Math.max(limit, Math.min(1 - limit, score));
+            return -400 * Math.log10(1 / score - 1);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package PythonProgrammers;
+import java.util.Arrays;
+
+/**
+ * Fixed-size transposition table for the minimax search, indexed by GameState.getHash().
+ *
+ * Each entry remembers the score of a searched position, how deep it was searched, whether the
+ * score is exact or only a bound, and the best move found. The table is made of two primitive
+ * arrays so that probing and storing never allocate. When two positions map to the same slot the
+ * deeper search is kept, except that entries from earlier calls to findBestMove are always replaced.
+ *
+ * The table can be shared by several search threads without locking: the key is stored XOR'ed with
+ * the entry, so an entry that was half overwritten by another thread no longer matches its key
+ * and is treated as missing.
+ */
+public class TranspositionTable {
+    public static final int EXACT = 0; // The score is the minimax value
+    public static final int LOWER = 1; // The minimax value is at least the score (the search failed high)
+    public static final int UPPER = 2; // The minimax value is at most the score (the search failed low)
+
+    private static final int BYTES_PER_ENTRY = 16;
+
+    private final long[] keys; // The hash of each stored position XOR'ed with its entry
+    private final long[] entries; // Packed: score (32 bits), depth (8), flag (2), move + 1 (16), generation (5), valid (1)
+    private final int mask;
+    private int generation; // Incremented for every new search, so old entries can be told apart
+
+    /**
+     * @param megabytes The memory to use for the table; rounded down to a power of two number of entries.
+     */
+    public TranspositionTable(int megabytes) {
+        long wanted = Math.max(1L, (long) megabytes * 1024 * 1024 / BYTES_PER_ENTRY);
+        int size = Integer.highestOneBit((int) Math.min(wanted, 1 << 30));
+        keys = new long[size];
+        entries = new long[size];
+        mask = size - 1;
+    }
+
+    /**
+     * Marks the start of a new search. Entries stored before are still used, but are replaced first.
+     */
+    public void newSearch() {
+        generation = (generation + 1) & 31;
+    }
+
+    /**
+     * Removes all entries, leaving the table as it was when it was made.
+     */
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(entries, 0);
+        generation = 0;
+    }
+
+    /**
+     * Looks up a position.
+     * @param key The hash of the position.
+     * @return The packed entry, to be read with score(), depth(), flag() and move(), or 0 if the position is not in the table.
+     */
+    public long probe(long key) {
+        int index = (int) key & mask;
+        long entry = entries[index];
+        return (keys[index] ^ entry) == key ? entry : 0;
+    }
+
+    /**
+     * Stores the result of searching a position, unless its slot holds a deeper search from the current search.
+     * @param key The hash of the position.
+     * @param depth The remaining depth the position was searched to.
+     * @param flag EXACT, LOWER or UPPER.
+     * @param score The score found.
+     * @param move The best move found (a square), or -1 if none.
+     */
+    public void store(long key, int depth, int flag, int score, int move) {
+        int index = (int) key & mask;
+        long old = entries[index];
+        if (old != 0 && (keys[index] ^ old) != key && generation(old) == generation && depth(old) > depth)
+            return;
+        long entry = (score & 0xFFFFFFFFL)
+                | ((long) Math.min(depth, 255) << 32)
+                | ((long) flag << 40)
+                | ((long) ((move + 1) & 0xFFFF) << 42)
+                | ((long) generation << 58)
+                | (1L << 63);
+        keys[index] = key ^ entry;
+        entries[index] = entry;
+    }
+
+    /**
+     * Returns the number of entries the table can hold.
+     */
+    public int capacity() {
+        return entries.length;
+    }
+
+    public static int score(long entry) {
+        return (int) entry;
+    }
+
+    public static int depth(long entry) {
+        return (int) (entry >>> 32) & 0xFF;
+    }
+
+    public static int flag(long entry) {
+        return (int) (entry >>> 40) & 3;
+    }
+
+    public static int move(long entry) {
+        return (int) ((entry >>> 42) & 0xFFFF) - 1;
+    }
+
+    private static int generation(long entry) {
+        return (int) (entry >>> 58) & 31;
+    }
+}
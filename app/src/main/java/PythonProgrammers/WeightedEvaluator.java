@@ -0,0 +1,131 @@
+package PythonProgrammers;
+import Provided.BitBoard;
+import Provided.GameState;
+
+/**
+ * Evaluates a position as the sum of a weight for every square holding a black token, minus the
+ * same for white, plus a weight times the difference in the number of legal moves (mobility).
+ *
+ * The square sum is updated from the placed and flipped squares of each move, so only mobility
+ * needs the board to be looked at when a position is evaluated. On 8x8 boards mobility is counted
+ * directly on the bitboards.
+ *
+ * The default weights are 1 per token, 8 more for a corner and 5 more for an edge square (corners
+ * are edge squares too), and 3 per legal move, which is the evaluation MinimaxAI always used.
+ */
+public class WeightedEvaluator implements Evaluator {
+    public static final int DEFAULT_MOBILITY_WEIGHT = 3;
+
+    private final int[] fixedWeights; // The weights given to the constructor, or null for the defaults
+    private final int mobilityWeight;
+    private int[] weights;            // Weight of each square (col*size + row) of the current board
+    private int[] flipped;            // Scratch buffer for the flipped squares of a move
+    private int[] moves;              // Scratch buffer for counting legal moves on boards other than 8x8
+    private int sum;                  // Sum of the weights of black's squares minus those of white's
+
+    /**
+     * Uses the default weights for whatever size the board has.
+     */
+    public WeightedEvaluator() {
+        this(null, DEFAULT_MOBILITY_WEIGHT);
+    }
+
+    /**
+     * @param squareWeights The weight of each square, indexed by col*size + row, so the evaluator
+     *                      can only be used on boards of that size.
+     * @param mobilityWeight The weight of each legal move more than the opponent has.
+     */
+    public WeightedEvaluator(int[] squareWeights, int mobilityWeight) {
+        this.fixedWeights = squareWeights == null ? null : squareWeights.clone();
+        this.mobilityWeight = mobilityWeight;
+    }
+
+    /**
+     * Returns the default weights for a board of the given size: 14 for a corner, 6 for another
+     * edge square and 1 for the rest.
+     */
+    public static int[] defaultWeights(int size) {
+        int[] weights = new int[size * size];
+        int last = size - 1;
+        for (int col = 0; col < size; col++) {
+            for (int row = 0; row < size; row++) {
+                boolean colEdge = col == 0 || col == last;
+                boolean rowEdge = row == 0 || row == last;
+                weights[col * size + row] = 1 + (colEdge && rowEdge ? 8 : 0) + (colEdge || rowEdge ? 5 : 0);
+            }
+        }
+        return weights;
+    }
+
+    @Override
+    public void reset(GameState state) {
+        int size = state.getSize();
+        if (weights == null || weights.length != size * size) {
+            if (fixedWeights != null && fixedWeights.length != size * size)
+                throw new IllegalArgumentException("The weights are for " + fixedWeights.length + " squares, not " + size * size);
+            weights = fixedWeights != null ? fixedWeights : defaultWeights(size);
+            flipped = new int[size * size];
+            moves = new int[size * size];
+        }
+        sum = 0;
+        for (int col = 0; col < size; col++) {
+            for (int row = 0; row < size; row++) {
+                int token = state.getToken(col, row);
+                if (token == 1)
+                    sum += weights[col * size + row];
+                else if (token == 2)
+                    sum -= weights[col * size + row];
+            }
+        }
+    }
+
+    @Override
+    public void onMakeMove(GameState state, int undo) {
+        int change = change(state, undo);
+        sum += state.getMovePlayer(undo) == 1 ? change : -change;
+    }
+
+    @Override
+    public void onUnmakeMove(GameState state, int undo) {
+        int change = change(state, undo);
+        sum -= state.getMovePlayer(undo) == 1 ? change : -change;
+    }
+
+    /**
+     * How much the move raised the sum of the mover: the placed square, and every flipped square
+     * twice since the opponent loses it.
+     */
+    private int change(GameState state, int undo) {
+        int change = weights[state.getMoveSquare(undo)];
+        int count = state.getFlippedSquares(undo, flipped);
+        for (int i = 0; i < count; i++)
+            change += 2 * weights[flipped[i]];
+        return change;
+    }
+
+    @Override
+    public int evaluate(GameState state) {
+        return sum + mobilityWeight * mobility(state);
+    }
+
+    /**
+     * Returns the number of legal moves of black minus those of white.
+     */
+    private int mobility(GameState state) {
+        if (state.usesBitboard()) {
+            long black = state.getBitboard(1);
+            long white = state.getBitboard(2);
+            return Long.bitCount(BitBoard.moves(black, white)) - Long.bitCount(BitBoard.moves(white, black));
+        }
+        int mine = state.legalMoves(moves);
+        state.changePlayer();
+        int theirs = state.legalMoves(moves);
+        state.changePlayer();
+        return state.getPlayerInTurn() == 1 ? mine - theirs : theirs - mine;
+    }
+
+    @Override
+    public Evaluator copy() {
+        return new WeightedEvaluator(fixedWeights, mobilityWeight);
+    }
+}
@@ -0,0 +1,97 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import Provided.GameState;
+import PythonProgrammers.BatchAnalyzer;
+import PythonProgrammers.BoardText;
+import PythonProgrammers.Openings;
+
+public class BatchAnalyzerTest{
+
+    @Test
+    public void ResultsComeInTheOrderOfThePositions() throws Exception{
+        GameState[] positions = Openings.distinct(new Random(23), 8, 12, 30);
+        List<BatchAnalyzer.Result> results = new ArrayList<BatchAnalyzer.Result>();
+        new BatchAnalyzer(4, 0, 2, 1, "pattern").analyze(Arrays.asList(positions).iterator(), results::add);
+        assertEquals(positions.length, results.size());
+        for (int i = 0; i < positions.length; i++){
+            BatchAnalyzer.Result result = results.get(i);
+            assertEquals(i, result.index);
+            assertSame(positions[i], result.position);
+            assertTrue(positions[i].legalMoves().contains(result.move));
+            assertEquals(4, result.depth);
+            assertTrue(result.nodes > 0);
+            //the principal variation starts with the best move
+            assertEquals(result.move, result.principalVariation.get(0));
+        }
+    }
+
+    @Test
+    public void ResultsDoNotDependOnTheNumberOfThreads() throws Exception{
+        List<GameState> positions = new ArrayList<GameState>();
+        Random random = new Random(26);
+        for (int i = 0; i < 40; i++)
+            positions.add(Openings.random(random, 8, 10 + i % 20));
+        List<BatchAnalyzer.Result> one = new ArrayList<BatchAnalyzer.Result>();
+        List<BatchAnalyzer.Result> four = new ArrayList<BatchAnalyzer.Result>();
+        new BatchAnalyzer(5, 0, 1, 1, "pattern").analyze(positions.iterator(), one::add);
+        new BatchAnalyzer(5, 0, 4, 1, "pattern").analyze(positions.iterator(), four::add);
+        //one thread searched every position after all the ones before it, four threads each only some
+        for (int i = 0; i < positions.size(); i++)
+            assertEquals(one.get(i).toJson(), four.get(i).toJson());
+    }
+
+    @Test
+    public void BinaryPositionsReadBackAsWritten() throws Exception{
+        GameState[] positions = Openings.distinct(new Random(24), 8, 20, 10);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (GameState position : positions)
+            BatchAnalyzer.writeBinary(position, out);
+        out.flush();
+        assertEquals(17 * positions.length, bytes.size());
+        Iterator<GameState> read = BatchAnalyzer.readBinary(new ByteArrayInputStream(bytes.toByteArray()));
+        for (GameState position : positions){
+            assertTrue(read.hasNext());
+            GameState back = read.next();
+            assertArrayEquals(position.getBoard(), back.getBoard());
+            assertEquals(position.getPlayerInTurn(), back.getPlayerInTurn());
+        }
+        assertFalse(read.hasNext());
+    }
+
+    @Test
+    public void ProgramWritesALinePerPosition() throws Exception{
+        GameState[] positions = Openings.distinct(new Random(25), 8, 16, 5);
+        Path in = Files.createTempFile("positions", ".txt");
+        Path out = Files.createTempFile("analysis", ".jsonl");
+        try {
+            StringBuilder text = new StringBuilder("# positions to analyse\n\n");
+            for (GameState position : positions)
+                text.append(BoardText.format(position)).append('\n');
+            Files.write(in, text.toString().getBytes(StandardCharsets.UTF_8));
+            BatchAnalyzer.main(new String[]{"--depth", "3", "--threads", "2", "--table", "1", in.toString(), out.toString()});
+            List<String> lines = Files.readAllLines(out, StandardCharsets.UTF_8);
+            assertEquals(positions.length, lines.size());
+            for (int i = 0; i < positions.length; i++){
+                assertTrue(lines.get(i), lines.get(i).startsWith("{\"index\":" + i + ",\"position\":\"" + BoardText.format(positions[i]) + "\""));
+                assertTrue(lines.get(i), lines.get(i).contains("\"depth\":3,"));
+            }
+        } finally {
+            Files.deleteIfExists(in);
+            Files.deleteIfExists(out);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+import java.util.Random;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import Provided.GameState;
+import Provided.Position;
+import PythonProgrammers.BoardText;
+import PythonProgrammers.Openings;
+
+public class BoardTextTest{
+
+    @Test
+    public void StartPosition(){
+        assertEquals("---------------------------XO------OX--------------------------- X",
+                BoardText.format(new GameState(8, 1)));
+    }
+
+    @Test
+    public void ParseUndoesFormat(){
+        Random random = new Random(3);
+        for (int size : new int[]{6, 8, 10}){
+            for (int i = 0; i < 20; i++){
+                GameState state = Openings.random(random, size, random.nextInt(size * size - 4));
+                GameState parsed = BoardText.parse(BoardText.format(state));
+                assertArrayEquals(state.getBoard(), parsed.getBoard());
+                assertEquals(state.getPlayerInTurn(), parsed.getPlayerInTurn());
+                assertEquals(state.getHash(), parsed.getHash());
+            }
+        }
+    }
+
+    @Test
+    public void MovesAreColumnLetterAndRowNumber(){
+        assertEquals("a1", BoardText.formatMove(new Position(0, 0)));
+        assertEquals("d3", BoardText.formatMove(new Position(3, 2)));
+        assertEquals("p16", BoardText.formatMove(new Position(15, 15)));
+        assertEquals("pass", BoardText.formatMove(null));
+        assertEquals(new Position(15, 15), BoardText.parseMove("p16"));
+        assertNull(BoardText.parseMove("pass"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void RejectsWrongLength(){
+        BoardText.parse("XO-- X");
+    }
+}
@@ -0,0 +1,92 @@
+import java.util.Random;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import Provided.GameState;
+import Provided.Position;
+import PythonProgrammers.EndgameSolver;
+import PythonProgrammers.MinimaxAI;
+
+public class EndgameSolverTest{
+
+    int positions = 100;    //Number of random endgame positions to check.
+    int empties = 9;        //Empty squares left in each position.
+
+    @Test
+    public void SolverMatchesFullMinimax(){
+        Random random = new Random(11);
+        EndgameSolver solver = new EndgameSolver();
+        for (int p = 0; p < positions; p++){
+            GameState state = randomPosition(random, 60 - empties);
+            if (state.isFinished() || !state.hasAnyLegalMove())
+                continue;
+            MinimaxAI.Pair solved = solver.solve(state, Long.MAX_VALUE);
+            assertEquals(exactScore(state), solved.score);
+            int undo = state.makeMove(solved.move);
+            assertTrue(undo >= 0);
+            assertEquals(solved.score, exactScore(state));   //the chosen move keeps the score
+            state.unmakeMove(undo);
+        }
+    }
+
+    @Test
+    public void SolverGivesUpAtDeadline(){
+        GameState state = randomPosition(new Random(5), 30);
+        assertNull(new EndgameSolver().solve(state, System.nanoTime()));
+    }
+
+    @Test
+    public void PositionWith33MovesIsAccepted(){
+        //black has 33 legal moves, more than any buffer for 32 would hold
+        long black = 0x400c81644100824L;
+        long white = 0x2c8168822661042L;
+        int[][] board = new int[8][8];
+        for (int square = 0; square < 64; square++)
+            board[square / 8][square % 8] = (black >>> square & 1) != 0 ? 1 : (white >>> square & 1) != 0 ? 2 : 0;
+        GameState state = new GameState(board, 1);
+        assertEquals(33, state.legalMoves().size());
+        assertNull(new EndgameSolver().solve(state, System.nanoTime()));
+    }
+
+    //Plain minimax to the end of the game: final black minus white tokens.
+    private static int exactScore(GameState state){
+        if (state.isFinished()){
+            int[] tokens = state.countTokens();
+            return tokens[0] - tokens[1];
+        }
+        int[] moves = new int[64];
+        int count = state.legalMoves(moves);
+        if (count == 0){
+            state.changePlayer();
+            int score = exactScore(state);
+            state.changePlayer();
+            return score;
+        }
+        boolean black = state.getPlayerInTurn() == 1;
+        int best = black ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        for (int i = 0; i < count; i++){
+            int undo = state.makeMove(moves[i]);
+            int score = exactScore(state);
+            state.unmakeMove(undo);
+            best = black ? Math.max(best, score) : Math.min(best, score);
+        }
+        return best;
+    }
+
+    private static GameState randomPosition(Random random, int plies){
+        GameState state = new GameState(8, 1);
+        int[] moves = new int[64];
+        for (int ply = 0; ply < plies && !state.isFinished(); ply++){
+            int count = state.legalMoves(moves);
+            if (count == 0){
+                state.changePlayer();
+                ply--;
+                continue;
+            }
+            state.makeMove(moves[random.nextInt(count)]);
+        }
+        return new GameState(state);
+    }
+
+}
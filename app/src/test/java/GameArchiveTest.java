@@ -0,0 +1,116 @@
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import Provided.DumAI;
+import Provided.GameState;
+import PythonProgrammers.GameArchive;
+import PythonProgrammers.GameResult;
+import PythonProgrammers.MatchRunner;
+import PythonProgrammers.Openings;
+import PythonProgrammers.OurBot;
+
+public class GameArchiveTest{
+
+    @Test
+    public void GamesReadBackAsWritten() throws Exception{
+        Path file = Files.createTempFile("games", ".oga");
+        Files.delete(file);
+        try {
+            GameState[] starts = {new GameState(8, 1), Openings.random(new Random(26), 8, 10), new GameState(6, 1)};
+            GameResult[] results = new GameResult[starts.length];
+            try (GameArchive.Writer writer = new GameArchive.Writer(file)){
+                for (int i = 0; i < starts.length; i++){
+                    results[i] = MatchRunner.play(new OurBot(2), new DumAI(), new GameState(starts[i]));
+                    writer.append("OurBot:2", "DumAI", starts[i], results[i]);
+                }
+            }
+            try (GameArchive.Reader reader = new GameArchive.Reader(file)){
+                assertEquals(starts.length, reader.size());
+                for (int i = 0; i < starts.length; i++){
+                    GameArchive.Game game = reader.game(i);
+                    assertEquals("OurBot:2", game.black);
+                    assertEquals("DumAI", game.white);
+                    assertEquals(starts[i].getSize(), game.size);
+                    assertEquals(results[i].getWinner(), game.getWinner());
+                    assertArrayEquals(starts[i].getBoard(), game.getStartPosition().getBoard());
+                    assertEquals(starts[i].getPlayerInTurn(), game.getStartPosition().getPlayerInTurn());
+                    GameResult back = game.toResult();
+                    assertArrayEquals(results[i].moves, back.moves);
+                    assertArrayEquals(results[i].moveCount, back.moveCount);
+                    assertEquals(results[i].thinkNanos[0] / 1000, back.thinkNanos[0] / 1000);
+                }
+            }
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(GameArchive.indexPath(file));
+        }
+    }
+
+    @Test
+    public void ReadersSkipGamesThatAreNotCompletelyWritten() throws Exception{
+        Path file = Files.createTempFile("games", ".oga");
+        Files.delete(file);
+        try {
+            try (GameArchive.Writer writer = new GameArchive.Writer(file)){
+                for (GameState start : Openings.distinct(new Random(28), 8, 6, 3))
+                    writer.append("DumAI", "DumAI", start, MatchRunner.play(new DumAI(), new DumAI(), new GameState(start)));
+                //games not flushed yet are not in the index
+                try (GameArchive.Reader reader = new GameArchive.Reader(file)){
+                    assertEquals(0, reader.size());
+                }
+            }
+            //cut the last game short, as if a copy was taken while it was written
+            long length = Files.size(file);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)){
+                channel.truncate(length - 5);
+            }
+            try (GameArchive.Reader reader = new GameArchive.Reader(file)){
+                assertEquals(2, reader.size());
+                reader.forEach(game -> game.replay(state -> {}));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(GameArchive.indexPath(file));
+        }
+    }
+
+    @Test
+    public void ReplayEndsWithTheFinalDiscs() throws Exception{
+        Path file = Files.createTempFile("games", ".oga");
+        Files.delete(file);
+        try {
+            //two writers, the second appending to what the first wrote
+            for (int session = 0; session < 2; session++){
+                try (GameArchive.Writer writer = new GameArchive.Writer(file)){
+                    for (GameState start : Openings.distinct(new Random(27 + session), 8, 6, 5))
+                        writer.append("DumAI", "OurBot:1", start, MatchRunner.play(new DumAI(), new OurBot(1), new GameState(start)));
+                }
+            }
+            try (GameArchive.Reader reader = new GameArchive.Reader(file)){
+                assertEquals(10, reader.size());
+                reader.forEach(game -> {
+                    GameState[] last = new GameState[1];
+                    int[] positions = new int[1];
+                    game.replay(state -> {
+                        last[0] = state;
+                        positions[0]++;
+                    });
+                    assertEquals(game.getMoveCount() + 1, positions[0]);
+                    assertTrue(last[0].isFinished());
+                    int[] tokens = last[0].countTokens();
+                    assertEquals(game.getBlackTokens(), tokens[0]);
+                    assertEquals(game.getWhiteTokens(), tokens[1]);
+                });
+            }
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(GameArchive.indexPath(file));
+        }
+    }
+}
@@ -0,0 +1,142 @@
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import Provided.GameState;
+import Provided.Position;
+
+public class GameStateTest{
+
+    int games = 200;    //Number of random games played on both representations.
+
+    @Test
+    public void StartPosition_n8_UsesBitboard(){
+        assertTrue(new GameState(8, 1).usesBitboard());
+        assertFalse(new GameState(6, 1).usesBitboard());
+    }
+
+    @Test
+    public void BitboardMatchesArray_RandomGames(){
+        Random random = new Random(42);
+        for (int g = 0; g < games; g++){
+            GameState start = new GameState(8, 1);
+            GameState bits = new GameState(start.getBoard(), 1, true);
+            GameState array = new GameState(start.getBoard(), 1, false);
+            while (!array.isFinished()){
+                assertFalse(bits.isFinished());
+                ArrayList<Position> moves = array.legalMoves();
+                assertEquals(moves, bits.legalMoves());
+                if (moves.isEmpty()){
+                    array.changePlayer();
+                    bits.changePlayer();
+                    continue;
+                }
+                Position move = moves.get(random.nextInt(moves.size()));
+                assertTrue(array.insertToken(move));
+                assertTrue(bits.insertToken(move));
+                assertArrayEquals(array.getBoard(), bits.getBoard());
+                assertArrayEquals(array.countTokens(), bits.countTokens());
+                assertEquals(array.getPlayerInTurn(), bits.getPlayerInTurn());
+                assertEquals(array.getHash(), bits.getHash());
+                assertEquals(new GameState(array.getBoard(), array.getPlayerInTurn()).getHash(), bits.getHash());
+            }
+            assertTrue(bits.isFinished());
+        }
+    }
+
+    @Test
+    public void LegalMoves_AreUnique(){
+        Random random = new Random(3);
+        int[] buffer = new int[64];
+        for (int g = 0; g < games; g++){
+            GameState state = new GameState(8, 1);
+            while (!state.isFinished()){
+                ArrayList<Position> moves = state.legalMoves();
+                int count = state.legalMoves(buffer);
+                assertEquals(moves.size(), count);
+                assertEquals(count > 0, state.hasAnyLegalMove());
+                for (int i = 1; i < count; i++)
+                    assertTrue(buffer[i-1] < buffer[i]);
+                if (count == 0){
+                    state.changePlayer();
+                    continue;
+                }
+                state.makeMove(buffer[random.nextInt(count)]);
+            }
+        }
+    }
+
+    @Test
+    public void UnmakeMove_RestoresState(){
+        Random random = new Random(7);
+        for (boolean useBitboard : new boolean[]{true, false}){
+            for (int g = 0; g < games; g++){
+                GameState state = new GameState(new GameState(8, 1).getBoard(), 1, useBitboard);
+                int[][][] boards = new int[64][][];
+                int[] players = new int[64];
+                long[] hashes = new long[64];
+                int[] undo = new int[64];
+                int made = 0;
+                while (!state.isFinished()){
+                    ArrayList<Position> moves = state.legalMoves();
+                    if (moves.isEmpty()){
+                        state.changePlayer();
+                        continue;
+                    }
+                    boards[made] = copy(state.getBoard());
+                    players[made] = state.getPlayerInTurn();
+                    hashes[made] = state.getHash();
+                    undo[made] = state.makeMove(moves.get(random.nextInt(moves.size())));
+                    assertEquals(made, undo[made]);
+                    made++;
+                }
+                while (made > 0){
+                    made--;
+                    state.unmakeMove(undo[made]);
+                    assertArrayEquals(boards[made], state.getBoard());
+                    assertEquals(players[made], state.getPlayerInTurn());
+                    assertEquals(hashes[made], state.getHash());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void ChangingTheBoardArray_LeavesTheState(){
+        for (boolean useBitboard : new boolean[]{true, false}){
+            GameState state = new GameState(new GameState(8, 1).getBoard(), 1, useBitboard);
+            int[][] board = state.getBoard();
+            board[0][0] = 1;
+            board[3][3] = 0;
+            assertEquals(0, state.getBoard()[0][0]);
+            assertEquals(1, state.getBoard()[3][3]);
+            assertEquals(1, state.getToken(3, 3));
+        }
+        for (int size : new int[]{6, 10}){
+            GameState state = new GameState(size, 1);
+            state.getBoard()[0][0] = 1;
+            assertEquals(0, state.getBoard()[0][0]);
+            assertEquals(0, state.getToken(0, 0));
+        }
+    }
+
+    @Test
+    public void IllegalMoves_AreRejected(){
+        GameState state = new GameState(8, 1);
+        assertFalse(state.insertToken(new Position(0, 0)));   //no capture
+        assertFalse(state.insertToken(new Position(3, 3)));   //occupied
+        assertFalse(state.insertToken(new Position(-1, -1))); //off the board
+        assertArrayEquals(new int[]{2, 2}, state.countTokens());
+        assertEquals(-1, state.makeMove(new Position(0, 0)));
+    }
+
+    private static int[][] copy(int[][] board){
+        int[][] result = new int[board.length][];
+        for (int i = 0; i < board.length; i++)
+            result[i] = board[i].clone();
+        return result;
+    }
+
+}
@@ -0,0 +1,29 @@
+import java.util.Random;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import Provided.GameState;
+import PythonProgrammers.MinimaxAI;
+import PythonProgrammers.Openings;
+
+public class IterativeDeepeningTest{
+
+    @Test
+    public void DeadlineEndsTheSearch(){
+        MinimaxAI ai = new MinimaxAI(30);
+        ai.setTimeLimit(50);
+        GameState[] positions = Openings.distinct(new Random(41), 8, 16, 10);
+        ai.findBestMove(positions[0], positions[0].getPlayerInTurn());   //so the table is allocated and the code compiled
+        for (GameState state : positions) {
+            long start = System.nanoTime();
+            MinimaxAI.Pair best = ai.findBestMove(state, state.getPlayerInTurn());
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            assertTrue(millis + " ms", millis < 10 * 50);   //generous, only catches a search that ignores the limit
+            assertTrue(state.legalMoves().contains(best.move));
+            assertTrue(ai.getLastDepth() >= 1);
+            assertTrue(ai.getLastDepth() < 30);   //the deadline ended the search, not the depth
+            assertEquals(best.move, ai.getPrincipalVariation().get(0));   //the move of the last completed iteration
+        }
+    }
+}
@@ -0,0 +1,30 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import Provided.DumAI;
+import PythonProgrammers.GameResult;
+import PythonProgrammers.MatchRunner;
+import PythonProgrammers.OurBot;
+
+public class MatchRunnerTest{
+
+    @Test
+    public void WinningAsBlack_n8(){
+        GameResult result = MatchRunner.play(new OurBot(), new DumAI(), 8);
+        assertEquals(1, result.getWinner());
+    }
+
+    @Test
+    public void WinningAsWhite_n8(){
+        GameResult result = MatchRunner.play(new DumAI(), new OurBot(), 8);
+        assertEquals(2, result.getWinner());
+    }
+
+    @Test
+    public void WinningAsBlack_n6(){
+        GameResult result = MatchRunner.play(new OurBot(), new DumAI(), 6);
+        assertEquals(1, result.getWinner());
+        assertEquals(result.moves.length, result.moveCount[0] + result.moveCount[1]);
+    }
+
+}
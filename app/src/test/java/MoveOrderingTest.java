@@ -0,0 +1,34 @@
+import java.util.Random;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import Provided.GameState;
+import PythonProgrammers.MinimaxAI;
+import PythonProgrammers.Openings;
+
+public class MoveOrderingTest{
+
+    @Test
+    public void OrderingCutsOffOnTheFirstMoveMoreOften(){
+        GameState[] positions = Openings.distinct(new Random(51), 8, 20, 10);
+        double orderedRate = 0;
+        double unorderedRate = 0;
+        long orderedNodes = 0;
+        long unorderedNodes = 0;
+        for (GameState state : positions) {
+            MinimaxAI ordered = new MinimaxAI(6);
+            MinimaxAI unordered = new MinimaxAI(6);
+            unordered.setMoveOrdering(false);
+            int orderedScore = ordered.findBestMove(state, state.getPlayerInTurn()).score;
+            int unorderedScore = unordered.findBestMove(state, state.getPlayerInTurn()).score;
+            assertEquals(unorderedScore, orderedScore);
+            orderedRate += ordered.getFirstMoveCutoffRate();
+            unorderedRate += unordered.getFirstMoveCutoffRate();
+            orderedNodes += ordered.getLastStats().getNodes();
+            unorderedNodes += unordered.getLastStats().getNodes();
+        }
+        assertTrue(orderedRate + " <= " + unorderedRate, orderedRate > unorderedRate);
+        assertTrue(orderedNodes + " >= " + unorderedNodes, orderedNodes < unorderedNodes);
+    }
+}
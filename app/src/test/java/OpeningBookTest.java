@@ -0,0 +1,89 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import Provided.GameState;
+import Provided.Position;
+import PythonProgrammers.OpeningBook;
+
+public class OpeningBookTest{
+
+    @Test
+    public void SymmetricPositionsShareOneEntry(){
+        //the four first moves are rotations and reflections of each other
+        GameState start = new GameState(8, 1);
+        List<Position> moves = start.legalMoves();
+        assertEquals(4, moves.size());
+        long key = OpeningBook.key(afterMove(start, moves.get(0)));
+        for (Position move : moves)
+            assertEquals(key, OpeningBook.key(afterMove(start, move)));
+        assertNotEquals(key, OpeningBook.key(start));
+    }
+
+    @Test
+    public void LookupTurnsTheMoveBackToTheBoard() throws IOException{
+        //store a reply to one first move, then look it up after each of the symmetric first moves
+        GameState start = new GameState(8, 1);
+        GameState first = afterMove(start, start.legalMoves().get(0));
+        Position reply = first.legalMoves().get(1);
+        List<OpeningBook.Entry> entries = new ArrayList<OpeningBook.Entry>();
+        entries.add(new OpeningBook.Entry(OpeningBook.key(first),
+                OpeningBook.canonicalMove(first, reply.getCol() * 8 + reply.getRow()), 42, 10));
+        OpeningBook book = OpeningBook.open(write(entries));
+        assertEquals(1, book.size());
+        assertNull(book.lookup(start));
+
+        long expected = OpeningBook.key(afterMove(first, reply));
+        for (Position move : start.legalMoves()) {
+            GameState state = afterMove(start, move);
+            Position found = book.lookup(state);
+            assertNotNull(found);
+            assertEquals(expected, OpeningBook.key(afterMove(state, found)));
+        }
+        assertEquals(42, book.find(OpeningBook.key(first)).score);
+        assertEquals(10, book.find(OpeningBook.key(first)).depth);
+    }
+
+    @Test
+    public void FindsEveryWrittenKey() throws IOException{
+        List<OpeningBook.Entry> entries = new ArrayList<OpeningBook.Entry>();
+        for (int i = 0; i < 1000; i++)
+            entries.add(new OpeningBook.Entry(i * 0x9E3779B97F4A7C15L, i % 64, -i, i % 20));
+        OpeningBook book = OpeningBook.open(write(entries));
+        assertEquals(1000, book.size());
+        for (OpeningBook.Entry entry : entries) {
+            OpeningBook.Entry found = book.find(entry.key);
+            assertNotNull(found);
+            assertEquals(entry.move, found.move);
+            assertEquals(entry.score, found.score);
+            assertEquals(entry.depth, found.depth);
+        }
+        assertNull(book.find(12345));
+    }
+
+    @Test
+    public void StandardBookKnowsTheStartPosition(){
+        GameState start = new GameState(8, 1);
+        Position move = OpeningBook.standard().lookup(start);
+        assertNotNull(move);
+        assertTrue(start.insertToken(move));
+    }
+
+    private static GameState afterMove(GameState state, Position move){
+        GameState next = new GameState(state);
+        assertTrue(next.insertToken(move));
+        return next;
+    }
+
+    private static Path write(List<OpeningBook.Entry> entries) throws IOException{
+        Path file = Files.createTempFile("book", ".bin");
+        file.toFile().deleteOnExit();
+        OpeningBook.write(file, entries);
+        return file;
+    }
+}
@@ -0,0 +1,88 @@
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import Provided.GameState;
+import PythonProgrammers.Evaluator;
+import PythonProgrammers.MinimaxAI;
+import PythonProgrammers.Openings;
+import PythonProgrammers.WeightedEvaluator;
+
+public class ParallelSearchTest{
+
+    /**
+     * A WeightedEvaluator that counts the positions evaluated by it and all its copies, so the
+     * work of the helper threads can be seen from outside.
+     */
+    private static class CountingEvaluator implements Evaluator {
+        private final WeightedEvaluator weights = new WeightedEvaluator();
+        private final AtomicLong evaluations;
+
+        CountingEvaluator(AtomicLong evaluations) {
+            this.evaluations = evaluations;
+        }
+
+        public void reset(GameState state) { weights.reset(state); }
+        public void onMakeMove(GameState state, int undo) { weights.onMakeMove(state, undo); }
+        public void onUnmakeMove(GameState state, int undo) { weights.onUnmakeMove(state, undo); }
+        public Evaluator copy() { return new CountingEvaluator(evaluations); }
+
+        public int evaluate(GameState state) {
+            evaluations.incrementAndGet();
+            return weights.evaluate(state);
+        }
+    }
+
+    @Test
+    public void SameScoresWithOneAndFourThreads(){
+        GameState[] positions = Openings.distinct(new Random(31), 8, 20, 8);
+        for (GameState state : positions) {
+            MinimaxAI serial = new MinimaxAI(6);
+            MinimaxAI parallel = new MinimaxAI(6);
+            parallel.setThreads(4);
+            assertEquals(serial.findBestMove(state, state.getPlayerInTurn()).score,
+                    parallel.findBestMove(state, state.getPlayerInTurn()).score);
+            assertEquals(6, parallel.getLastDepth());
+        }
+    }
+
+    @Test
+    public void HelpersHaveFinishedWhenTheSearchReturns() throws InterruptedException {
+        AtomicLong evaluations = new AtomicLong();
+        MinimaxAI ai = new MinimaxAI(6);
+        ai.setThreads(4);
+        ai.setEvaluator(new CountingEvaluator(evaluations));
+        for (GameState state : Openings.distinct(new Random(32), 8, 20, 5)) {
+            ai.findBestMove(state, state.getPlayerInTurn());
+            long afterSearch = evaluations.get();
+            Thread.sleep(50);   //a helper still running would go on evaluating
+            assertEquals(afterSearch, evaluations.get());
+        }
+    }
+
+    @Test
+    public void HelperFailureIsReported(){
+        MinimaxAI ai = new MinimaxAI(6);
+        ai.setThreads(2);
+        ai.setEvaluator(new WeightedEvaluator() {
+            @Override
+            public Evaluator copy() {
+                return new WeightedEvaluator() {
+                    @Override
+                    public int evaluate(GameState state) {
+                        throw new ArithmeticException("helper");
+                    }
+                };
+            }
+        });
+        GameState state = Openings.random(new Random(33), 8, 20);
+        try {
+            ai.findBestMove(state, state.getPlayerInTurn());
+            fail("The failure of the helper was not reported");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getCause() instanceof ArithmeticException);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import Provided.GameState;
+import PythonProgrammers.PatternEvaluator;
+
+public class PatternEvaluatorTest{
+
+    @Test
+    public void IncrementalMatchesFromScratch(){
+        Random random = new Random(15);
+        int[] weights = randomWeights(random);
+        for (int game = 0; game < 20; game++){
+            GameState state = new GameState(8, 1);
+            PatternEvaluator incremental = new PatternEvaluator(weights);
+            PatternEvaluator fresh = new PatternEvaluator(weights);
+            incremental.reset(state);
+            int[] undos = new int[64];
+            int made = 0;
+            int[] moves = new int[64];
+            while (!state.isFinished()){
+                int count = state.legalMoves(moves);
+                if (count == 0){
+                    state.changePlayer();
+                    continue;
+                }
+                int undo = state.makeMove(moves[random.nextInt(count)]);
+                incremental.onMakeMove(state, undo);
+                undos[made++] = undo;
+                fresh.reset(state);
+                assertEquals(fresh.evaluate(state), incremental.evaluate(state));
+            }
+            while (made > 0){
+                int undo = undos[--made];
+                incremental.onUnmakeMove(state, undo);
+                state.unmakeMove(undo);
+                fresh.reset(state);
+                assertEquals(fresh.evaluate(state), incremental.evaluate(state));
+            }
+        }
+    }
+
+    @Test
+    public void WeightsSurviveWritingAndReading() throws IOException{
+        int[] weights = randomWeights(new Random(2));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PatternEvaluator.write(weights, out);
+        assertArrayEquals(weights, PatternEvaluator.read(new ByteArrayInputStream(out.toByteArray())));
+    }
+
+    @Test
+    public void DefaultWeightsAreShipped(){
+        GameState start = new GameState(8, 1);
+        PatternEvaluator evaluator = new PatternEvaluator();
+        evaluator.reset(start);
+        assertTrue(Math.abs(evaluator.evaluate(start)) < 10 * PatternEvaluator.SCALE);   //the start position is about even
+    }
+
+    private static int[] randomWeights(Random random){
+        int[] weights = new int[PatternEvaluator.weightCount()];
+        for (int i = 0; i < weights.length; i++)
+            weights[i] = random.nextInt(2001) - 1000;
+        return weights;
+    }
+}
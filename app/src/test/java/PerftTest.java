@@ -0,0 +1,62 @@
+import java.util.Random;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import Provided.GameState;
+import PythonProgrammers.Openings;
+import PythonProgrammers.Perft;
+
+public class PerftTest{
+
+    //Known perft counts from the 8x8 start position, depth 1 to 9.
+    long[] expected = {4, 12, 56, 244, 1396, 8200, 55092, 390216, 3005288};
+
+    @Test
+    public void BitboardMatchesKnownCounts(){
+        GameState start = new GameState(8, 1);
+        for (int depth = 1; depth <= expected.length; depth++)
+            assertEquals(expected[depth - 1], Perft.count(start, depth));
+    }
+
+    @Test
+    public void ArrayBoardMatchesKnownCounts(){
+        GameState start = new GameState(new GameState(8, 1).getBoard(), 1, false);
+        for (int depth = 1; depth <= 7; depth++)
+            assertEquals(expected[depth - 1], Perft.count(start, depth));
+    }
+
+    @Test
+    public void BitboardAgreesWithArrayBoard(){
+        GameState start = new GameState(8, 1);
+        GameState reference = new GameState(start.getBoard(), 1, false);
+        assertEquals(expected[5], Perft.verify(reference, start, 6));
+
+        //Positions later in the game, where passes and finished games happen
+        Random random = new Random(8);
+        for (int i = 0; i < 30; i++){
+            GameState state = Openings.random(random, 8, 30 + random.nextInt(28));
+            reference = new GameState(state.getBoard(), state.getPlayerInTurn(), false);
+            assertEquals(Perft.count(state, 5), Perft.verify(reference, state, 5));
+        }
+    }
+
+    @Test
+    public void MailboxBoardAgreesWithArrayBoard(){
+        Random random = new Random(10);
+        for (int size = 4; size <= 12; size += 2){
+            if (size == 8)
+                continue;
+            GameState start = new GameState(size, 1);
+            assertFalse(start.usesBitboard());
+            Perft.verify(new GameState(start.getBoard(), 1, false), start, size == 4 ? 8 : 5);
+
+            //Positions later in the game, where passes and finished games happen
+            for (int i = 0; i < 10; i++){
+                GameState state = Openings.random(random, size, random.nextInt(size * size - 4));
+                GameState reference = new GameState(state.getBoard(), state.getPlayerInTurn(), false);
+                assertEquals(Perft.count(reference, 4), Perft.verify(reference, state, 4));
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+import java.util.Random;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import Provided.GameState;
+import Provided.Position;
+import PythonProgrammers.Openings;
+import PythonProgrammers.OurBot;
+
+public class PonderingTest{
+
+    @Test
+    public void ExpectedRepliesAreAnsweredFromThePonderSearch(){
+        //the opponent searches like our guess of its reply, so most replies are expected
+        OurBot bot = new OurBot(5);
+        bot.setOpeningBook(null);
+        bot.setEndgameEmpties(0);
+        bot.setPondering(true);
+        OurBot opponent = new OurBot(3);
+        opponent.setOpeningBook(null);
+        opponent.setEndgameEmpties(0);
+        GameState state = Openings.random(new Random(7), 8, 4);
+        int hits = 0;
+        int moves = 0;
+        while (!state.isFinished()) {
+            if (!state.hasAnyLegalMove()) {
+                state.changePlayer();
+                continue;
+            }
+            boolean ours = state.getPlayerInTurn() == 1;
+            int[] tokens = state.countTokens();
+            int empties = 64 - tokens[0] - tokens[1];
+            Position move = (ours ? bot : opponent).decideMove(new GameState(state));
+            assertTrue(state.insertToken(move));
+            if (ours) {
+                moves++;
+                if (bot.getLastStats().getSearcher().equals("ponder")) {
+                    hits++;
+                    assertEquals(Math.min(5, empties), bot.getLastStats().getDepth());   //as deep as without pondering
+                }
+            }
+        }
+        bot.setPondering(false);
+        assertTrue(hits + " hits in " + moves + " moves", hits > moves / 3);
+    }
+
+    @Test
+    public void WithoutPonderingEveryMoveIsSearched(){
+        OurBot bot = new OurBot(4);
+        bot.setOpeningBook(null);
+        GameState state = Openings.random(new Random(8), 8, 4);
+        for (int i = 0; i < 6 && !state.isFinished(); i++) {
+            if (!state.hasAnyLegalMove()) {
+                state.changePlayer();
+                continue;
+            }
+            Position move = bot.decideMove(new GameState(state));
+            assertEquals("minimax", bot.getLastStats().getSearcher());
+            assertTrue(state.insertToken(move));
+        }
+    }
+}
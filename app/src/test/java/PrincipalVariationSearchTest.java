@@ -0,0 +1,69 @@
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import Provided.GameState;
+import Provided.Position;
+import PythonProgrammers.MinimaxAI;
+import PythonProgrammers.Openings;
+import PythonProgrammers.WeightedEvaluator;
+
+public class PrincipalVariationSearchTest{
+
+    @Test
+    public void SameScoresAsAlphaBeta(){
+        Random random = new Random(11);
+        for (int i = 0; i < 10; i++) {
+            GameState state = Openings.random(random, 8, 10 + 2 * i);
+            for (int megabytes : new int[]{0, 4}) {
+                MinimaxAI pvs = new MinimaxAI(5, megabytes);
+                MinimaxAI alphaBeta = new MinimaxAI(5, megabytes);
+                alphaBeta.setPrincipalVariationSearch(false);
+                assertEquals(alphaBeta.findBestMove(state, state.getPlayerInTurn()).score,
+                        pvs.findBestMove(state, state.getPlayerInTurn()).score);
+            }
+        }
+    }
+
+    @Test
+    public void PrincipalVariationLeadsToTheScore(){
+        //without a table the variation goes all the way to the position whose evaluation is the score
+        Random random = new Random(12);
+        for (int i = 0; i < 10; i++) {
+            GameState state = Openings.random(random, 8, 16);
+            MinimaxAI ai = new MinimaxAI(6, 0);
+            MinimaxAI.Pair best = ai.findBestMove(state, state.getPlayerInTurn());
+            List<Position> line = ai.getPrincipalVariation();
+            assertEquals(6, line.size());
+            assertEquals(best.move, line.get(0));
+            for (Position move : line) {
+                if (move == null)
+                    state.changePlayer();
+                else
+                    assertTrue(state.insertToken(move));
+            }
+            WeightedEvaluator evaluator = new WeightedEvaluator();
+            evaluator.reset(state);
+            assertEquals(best.score, evaluator.evaluate(state));
+        }
+    }
+
+    @Test
+    public void FewerNodesThanAlphaBeta(){
+        GameState[] positions = Openings.distinct(new Random(13), 8, 20, 10);
+        long pvsNodes = 0;
+        long alphaBetaNodes = 0;
+        for (GameState state : positions) {
+            MinimaxAI pvs = new MinimaxAI(7);
+            pvs.findBestMove(state, state.getPlayerInTurn());
+            pvsNodes += pvs.getLastStats().getNodes();
+            MinimaxAI alphaBeta = new MinimaxAI(7);
+            alphaBeta.setPrincipalVariationSearch(false);
+            alphaBeta.findBestMove(state, state.getPlayerInTurn());
+            alphaBetaNodes += alphaBeta.getLastStats().getNodes();
+        }
+        assertTrue(pvsNodes + " nodes against " + alphaBetaNodes, pvsNodes < alphaBetaNodes);
+    }
+}
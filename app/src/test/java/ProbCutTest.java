@@ -0,0 +1,108 @@
+import java.io.ByteArrayInputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import Provided.GameState;
+import PythonProgrammers.MinimaxAI;
+import PythonProgrammers.Openings;
+import PythonProgrammers.PatternEvaluator;
+import PythonProgrammers.ProbCut;
+
+public class ProbCutTest{
+
+    @Test
+    public void CalibrationReadsBackAsWritten() throws Exception{
+        ProbCut calibration = ProbCut.standard();
+        assertNotNull(calibration);
+        StringWriter text = new StringWriter();
+        calibration.write(text);
+        ProbCut read = ProbCut.read(new ByteArrayInputStream(text.toString().getBytes(StandardCharsets.UTF_8)), 2);
+        assertEquals(2, read.getThreshold(), 0);
+        List<ProbCut.Check> written = calibration.getCalibrated();
+        List<ProbCut.Check> back = read.getCalibrated();
+        assertEquals(written.size(), back.size());
+        for (int i = 0; i < written.size(); i++) {
+            assertEquals(written.get(i).depth, back.get(i).depth);
+            assertEquals(written.get(i).shallowDepth, back.get(i).shallowDepth);
+            assertEquals(written.get(i).slope, back.get(i).slope, 1e-4);
+            assertEquals(written.get(i).sigma, back.get(i).sigma, 1e-2);
+        }
+    }
+
+    @Test
+    public void SelectiveSearchVisitsFewerNodes(){
+        GameState[] positions = Openings.distinct(new Random(21), 8, 20, 10);
+        long fullNodes = 0;
+        long selectiveNodes = 0;
+        for (GameState state : positions) {
+            MinimaxAI full = new MinimaxAI(8);
+            full.setEvaluator(new PatternEvaluator());
+            full.findBestMove(state, state.getPlayerInTurn());
+            fullNodes += full.getLastStats().getNodes();
+            MinimaxAI selective = new MinimaxAI(8);
+            selective.setEvaluator(new PatternEvaluator());
+            selective.setProbCut(ProbCut.standard());
+            assertNotNull(selective.findBestMove(state, state.getPlayerInTurn()).move);
+            selectiveNodes += selective.getLastStats().getNodes();
+            assertTrue(selective.getLastStats().getProbCutoffs() > 0);
+        }
+        assertTrue(selectiveNodes + " nodes against " + fullNodes, 2 * selectiveNodes < fullNodes);
+    }
+
+    @Test
+    public void OtherBoardSizesAreSearchedFullWidth(){
+        //the calibration is for 8x8, so on 6x6 and 10x10 nothing may be cut
+        for (int size : new int[]{6, 10}){
+            GameState state = Openings.random(new Random(size), size, 6);
+            MinimaxAI full = new MinimaxAI(5);
+            MinimaxAI selective = new MinimaxAI(5);
+            selective.setProbCut(ProbCut.standard().withThreshold(0.5));
+            assertEquals(full.findBestMove(state, state.getPlayerInTurn()).score,
+                    selective.findBestMove(state, state.getPlayerInTurn()).score);
+            assertEquals(0, selective.getLastStats().getProbCutoffs());
+            assertEquals(full.getLastStats().getNodes(), selective.getLastStats().getNodes());
+        }
+    }
+
+    @Test
+    public void NothingIsCutWithAHugeThreshold(){
+        //no prediction is that sure, so the search is the full width search
+        ProbCut never = ProbCut.standard().withThreshold(1e6);
+        GameState[] positions = Openings.distinct(new Random(22), 8, 16, 5);
+        for (GameState state : positions) {
+            MinimaxAI full = new MinimaxAI(6);
+            full.setEvaluator(new PatternEvaluator());
+            MinimaxAI selective = new MinimaxAI(6);
+            selective.setEvaluator(new PatternEvaluator());
+            selective.setProbCut(never);
+            assertEquals(full.findBestMove(state, state.getPlayerInTurn()).score,
+                    selective.findBestMove(state, state.getPlayerInTurn()).score);
+            assertEquals(0, selective.getLastStats().getProbCutoffs());
+        }
+    }
+
+    @Test
+    public void ChecksThatNeverCutLeaveTheSearchAsItWas(){
+        //the shallow searches run but never cut, and the full depth search must not notice them
+        ProbCut never = ProbCut.standard().withThreshold(1e6);
+        GameState[] positions = Openings.distinct(new Random(22), 8, 16, 5);
+        for (GameState state : positions) {
+            MinimaxAI full = new MinimaxAI(7);
+            full.setEvaluator(new PatternEvaluator());
+            MinimaxAI selective = new MinimaxAI(7);
+            selective.setEvaluator(new PatternEvaluator());
+            selective.setProbCut(never);
+            full.findBestMove(state, state.getPlayerInTurn());
+            selective.findBestMove(state, state.getPlayerInTurn());
+            assertTrue(selective.getLastStats().getProbCutNodes() > 0);
+            assertEquals(full.getLastStats().getNodes(),
+                    selective.getLastStats().getNodes() - selective.getLastStats().getProbCutNodes());
+            assertEquals(full.getLastStats().getCutoffs(), selective.getLastStats().getCutoffs());
+        }
+    }
+}
@@ -0,0 +1,52 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import Provided.GameState;
+import Provided.Position;
+import Provided.SearchProgress;
+import PythonProgrammers.MinimaxAI;
+import PythonProgrammers.Openings;
+import PythonProgrammers.OurBot;
+
+public class SearchProgressTest{
+
+    @Test
+    public void ListenerHearsEveryDepthAndTheFinalMove(){
+        GameState state = Openings.random(new Random(5), 8, 20);
+        MinimaxAI ai = new MinimaxAI(6);
+        List<SearchProgress> reports = new ArrayList<SearchProgress>();
+        ai.setProgressListener(reports::add);
+        MinimaxAI.Pair best = ai.findBestMove(state, state.getPlayerInTurn());
+        assertEquals(6, reports.size());
+        for (int i = 0; i < reports.size(); i++) {
+            assertEquals(i + 1, reports.get(i).getDepth());
+            assertNotNull(reports.get(i).getMove());
+        }
+        SearchProgress last = reports.get(5);
+        assertEquals(best.move, last.getMove());
+        assertEquals(best.score, last.getScore());
+        assertEquals(6, ai.getLastDepth());
+    }
+
+    @Test
+    public void StopReturnsTheDeepestCompletedMove(){
+        //stopped from the listener after depth 4, a search to depth 40 ends with the move of depth 4
+        GameState state = Openings.random(new Random(6), 8, 16);
+        OurBot bot = new OurBot(40);
+        bot.setOpeningBook(null);
+        List<SearchProgress> reports = new ArrayList<SearchProgress>();
+        bot.setProgressListener(progress -> {
+            reports.add(progress);
+            if (progress.getDepth() == 4)
+                bot.stop();
+        });
+        Position move = bot.decideMove(state);
+        assertEquals(4, reports.size());
+        assertEquals(4, bot.getLastStats().getDepth());
+        assertEquals(reports.get(3).getMove(), move);
+    }
+}
@@ -0,0 +1,54 @@
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Random;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import Provided.GameState;
+import PythonProgrammers.MinimaxAI;
+import PythonProgrammers.Openings;
+import PythonProgrammers.OurBot;
+import PythonProgrammers.SearchStats;
+
+public class SearchStatsTest{
+
+    @Test
+    public void CountersAreConsistent(){
+        GameState state = Openings.random(new Random(4), 8, 20);
+        MinimaxAI ai = new MinimaxAI(6);
+        MinimaxAI.Pair best = ai.findBestMove(state, state.getPlayerInTurn());
+        SearchStats stats = ai.getLastStats();
+        assertEquals(6, stats.getDepth());
+        assertEquals(best.score, stats.getScore());
+        assertTrue(stats.getNodes() > 0);
+        assertTrue(stats.getLeafEvaluations() <= stats.getNodes());
+        assertTrue(stats.getFirstMoveCutoffs() <= stats.getCutoffs());
+        assertTrue(stats.getTableHits() <= stats.getTableProbes());
+        assertTrue(stats.getTableCutoffs() <= stats.getTableHits());
+        assertTrue(stats.getElapsedNanos() > 0);
+    }
+
+    @Test
+    public void OurBotLogsOneJsonLinePerMoveAndNothingElse(){
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+        PrintStream originalOut = System.out;
+        OurBot bot = new OurBot(4);
+        bot.setStatsLog(new PrintStream(log, true));
+        System.setOut(new PrintStream(stdout, true));
+        try {
+            Random random = new Random(9);
+            for (int i = 0; i < 5; i++)
+                bot.decideMove(Openings.random(random, 8, 10 + 10 * i));   //the last ones use the endgame solver
+        } finally {
+            System.setOut(originalOut);
+        }
+        assertEquals("", stdout.toString());
+        String[] lines = log.toString().trim().split("\n");
+        assertEquals(5, lines.length);
+        for (String line : lines)
+            assertTrue(line, line.startsWith("{\"searcher\":") && line.endsWith("}"));
+        assertEquals("endgame", bot.getLastStats().getSearcher());
+    }
+}
@@ -0,0 +1,89 @@
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import PythonProgrammers.SelfPlayGenerator;
+
+public class SelfPlayGeneratorTest{
+
+    @Test
+    public void PositionsAreLabelled() throws Exception{
+        Path directory = Files.createTempDirectory("selfplay");
+        try {
+            assertEquals(6, new SelfPlayGenerator(2, 8, "pattern", 10, 3, 2, 5).run(directory, 6, false));
+            for (int chunk = 0; chunk < 2; chunk++){
+                List<SelfPlayGenerator.Sample> samples = SelfPlayGenerator.readChunk(SelfPlayGenerator.chunkPath(directory, chunk));
+                assertTrue(samples.size() > 3 * 30);
+                int solved = 0;
+                for (SelfPlayGenerator.Sample sample : samples){
+                    assertEquals(0, sample.black & sample.white);
+                    assertTrue(sample.playerInTurn == 1 || sample.playerInTurn == 2);
+                    assertTrue(Math.abs(sample.result) <= 64);
+                    int empties = 64 - Long.bitCount(sample.black | sample.white);
+                    //only the positions near the end are solved
+                    assertEquals(empties <= 10, sample.exact != SelfPlayGenerator.NO_EXACT);
+                    if (sample.exact != SelfPlayGenerator.NO_EXACT){
+                        assertTrue(Math.abs(sample.exact) <= 64);
+                        solved++;
+                    }
+                }
+                assertTrue(solved >= 3 * 5);
+            }
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    public void RunsResumeFromTheChunksWritten() throws Exception{
+        Path directory = Files.createTempDirectory("selfplay");
+        try {
+            SelfPlayGenerator generator = new SelfPlayGenerator(1, 6, "weighted", 0, 2, 1, 6);
+            //5 games are rounded up to 3 whole chunks
+            assertEquals(6, generator.run(directory, 5, false));
+            byte[] kept = Files.readAllBytes(SelfPlayGenerator.chunkPath(directory, 2));
+            Files.delete(SelfPlayGenerator.chunkPath(directory, 1));
+            assertEquals(2, generator.run(directory, 6, false));
+            assertTrue(Files.exists(SelfPlayGenerator.chunkPath(directory, 1)));
+            assertArrayEquals(kept, Files.readAllBytes(SelfPlayGenerator.chunkPath(directory, 2)));
+            assertEquals(2, generator.run(directory, 8, false));
+            try {
+                new SelfPlayGenerator(2, 6, "weighted", 0, 2, 1, 6).run(directory, 8, false);
+                fail("Resumed data generated at another depth");
+            } catch (IllegalArgumentException e) {
+                //expected
+            }
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    public void ChunksDoNotDependOnTheNumberOfThreads() throws Exception{
+        Path one = Files.createTempDirectory("selfplay");
+        Path five = Files.createTempDirectory("selfplay");
+        try {
+            new SelfPlayGenerator(6, 8, "weighted", 0, 3, 1, 3).run(one, 6, false);
+            new SelfPlayGenerator(6, 8, "weighted", 0, 3, 5, 3).run(five, 6, false);
+            //one thread played every game after the ones before it, five threads each started a game fresh
+            for (int chunk = 0; chunk < 2; chunk++)
+                assertArrayEquals(Files.readAllBytes(SelfPlayGenerator.chunkPath(one, chunk)),
+                        Files.readAllBytes(SelfPlayGenerator.chunkPath(five, chunk)));
+        } finally {
+            delete(one);
+            delete(five);
+        }
+    }
+
+    private static void delete(Path directory) throws Exception{
+        try (Stream<Path> paths = Files.walk(directory)){
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator)
+                Files.delete(path);
+        }
+    }
+}
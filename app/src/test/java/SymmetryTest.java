@@ -0,0 +1,86 @@
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import Provided.GameState;
+import Provided.Position;
+import PythonProgrammers.Openings;
+import PythonProgrammers.Symmetry;
+
+public class SymmetryTest{
+
+    @Test
+    public void BitboardTransformMovesEverySquareLikeSquare(){
+        Random random = new Random(1);
+        for (int i = 0; i < 100; i++) {
+            long bits = random.nextLong();
+            for (int t = 0; t < Symmetry.COUNT; t++) {
+                long expected = 0;
+                for (int square = 0; square < 64; square++)
+                    if ((bits & (1L << square)) != 0)
+                        expected |= 1L << Symmetry.square(square, 8, t);
+                assertEquals("symmetry " + t, expected, Symmetry.transform(bits, t));
+            }
+        }
+    }
+
+    @Test
+    public void InverseUndoesTheSymmetry(){
+        for (int size = 4; size <= 12; size += 2) {
+            for (int t = 0; t < Symmetry.COUNT; t++) {
+                Set<Integer> images = new HashSet<Integer>();
+                for (int square = 0; square < size * size; square++) {
+                    int image = Symmetry.square(square, size, t);
+                    images.add(image);
+                    assertEquals(square, Symmetry.square(image, size, Symmetry.inverse(t)));
+                }
+                assertEquals(size * size, images.size());   //a permutation of the squares
+            }
+        }
+    }
+
+    @Test
+    public void SymmetricPositionsHaveTheSameCanonicalKey(){
+        Random random = new Random(2);
+        for (int size = 6; size <= 10; size += 2) {
+            for (int i = 0; i < 20; i++) {
+                GameState state = Openings.random(random, size, 3 + i);
+                long key = Symmetry.canonicalKey(state);
+                for (int t = 0; t < Symmetry.COUNT; t++) {
+                    GameState transformed = new GameState(Symmetry.transform(state.getBoard(), t), state.getPlayerInTurn());
+                    assertEquals(key, Symmetry.canonicalKey(transformed));
+                }
+                GameState passed = new GameState(state);
+                passed.changePlayer();
+                assertNotEquals(key, Symmetry.canonicalKey(passed));
+            }
+        }
+    }
+
+    @Test
+    public void CanonicalMovesAreTheSameForSymmetricPositions(){
+        //a move turned into the canonical orientation and back lands on the same move
+        GameState state = Openings.random(new Random(3), 8, 12);
+        int canonical = Symmetry.canonical(state);
+        for (Position move : state.legalMoves()) {
+            Position there = Symmetry.move(move, 8, canonical);
+            Position back = Symmetry.move(there, 8, Symmetry.inverse(canonical));
+            assertEquals(move.getCol(), back.getCol());
+            assertEquals(move.getRow(), back.getRow());
+        }
+    }
+
+    @Test
+    public void DistinctOpeningsAreNotSymmetric(){
+        GameState[] openings = Openings.distinct(new Random(4), 8, 6, 200);
+        assertEquals(200, openings.length);
+        Set<Long> keys = new HashSet<Long>();
+        for (GameState opening : openings)
+            assertTrue(keys.add(Symmetry.canonicalKey(opening)));
+        //after one move all four openings are the same position turned around
+        assertEquals(1, Openings.distinct(new Random(4), 8, 1, 10).length);
+    }
+}
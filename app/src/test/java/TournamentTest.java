@@ -0,0 +1,164 @@
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import Provided.DumAI;
+import Provided.GameState;
+import Provided.IOthelloAI;
+import Provided.Position;
+import PythonProgrammers.OurBot;
+import PythonProgrammers.Tournament;
+
+public class TournamentTest{
+
+    /**
+     * A bot with two constructors of one parameter, so createBot has to pick the one that fits.
+     */
+    public static class NamedBot implements IOthelloAI {
+        public final String name;
+
+        public NamedBot(int number) {
+            this.name = "bot" + number;
+        }
+
+        public NamedBot(String name) {
+            this.name = name;
+        }
+
+        public Position decideMove(GameState s) {
+            return s.legalMoves().get(0);
+        }
+    }
+
+    @Test
+    public void CreatesBotsFromSpecs(){
+        assertTrue(Tournament.createBot("Provided.DumAI") instanceof DumAI);
+        assertTrue(Tournament.createBot("PythonProgrammers.OurBot:4") instanceof OurBot);
+        assertTrue(Tournament.createBot("PythonProgrammers.OurBot:4, 8, weighted") instanceof OurBot);
+    }
+
+    @Test
+    public void TriesEveryConstructorWithThatManyParameters(){
+        assertEquals("bot7", ((NamedBot) Tournament.createBot("TournamentTest$NamedBot:7")).name);
+        assertEquals("seven", ((NamedBot) Tournament.createBot("TournamentTest$NamedBot:seven")).name);
+    }
+
+    @Test
+    public void RejectsSpecsNoConstructorFits(){
+        for (String spec : new String[]{"PythonProgrammers.OurBot:four", "PythonProgrammers.OurBot:4,8,minimax",
+                "PythonProgrammers.NoSuchBot", "PythonProgrammers.OurBot:1,2,3,4,5,6"}) {
+            try {
+                Tournament.createBot(spec);
+                fail("Created a bot from " + spec);
+            } catch (IllegalArgumentException e) {
+                assertTrue(e.getMessage(), e.getMessage().endsWith("bot " + spec));
+            }
+        }
+    }
+
+    @Test
+    public void ResultsDoNotDependOnTheNumberOfThreads() throws Exception {
+        List<String> bots = List.of("PythonProgrammers.OurBot:3", "PythonProgrammers.OurBot:3", "PythonProgrammers.OurBot:2,1,weighted");
+        List<Tournament.MatchResult> one = new Tournament(bots, false, 4, 6, 8, 1, 5).run();
+        List<Tournament.MatchResult> four = new Tournament(bots, false, 4, 6, 8, 4, 5).run();
+        assertEquals(one.size(), four.size());
+        for (int i = 0; i < one.size(); i++) {
+            assertEquals(one.get(i).wins, four.get(i).wins);
+            assertEquals(one.get(i).draws, four.get(i).draws);
+            assertEquals(one.get(i).losses, four.get(i).losses);
+        }
+        //in the mirror match both colours won each opening the same way, as two equal bots should
+        Tournament.MatchResult mirror = one.get(0);
+        assertEquals(mirror.wins, mirror.losses);
+    }
+
+    @Test
+    public void EloOfKnownScores(){
+        Tournament.MatchResult even = new Tournament.MatchResult("a", "b");
+        even.wins = 40;
+        even.draws = 20;
+        even.losses = 40;
+        assertEquals(0, even.elo()[0], 0.5);
+
+        Tournament.MatchResult ahead = new Tournament.MatchResult("a", "b");
+        ahead.wins = 70;
+        ahead.draws = 10;
+        ahead.losses = 20;
+        assertEquals(0.75, ahead.score(), 1e-9);
+        assertEquals(191, ahead.elo()[0], 0.5);
+        assertTrue(ahead.elo()[1] > 0);
+
+        Tournament.MatchResult behind = new Tournament.MatchResult("b", "a");
+        behind.wins = 20;
+        behind.draws = 10;
+        behind.losses = 70;
+        assertEquals(-191, behind.elo()[0], 0.5);
+
+        //a clean sweep or all draws still has an uncertainty
+        Tournament.MatchResult sweep = new Tournament.MatchResult("a", "b");
+        sweep.wins = 4;
+        assertEquals(338, sweep.elo()[0], 0.5);
+        assertTrue(sweep.elo()[1] > 100);
+        Tournament.MatchResult draws = new Tournament.MatchResult("a", "b");
+        draws.draws = 4;
+        assertEquals(0, draws.elo()[0], 0.5);
+        assertTrue(draws.elo()[1] > 100);
+    }
+
+    @Test
+    public void CsvReadsBackWithCommasInBotNames() throws Exception {
+        Tournament.MatchResult result = new Tournament.MatchResult("PythonProgrammers.OurBot:1,1,weighted", "Provided.DumAI");
+        result.wins = 3;
+        result.draws = 1;
+        result.losses = 0;
+        Path file = Files.createTempFile("tournament", ".csv");
+        Locale locale = Locale.getDefault();
+        Locale.setDefault(Locale.GERMANY);   //writes 0,875 for 0.875 unless the CSV ignores the locale
+        try {
+            Tournament.writeCsv(List.of(result), file.toString());
+            List<String> lines = Files.readAllLines(file);
+            assertEquals(2, lines.size());
+            List<String> header = parseCsvLine(lines.get(0));
+            List<String> row = parseCsvLine(lines.get(1));
+            assertEquals(header.size(), row.size());
+            assertEquals("PythonProgrammers.OurBot:1,1,weighted", row.get(header.indexOf("bot")));
+            assertEquals("Provided.DumAI", row.get(header.indexOf("opponent")));
+            assertEquals("3", row.get(header.indexOf("wins")));
+            assertEquals(0.875, Double.parseDouble(row.get(header.indexOf("score"))), 1e-9);
+            assertEquals(result.elo()[0], Double.parseDouble(row.get(header.indexOf("elo"))), 0.05);
+        } finally {
+            Locale.setDefault(locale);
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Splits a line of RFC 4180 CSV into its fields.
+     */
+    private static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<String>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted && c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                field.append('"');
+                i++;
+            } else if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ',' && !quoted) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,71 @@
+import java.util.Random;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import Provided.GameState;
+import PythonProgrammers.WeightedEvaluator;
+
+public class WeightedEvaluatorTest{
+
+    @Test
+    public void IncrementalMatchesFromScratch(){
+        Random random = new Random(14);
+        for (int size : new int[]{6, 8, 10}){
+            for (boolean bitboard : size == 8 ? new boolean[]{true, false} : new boolean[]{false}){
+                for (int game = 0; game < 20; game++){
+                    GameState state = new GameState(new GameState(size, 1).getBoard(), 1, bitboard);
+                    WeightedEvaluator incremental = new WeightedEvaluator();
+                    WeightedEvaluator fresh = new WeightedEvaluator();
+                    incremental.reset(state);
+                    int[] undos = new int[size * size];
+                    int made = 0;
+                    int[] moves = new int[size * size];
+                    while (!state.isFinished()){
+                        int count = state.legalMoves(moves);
+                        if (count == 0){
+                            state.changePlayer();
+                            continue;
+                        }
+                        int undo = state.makeMove(moves[random.nextInt(count)]);
+                        incremental.onMakeMove(state, undo);
+                        undos[made++] = undo;
+                        fresh.reset(state);
+                        assertEquals(fresh.evaluate(state), incremental.evaluate(state));
+                        assertEquals(naive(state), incremental.evaluate(state));
+                    }
+                    while (made > 0){    //taking the moves back must also keep the sums right
+                        int undo = undos[--made];
+                        incremental.onUnmakeMove(state, undo);
+                        state.unmakeMove(undo);
+                        fresh.reset(state);
+                        assertEquals(fresh.evaluate(state), incremental.evaluate(state));
+                    }
+                }
+            }
+        }
+    }
+
+    //The evaluation MinimaxAI used before, written out square by square: tokens, corners, edges and mobility.
+    private static int naive(GameState state){
+        int[][] board = state.getBoard();
+        int size = board.length;
+        int score = 0;
+        for (int col = 0; col < size; col++){
+            for (int row = 0; row < size; row++){
+                if (board[col][row] == 0)
+                    continue;
+                int sign = board[col][row] == 1 ? 1 : -1;
+                boolean colEdge = col == 0 || col == size - 1;
+                boolean rowEdge = row == 0 || row == size - 1;
+                score += sign * (1 + (colEdge && rowEdge ? 8 : 0) + (colEdge || rowEdge ? 5 : 0));
+            }
+        }
+        int player = state.getPlayerInTurn();
+        int mine = state.legalMoves().size();
+        state.changePlayer();
+        int theirs = state.legalMoves().size();
+        state.changePlayer();
+        return score + 3 * (player == 1 ? mine - theirs : theirs - mine);
+    }
+}